@@ -4,8 +4,6 @@ import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.graphics.Bitmap;
-import android.graphics.drawable.Drawable;
 import android.media.AudioManager;
 import android.media.MediaPlayer;
 import android.os.Build;
@@ -18,18 +16,12 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.RequestOptions;
-import com.bumptech.glide.request.target.SimpleTarget;
-import com.bumptech.glide.request.transition.Transition;
 import com.cleveroad.audiowidget.AudioWidget;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 /**
  * Simple implementation of music service.
@@ -43,7 +35,6 @@ public class MusicService extends Service implements MediaPlayer.OnPreparedListe
     private static final String ACTION_CHANGE_STATE = "ACTION_CHANGE_STATE";
     private static final String EXTRA_SELECT_TRACK = "EXTRA_SELECT_TRACK";
     private static final String EXTRA_CHANGE_STATE = "EXTRA_CHANGE_STATE";
-    private static final long UPDATE_INTERVAL = 1000;
     private static final String KEY_POSITION_X = "position_x";
     private static final String KEY_POSITION_Y = "position_y";
     private static MusicItem[] tracks;
@@ -53,7 +44,6 @@ public class MusicService extends Service implements MediaPlayer.OnPreparedListe
     private boolean preparing;
     private int playingIndex = -1;
     private boolean paused;
-    private Timer timer;
     private SharedPreferences preferences;
 
 
@@ -138,6 +128,7 @@ public class MusicService extends Service implements MediaPlayer.OnPreparedListe
                 mediaPlayer.start();
                 audioWidget.controller().start();
             }
+            audioWidget.controller().position(mediaPlayer.getCurrentPosition());
             return;
         }
         playingIndex = items.indexOf(item);
@@ -195,7 +186,6 @@ public class MusicService extends Service implements MediaPlayer.OnPreparedListe
         mediaPlayer.reset();
         mediaPlayer.release();
         mediaPlayer = null;
-        stopTrackingPosition();
         preferences = null;
         super.onDestroy();
     }
@@ -210,31 +200,7 @@ public class MusicService extends Service implements MediaPlayer.OnPreparedListe
         audioWidget.controller().start();
         audioWidget.controller().position(0);
         audioWidget.controller().duration(mediaPlayer.getDuration());
-        stopTrackingPosition();
-        startTrackingPosition();
-        int size = getResources().getDimensionPixelSize(R.dimen.cover_size);
-        Glide.with(this)
-                .asBitmap()
-                .load(items.get(playingIndex).albumArtUri())
-                .override(size, size)
-                .centerCrop()
-                .apply((new RequestOptions()).circleCrop())
-                .into(new SimpleTarget<Bitmap>() {
-                    @Override
-                    public void onLoadFailed(@Nullable Drawable errorDrawable) {
-                        super.onLoadFailed(errorDrawable);
-                        if (audioWidget != null) {
-                            audioWidget.controller().albumCover(null);
-                        }
-                    }
-
-                    @Override
-                    public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                        if (audioWidget != null) {
-                            audioWidget.controller().albumCoverBitmap(resource);
-                        }
-                    }
-                });
+        audioWidget.controller().loadAlbumCover(items.get(playingIndex).albumArtUri());
     }
 
     @Override
@@ -297,16 +263,15 @@ public class MusicService extends Service implements MediaPlayer.OnPreparedListe
             return true;
         }
         if (mediaPlayer.isPlaying()) {
-            stopTrackingPosition();
             mediaPlayer.pause();
             audioWidget.controller().start();
             paused = true;
         } else {
-            startTrackingPosition();
             audioWidget.controller().pause();
             mediaPlayer.start();
             paused = false;
         }
+        audioWidget.controller().position(mediaPlayer.getCurrentPosition());
         return false;
     }
 
@@ -341,28 +306,6 @@ public class MusicService extends Service implements MediaPlayer.OnPreparedListe
         Log.d(TAG, "album long clicked");
     }
 
-    private void startTrackingPosition() {
-        timer = new Timer(TAG);
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                AudioWidget widget = audioWidget;
-                MediaPlayer player = mediaPlayer;
-                if (widget != null) {
-                    widget.controller().position(player.getCurrentPosition());
-                }
-            }
-        }, UPDATE_INTERVAL, UPDATE_INTERVAL);
-    }
-
-    private void stopTrackingPosition() {
-        if (timer == null)
-            return;
-        timer.cancel();
-        timer.purge();
-        timer = null;
-    }
-
     @Override
     public void onWidgetStateChanged(@NonNull AudioWidget.State state) {
 
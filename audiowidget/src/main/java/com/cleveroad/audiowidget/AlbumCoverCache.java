@@ -0,0 +1,49 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+/**
+ * LRU cache of album covers bounded by size of cover bitmaps in bytes.
+ * Covers are keyed by caller-supplied key (track identity), so the same track always
+ * gets the same drawable and widgets don't need to wrap or upload its bitmap again.
+ * <p>
+ * Must be used from main thread only.
+ */
+class AlbumCoverCache extends LruCache<String, BitmapDrawable> {
+
+	/**
+	 * Default cache size: 1/32 of available heap.
+	 */
+	static int defaultMaxSize() {
+		return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 32);
+	}
+
+	/**
+	 * Create new cache.
+	 * @param maxSize max size of cached bitmaps in bytes
+	 */
+	AlbumCoverCache(int maxSize) {
+		super(maxSize);
+	}
+
+	/**
+	 * Check if cover is cached. Unlike {@link #get(Object)}, it's not counted as hit or miss
+	 * and doesn't change eviction order. Copies cache entries, so it's not meant for per-frame use.
+	 */
+	boolean contains(@NonNull String key) {
+		return snapshot().containsKey(key);
+	}
+
+	@Override
+	protected int sizeOf(@NonNull String key, @NonNull BitmapDrawable value) {
+		Bitmap bitmap = value.getBitmap();
+		if (bitmap == null || bitmap.isRecycled()) {
+			return 1;
+		}
+		return Math.max(1, bitmap.getRowBytes() * bitmap.getHeight());
+	}
+}
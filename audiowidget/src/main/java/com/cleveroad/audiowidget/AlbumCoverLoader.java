@@ -0,0 +1,228 @@
+package com.cleveroad.audiowidget;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decodes album covers on background thread. Covers are downsampled while decoding,
+ * so full size artwork never gets into memory, and cropped to circle. Only the latest
+ * request is delivered: every new request cancels previous one.
+ * <p>
+ * Requests must be made from main thread. Results are delivered on main thread.
+ */
+class AlbumCoverLoader {
+
+	private static ExecutorService executor;
+	/**
+	 * Bitmap used for decoding. Accessed from executor's thread only.
+	 */
+	private static Bitmap decodeBuffer;
+
+	private final ContentResolver contentResolver;
+	private final Handler mainHandler;
+	/**
+	 * Id of the latest request. Results of other requests are dropped.
+	 */
+	private volatile int generation;
+	@Nullable
+	private Future<?> pendingTask;
+
+	AlbumCoverLoader(@NonNull ContentResolver contentResolver) {
+		this.contentResolver = contentResolver;
+		this.mainHandler = new Handler(Looper.getMainLooper());
+	}
+
+	private static synchronized ExecutorService executor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(() -> {
+					Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+					runnable.run();
+				}, "AudioWidget-AlbumCoverLoader");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Load cover from content or file uri.
+	 * @param uri cover uri
+	 * @param size min size of decoded cover in pixels
+	 * @param callback callback invoked on main thread
+	 */
+	void load(@NonNull Uri uri, int size, @NonNull Callback callback) {
+		submit(size, callback, options -> {
+			InputStream stream = contentResolver.openInputStream(uri);
+			if (stream == null) {
+				return null;
+			}
+			try {
+				return BitmapFactory.decodeStream(stream, null, options);
+			} finally {
+				stream.close();
+			}
+		});
+	}
+
+	/**
+	 * Load cover from file descriptor. Descriptor must stay open until callback is invoked or request is canceled.
+	 * @param fileDescriptor cover file descriptor
+	 * @param size min size of decoded cover in pixels
+	 * @param callback callback invoked on main thread
+	 */
+	void load(@NonNull FileDescriptor fileDescriptor, int size, @NonNull Callback callback) {
+		// decodeFileDescriptor restores descriptor's offset, so it can be read twice
+		submit(size, callback, options -> BitmapFactory.decodeFileDescriptor(fileDescriptor, null, options));
+	}
+
+	/**
+	 * Cancel pending request.
+	 */
+	void cancel() {
+		generation++;
+		if (pendingTask != null) {
+			pendingTask.cancel(false);
+			pendingTask = null;
+		}
+	}
+
+	private void submit(int size, @NonNull Callback callback, @NonNull Source source) {
+		cancel();
+		int requestGeneration = generation;
+		pendingTask = executor().submit(() -> {
+			if (requestGeneration != generation) {
+				return;
+			}
+			Bitmap bitmap;
+			try {
+				bitmap = decode(source, size);
+			} catch (IOException | RuntimeException e) {
+				bitmap = null;
+			}
+			Bitmap result = bitmap;
+			mainHandler.post(() -> {
+				if (requestGeneration != generation) {
+					return;
+				}
+				pendingTask = null;
+				callback.onAlbumCoverLoaded(result);
+			});
+		});
+	}
+
+	@Nullable
+	private static Bitmap decode(@NonNull Source source, int size) throws IOException {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		source.decode(options);
+		if (options.outWidth <= 0 || options.outHeight <= 0) {
+			return null;
+		}
+		int minSide = Math.min(options.outWidth, options.outHeight);
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize(minSide, size);
+		int sampledSide = minSide / options.inSampleSize;
+		if (sampledSide > size && size > 0) {
+			// scale the rest of the way while decoding, no intermediate bitmap
+			options.inScaled = true;
+			options.inDensity = sampledSide;
+			options.inTargetDensity = size;
+		}
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			options.inMutable = true;
+			if (decodeBuffer != null && !decodeBuffer.isRecycled()) {
+				options.inBitmap = decodeBuffer;
+			}
+		}
+		Bitmap decoded;
+		try {
+			decoded = source.decode(options);
+		} catch (IllegalArgumentException e) {
+			if (options.inBitmap == null) {
+				throw e;
+			}
+			// decode buffer is too small, decode into a new one
+			options.inBitmap = null;
+			decoded = source.decode(options);
+		}
+		if (decoded == null) {
+			return null;
+		}
+		if (decoded.isMutable()) {
+			decodeBuffer = decoded;
+		}
+		return cropToCircle(decoded);
+	}
+
+	/**
+	 * Crop center square of bitmap to circle.
+	 */
+	@NonNull
+	private static Bitmap cropToCircle(@NonNull Bitmap source) {
+		int side = Math.min(source.getWidth(), source.getHeight());
+		Bitmap result = Bitmap.createBitmap(side, side, Bitmap.Config.ARGB_8888);
+		Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+		BitmapShader shader = new BitmapShader(source, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+		Matrix matrix = new Matrix();
+		matrix.setTranslate(-(source.getWidth() - side) / 2f, -(source.getHeight() - side) / 2f);
+		shader.setLocalMatrix(matrix);
+		paint.setShader(shader);
+		float r = side / 2f;
+		new Canvas(result).drawCircle(r, r, r, paint);
+		return result;
+	}
+
+	/**
+	 * Get largest power of two sample size that keeps smaller side not less than requested size.
+	 */
+	private static int sampleSize(int side, int size) {
+		int sampleSize = 1;
+		if (size <= 0) {
+			return sampleSize;
+		}
+		while (side / (sampleSize * 2) >= size) {
+			sampleSize *= 2;
+		}
+		return sampleSize;
+	}
+
+	private interface Source {
+		@Nullable
+		Bitmap decode(BitmapFactory.Options options) throws IOException;
+	}
+
+	/**
+	 * Album cover loading callback.
+	 */
+	interface Callback {
+
+		/**
+		 * Called on main thread when cover is loaded.
+		 * @param bitmap decoded cover or null if it can't be decoded
+		 */
+		void onAlbumCoverLoaded(@Nullable Bitmap bitmap);
+	}
+}
@@ -0,0 +1,219 @@
+package com.cleveroad.audiowidget;
+
+import android.animation.ValueAnimator;
+import android.content.ContentResolver;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+import android.view.Choreographer;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Drives all widget animations from a single frame callback. Every active {@link FrameAnimation}
+ * is ticked once per frame and every view is invalidated at most once per frame.
+ * Engine doesn't post any callbacks when there are no running animations.
+ * <p>
+ * Must be used from main thread only.
+ */
+class AnimationEngine {
+
+	private static final long FALLBACK_FRAME_DELAY = 16;
+
+	private static AnimationEngine instance;
+
+	private final Handler handler;
+	private final Runnable fallbackFrameRunnable;
+	private Choreographer.FrameCallback frameCallback;
+	private FrameAnimation[] animations = new FrameAnimation[8];
+	private FrameAnimation[] ticking = new FrameAnimation[8];
+	private int animationsCount;
+	private View[] dirtyViews = new View[4];
+	private int dirtyViewsCount;
+	private FrameCommitCallback[] commitCallbacks = new FrameCommitCallback[2];
+	private FrameCommitCallback[] committing = new FrameCommitCallback[2];
+	private int commitCallbacksCount;
+	private boolean frameScheduled;
+	private long framesCount;
+	@Nullable
+	private ContentResolver contentResolver;
+
+	static AnimationEngine getInstance() {
+		if (instance == null) {
+			instance = new AnimationEngine();
+		}
+		return instance;
+	}
+
+	/**
+	 * Drop engine bound to current main looper. Tests get new main looper for each test, while engine is static.
+	 */
+	@VisibleForTesting
+	static void resetInstance() {
+		instance = null;
+	}
+
+	private AnimationEngine() {
+		handler = new Handler(Looper.getMainLooper());
+		fallbackFrameRunnable = () -> doFrame(System.nanoTime());
+	}
+
+	/**
+	 * Get number of frames done by engine. Engine runs frames only while animations are running
+	 * or window updates are pending.
+	 */
+	long framesCount() {
+		return framesCount;
+	}
+
+	/**
+	 * Set content resolver used for reading animator duration scale on Android versions
+	 * that don't expose it via {@link ValueAnimator}.
+	 * @param contentResolver content resolver
+	 */
+	void contentResolver(@NonNull ContentResolver contentResolver) {
+		this.contentResolver = contentResolver;
+	}
+
+	/**
+	 * Get system animator duration scale, set in developer options or by battery saver.
+	 * @return duration scale, 0 if animations are disabled
+	 */
+	float durationScale() {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+			return ValueAnimator.getDurationScale();
+		}
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && contentResolver != null) {
+			return Settings.Global.getFloat(contentResolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+		}
+		return 1f;
+	}
+
+	void add(@NonNull FrameAnimation animation) {
+		for (int i = 0; i < animationsCount; i++) {
+			if (animations[i] == animation) {
+				scheduleFrame();
+				return;
+			}
+		}
+		if (animationsCount == animations.length) {
+			FrameAnimation[] newAnimations = new FrameAnimation[animations.length * 2];
+			System.arraycopy(animations, 0, newAnimations, 0, animationsCount);
+			animations = newAnimations;
+			ticking = new FrameAnimation[newAnimations.length];
+		}
+		animations[animationsCount++] = animation;
+		scheduleFrame();
+	}
+
+	void remove(@NonNull FrameAnimation animation) {
+		for (int i = 0; i < animationsCount; i++) {
+			if (animations[i] == animation) {
+				System.arraycopy(animations, i + 1, animations, i, animationsCount - i - 1);
+				animations[--animationsCount] = null;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Request view invalidation at the end of current frame.
+	 * @param view view to invalidate
+	 */
+	void invalidate(@NonNull View view) {
+		for (int i = 0; i < dirtyViewsCount; i++) {
+			if (dirtyViews[i] == view) {
+				return;
+			}
+		}
+		if (dirtyViewsCount == dirtyViews.length) {
+			View[] newViews = new View[dirtyViews.length * 2];
+			System.arraycopy(dirtyViews, 0, newViews, 0, dirtyViewsCount);
+			dirtyViews = newViews;
+		}
+		dirtyViews[dirtyViewsCount++] = view;
+	}
+
+	/**
+	 * Request commit callback at the end of next frame, after all animations are ticked.
+	 * @param callback commit callback
+	 */
+	void commitAtFrameEnd(@NonNull FrameCommitCallback callback) {
+		for (int i = 0; i < commitCallbacksCount; i++) {
+			if (commitCallbacks[i] == callback) {
+				return;
+			}
+		}
+		if (commitCallbacksCount == commitCallbacks.length) {
+			FrameCommitCallback[] newCallbacks = new FrameCommitCallback[commitCallbacks.length * 2];
+			System.arraycopy(commitCallbacks, 0, newCallbacks, 0, commitCallbacksCount);
+			commitCallbacks = newCallbacks;
+			committing = new FrameCommitCallback[newCallbacks.length];
+		}
+		commitCallbacks[commitCallbacksCount++] = callback;
+		scheduleFrame();
+	}
+
+	private void scheduleFrame() {
+		if (frameScheduled) {
+			return;
+		}
+		frameScheduled = true;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			if (frameCallback == null) {
+				frameCallback = this::doFrame;
+			}
+			Choreographer.getInstance().postFrameCallback(frameCallback);
+		} else {
+			handler.postDelayed(fallbackFrameRunnable, FALLBACK_FRAME_DELAY);
+		}
+	}
+
+	private void doFrame(long frameTimeNanos) {
+		frameScheduled = false;
+		framesCount++;
+		// animations can be started or canceled from listeners, so iterate over a copy
+		int count = animationsCount;
+		FrameAnimation[] ticking = this.ticking;
+		System.arraycopy(animations, 0, ticking, 0, count);
+		for (int i = 0; i < count; i++) {
+			FrameAnimation animation = ticking[i];
+			ticking[i] = null;
+			if (animation.isRunning()) {
+				animation.doFrame(frameTimeNanos);
+			}
+		}
+		for (int i = 0; i < dirtyViewsCount; i++) {
+			dirtyViews[i].invalidate();
+			dirtyViews[i] = null;
+		}
+		dirtyViewsCount = 0;
+		// callbacks can request commit of the next frame, so iterate over a copy
+		int commitsCount = commitCallbacksCount;
+		FrameCommitCallback[] committing = this.committing;
+		System.arraycopy(commitCallbacks, 0, committing, 0, commitsCount);
+		for (int i = 0; i < commitsCount; i++) {
+			commitCallbacks[i] = null;
+		}
+		commitCallbacksCount = 0;
+		for (int i = 0; i < commitsCount; i++) {
+			FrameCommitCallback callback = committing[i];
+			committing[i] = null;
+			callback.onFrameCommit();
+		}
+		if (animationsCount > 0 || commitCallbacksCount > 0) {
+			scheduleFrame();
+		}
+	}
+
+	/**
+	 * Callback invoked once at the end of frame.
+	 */
+	interface FrameCommitCallback {
+		void onFrameCommit();
+	}
+}
@@ -1,8 +1,5 @@
 package com.cleveroad.audiowidget;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.graphics.Bitmap;
@@ -12,8 +9,10 @@ import android.graphics.Point;
 import android.graphics.RectF;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.os.Vibrator;
 import android.view.Gravity;
 import android.view.KeyCharacterMap;
@@ -27,10 +26,10 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
-import java.lang.ref.WeakReference;
-import java.util.Map;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Random;
-import java.util.WeakHashMap;
 
 /**
  * Audio widget implementation.
@@ -57,6 +56,7 @@ public class AudioWidget {
      * Playback state.
      */
     private PlaybackState playbackState;
+    private QualityController qualityController;
 
     /**
      * Widget controller.
@@ -64,6 +64,8 @@ public class AudioWidget {
     private final Controller controller;
 
     private final WindowManager windowManager;
+    private final WindowLayoutScheduler layoutScheduler;
+    private final MotionEventRecorder touchRecorder = new MotionEventRecorder();
     private final Vibrator vibrator;
     private final Handler handler;
     private final Point screenSize;
@@ -73,7 +75,9 @@ public class AudioWidget {
     private final TouchManager.BoundsChecker ppbToExpBoundsChecker;
     private final TouchManager.BoundsChecker expToPpbBoundsChecker;
 
-    private final Map<Integer, WeakReference<Drawable>> albumCoverCache = new WeakHashMap<>();
+    private final AlbumCoverCache albumCoverCache;
+    private BitmapDrawable currentAlbumCover;
+    private final AlbumCoverLoader albumCoverLoader;
 
     /**
      * Bounds of remove widget view. Used for checking if play/pause button is inside this bounds
@@ -91,12 +95,24 @@ public class AudioWidget {
      */
     private final Point visibleRemWidPos;
     private int animatedRemBtnYPos = -1;
+    private final Point removeBtnPosition = new Point();
     private float widgetWidth, widgetHeight, radius;
     private final OnControlsClickListenerWrapper onControlsClickListener;
     private boolean shown;
     private boolean released;
     private boolean removeWidgetShown;
     private OnWidgetStateChangedListener onWidgetStateChangedListener;
+    private final RenderMode renderMode;
+    private final boolean keepExpandedWindow;
+    private int windowsAdded;
+    private int windowsRemoved;
+    private long expandRequestTime;
+    private long collapseRequestTime;
+    private long lastExpandLatency = -1;
+    private long lastExpandDuration = -1;
+    private long lastCollapseDuration = -1;
+    private int albumCoverCacheHitsBase;
+    private int albumCoverCacheMissesBase;
 
     @SuppressWarnings("deprecation")
     private AudioWidget(@NonNull Builder builder) {
@@ -107,8 +123,16 @@ public class AudioWidget {
         this.removeBounds = new RectF();
         this.hiddenRemWidPos = new Point();
         this.visibleRemWidPos = new Point();
+        this.renderMode = builder.renderMode;
+        this.keepExpandedWindow = builder.keepExpandedWindow;
+        this.albumCoverLoader = new AlbumCoverLoader(context.getContentResolver());
+        AnimationEngine.getInstance().contentResolver(context.getContentResolver());
+        this.albumCoverCache = new AlbumCoverCache(builder.albumCoverCacheSize > 0
+                ? builder.albumCoverCacheSize
+                : AlbumCoverCache.defaultMaxSize());
         this.controller = newController();
         this.windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        this.layoutScheduler = new WindowLayoutScheduler(windowManager);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR2) {
             windowManager.getDefaultDisplay().getSize(screenSize);
         } else {
@@ -126,27 +150,44 @@ public class AudioWidget {
         playPauseButtonManager = new TouchManager(playPauseButton, playPauseButton.newBoundsChecker(
                 builder.edgeOffsetXCollapsedSet ? builder.edgeOffsetXCollapsed : offsetCollapsed,
                 builder.edgeOffsetYCollapsedSet ? builder.edgeOffsetYCollapsed : offsetCollapsed
-        ))
+        ), layoutScheduler)
                 .screenWidth(screenSize.x)
-                .screenHeight(screenSize.y);
+                .screenHeight(screenSize.y)
+                .translationDrag(builder.dragMode == DragMode.TRANSLATION)
+                .touchPrediction(builder.touchPrediction)
+                .recorder(touchRecorder, MotionEventRecorder.SOURCE_COLLAPSED);
         expandedWidgetManager = new TouchManager(expandCollapseWidget, expandCollapseWidget.newBoundsChecker(
                 builder.edgeOffsetXExpandedSet ? builder.edgeOffsetXExpanded : offsetExpanded,
                 builder.edgeOffsetYExpandedSet ? builder.edgeOffsetYExpanded : offsetExpanded
-        ))
+        ), layoutScheduler)
                 .screenWidth(screenSize.x)
-                .screenHeight(screenSize.y);
+                .screenHeight(screenSize.y)
+                .translationDrag(builder.dragMode == DragMode.TRANSLATION)
+                .touchPrediction(builder.touchPrediction)
+                .recorder(touchRecorder, MotionEventRecorder.SOURCE_EXPANDED);
 
         playPauseButtonManager.callback(new PlayPauseButtonCallback());
         expandedWidgetManager.callback(new ExpandCollapseWidgetCallback());
         expandCollapseWidget.onWidgetStateChangedListener(new OnWidgetStateChangedListener() {
             @Override
             public void onWidgetStateChanged(@NonNull State state) {
+                if (state == State.EXPANDED && expandRequestTime > 0) {
+                    lastExpandDuration = SystemClock.uptimeMillis() - expandRequestTime;
+                    expandRequestTime = 0;
+                }
+                if (state == State.COLLAPSED && collapseRequestTime > 0) {
+                    lastCollapseDuration = SystemClock.uptimeMillis() - collapseRequestTime;
+                    collapseRequestTime = 0;
+                }
                 if (state == State.COLLAPSED) {
-                    playPauseButton.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
-                    try {
-                        windowManager.removeView(expandCollapseWidget);
-                    } catch (IllegalArgumentException e) {
-                        // view not attached to window
+                    if (renderMode == RenderMode.SOFTWARE) {
+                        playPauseButton.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+                    }
+                    if (keepExpandedWindow) {
+                        // hidden window doesn't receive touches and releases its surface
+                        expandCollapseWidget.setVisibility(View.GONE);
+                    } else {
+                        removeWindow(expandCollapseWidget);
                     }
                     playPauseButton.enableProgressChanges(true);
                 }
@@ -207,6 +248,7 @@ public class AudioWidget {
         widgetWidth = context.getResources().getDimensionPixelSize(R.dimen.aw_player_width);
         radius = widgetHeight / 2f;
         playbackState = new PlaybackState();
+        qualityController = new QualityController(builder.adaptiveQuality);
         return new Configuration.Builder()
                 .context(context)
                 .playbackState(playbackState)
@@ -236,6 +278,12 @@ public class AudioWidget {
                 .bubblesMaxSize(bubblesMaxSize)
                 .crossColor(crossColor)
                 .crossOverlappedColor(crossOverlappedColor)
+                .renderMode(renderMode)
+                .particlesBudget(builder.particlesBudget)
+                .colorInterpolation(builder.colorInterpolation)
+                .qualityController(qualityController)
+                .drawMetrics(builder.drawMetrics || builder.adaptiveQuality)
+                .refreshRate(windowManager.getDefaultDisplay().getRefreshRate())
                 .build();
     }
 
@@ -321,6 +369,11 @@ public class AudioWidget {
                 playbackState.position(position);
             }
 
+            @Override
+            public void playbackSpeed(float speed) {
+                playbackState.speed(speed);
+            }
+
             @Override
             public void onControlsClickListener(@Nullable OnControlsClickListener onControlsClickListener) {
                 AudioWidget.this.onControlsClickListener.onControlsClickListener(onControlsClickListener);
@@ -331,37 +384,125 @@ public class AudioWidget {
                 AudioWidget.this.onWidgetStateChangedListener = onWidgetStateChangedListener;
             }
 
+            @Override
+            public void onQualityChangedListener(@Nullable OnQualityChangedListener onQualityChangedListener) {
+                qualityController.listener(onQualityChangedListener);
+            }
+
+            @NonNull
+            @Override
+            public Quality quality() {
+                return qualityController.quality();
+            }
+
             @Override
             public void albumCover(@Nullable Drawable albumCover) {
-                expandCollapseWidget.albumCover(albumCover);
-                playPauseButton.albumCover(albumCover);
+                albumCoverLoader.cancel();
+                currentAlbumCover = null;
+                updateAlbumCover(albumCover);
             }
 
             @Override
             public void albumCoverBitmap(@Nullable Bitmap bitmap) {
-                if (bitmap == null) {
-                    expandCollapseWidget.albumCover(null);
-                    playPauseButton.albumCover(null);
-                } else {
-                    WeakReference<Drawable> wrDrawable = albumCoverCache.get(bitmap.hashCode());
-                    if(wrDrawable != null) {
-                        Drawable drawable = wrDrawable.get();
-                        if(drawable != null) {
-                            expandCollapseWidget.albumCover(drawable);
-                            playPauseButton.albumCover(drawable);
-                            return;
-                        }
-                    }
+                albumCoverLoader.cancel();
+                setAlbumCoverBitmap(bitmap);
+            }
+
+            @Override
+            public void putAlbumCover(@NonNull String key, @Nullable Bitmap bitmap) {
+                albumCoverLoader.cancel();
+                setAlbumCover(key, bitmap);
+            }
 
-                    Drawable albumCover = new BitmapDrawable(context.getResources(), bitmap);
-                    expandCollapseWidget.albumCover(albumCover);
-                    playPauseButton.albumCover(albumCover);
-                    albumCoverCache.put(bitmap.hashCode(), new WeakReference<>(albumCover));
+            @Override
+            public boolean hasCachedAlbumCover(@NonNull String key) {
+                return albumCoverCache.contains(key);
+            }
+
+            @Override
+            public boolean showCachedAlbumCover(@NonNull String key) {
+                if (!setCachedAlbumCover(key)) {
+                    return false;
                 }
+                // cached cover replaced the one being loaded
+                albumCoverLoader.cancel();
+                return true;
+            }
+
+            @Override
+            public void loadAlbumCover(@Nullable Uri uri) {
+                albumCoverLoader.cancel();
+                if (uri == null) {
+                    currentAlbumCover = null;
+                    updateAlbumCover(null);
+                    return;
+                }
+                String key = uri.toString();
+                if (setCachedAlbumCover(key)) {
+                    return;
+                }
+                albumCoverLoader.load(uri, (int) (radius * 2), bitmap -> setAlbumCover(key, bitmap));
+            }
+
+            @Override
+            public void loadAlbumCover(@NonNull FileDescriptor fileDescriptor) {
+                albumCoverLoader.load(fileDescriptor, (int) (radius * 2), AudioWidget.this::setAlbumCoverBitmap);
+            }
+
+            @Override
+            public int albumCoverCacheHitCount() {
+                return albumCoverCache.hitCount();
+            }
+
+            @Override
+            public int albumCoverCacheMissCount() {
+                return albumCoverCache.missCount();
             }
         };
     }
 
+    private void setAlbumCoverBitmap(@Nullable Bitmap bitmap) {
+        if (bitmap == null) {
+            currentAlbumCover = null;
+            updateAlbumCover(null);
+            return;
+        }
+        if (currentAlbumCover != null && currentAlbumCover.getBitmap() == bitmap) {
+            return;
+        }
+        currentAlbumCover = new BitmapDrawable(context.getResources(), bitmap);
+        updateAlbumCover(currentAlbumCover);
+    }
+
+    private void setAlbumCover(@NonNull String key, @Nullable Bitmap bitmap) {
+        if (bitmap == null) {
+            currentAlbumCover = null;
+            updateAlbumCover(null);
+            return;
+        }
+        if (currentAlbumCover == null || currentAlbumCover.getBitmap() != bitmap) {
+            currentAlbumCover = new BitmapDrawable(context.getResources(), bitmap);
+        }
+        // plain put: lookup is done by setCachedAlbumCover(), so cache statistics count each miss once
+        albumCoverCache.put(key, currentAlbumCover);
+        updateAlbumCover(currentAlbumCover);
+    }
+
+    private boolean setCachedAlbumCover(@NonNull String key) {
+        BitmapDrawable drawable = albumCoverCache.get(key);
+        if (drawable == null) {
+            return false;
+        }
+        currentAlbumCover = drawable;
+        updateAlbumCover(drawable);
+        return true;
+    }
+
+    private void updateAlbumCover(@Nullable Drawable albumCover) {
+        expandCollapseWidget.albumCover(albumCover);
+        playPauseButton.albumCover(albumCover);
+    }
+
     /**
      * Show widget at specified position.
      *
@@ -382,6 +523,14 @@ public class AudioWidget {
             // widget not removed yet, animation in progress
         }
         show(playPauseButton, (int) (cx - widgetHeight), (int) (cy - widgetHeight));
+        if (keepExpandedWindow) {
+            expandCollapseWidget.setVisibility(View.GONE);
+            try {
+                show(expandCollapseWidget, 0, 0);
+            } catch (IllegalArgumentException e) {
+                // widget not removed yet
+            }
+        }
         playPauseButtonManager.animateToBounds();
     }
 
@@ -398,23 +547,11 @@ public class AudioWidget {
         }
         shown = false;
         released = true;
-        try {
-            windowManager.removeView(playPauseButton);
-        } catch (IllegalArgumentException e) {
-            // view not attached to window
-        }
+        removeWindow(playPauseButton);
         if (byPublic) {
-            try {
-                windowManager.removeView(removeWidgetView);
-            } catch (IllegalArgumentException e) {
-                // view not attached to window
-            }
-        }
-        try {
-            windowManager.removeView(expandCollapseWidget);
-        } catch (IllegalArgumentException e) {
-            // widget not added to window yet
+            removeWindow(removeWidgetView);
         }
+        removeWindow(expandCollapseWidget);
         if (onWidgetStateChangedListener != null) {
             onWidgetStateChangedListener.onWidgetStateChanged(State.REMOVED);
         }
@@ -430,12 +567,40 @@ public class AudioWidget {
     }
 
     public void expand() {
+        if (expandRequestTime == 0) {
+            expandRequestTime = SystemClock.uptimeMillis();
+            // expanded widget isn't drawn while it's detached or hidden, so its next draw is the first frame of expand
+            expandCollapseWidget.runOnNextDraw(this::onExpandedWidgetDrawn);
+        }
         removeWidgetShown = false;
         playPauseButton.enableProgressChanges(false);
         playPauseButton.postDelayed(this::checkSpaceAndShowExpanded, PlayPauseButton.PROGRESS_CHANGES_DURATION);
     }
 
+    private void onExpandedWidgetDrawn() {
+        if (expandRequestTime > 0) {
+            lastExpandLatency = SystemClock.uptimeMillis() - expandRequestTime;
+        }
+    }
+
+    /**
+     * Count widget windows that have a surface, i.e. attached to window manager and not hidden.
+     */
+    private int surfacesCount() {
+        int count = 0;
+        View[] views = {playPauseButton, expandCollapseWidget, removeWidgetView};
+        for (View view : views) {
+            if (view.getParent() != null && view.getVisibility() != View.GONE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     public void collapse() {
+        if (collapseRequestTime == 0) {
+            collapseRequestTime = SystemClock.uptimeMillis();
+        }
         expandCollapseWidget.setCollapseListener(playPauseButton::setAlpha);
 
         WindowManager.LayoutParams params = (WindowManager.LayoutParams) expandCollapseWidget.getLayoutParams();
@@ -453,19 +618,16 @@ public class AudioWidget {
     }
 
     private void updatePlayPauseButtonPosition() {
-        WindowManager.LayoutParams widgetParams = (WindowManager.LayoutParams) expandCollapseWidget.getLayoutParams();
+        int widgetX = expandedWidgetManager.positionX();
+        int widgetY = expandedWidgetManager.positionY();
         WindowManager.LayoutParams params = (WindowManager.LayoutParams) playPauseButton.getLayoutParams();
         if (expandCollapseWidget.expandDirection() == ExpandCollapseWidget.DIRECTION_RIGHT) {
-            params.x = (int) (widgetParams.x - radius);
+            params.x = (int) (widgetX - radius);
         } else {
-            params.x = (int) (widgetParams.x + widgetWidth - widgetHeight - radius);
-        }
-        params.y = widgetParams.y;
-        try {
-            windowManager.updateViewLayout(playPauseButton, params);
-        } catch (IllegalArgumentException e) {
-            // view not attached to window
+            params.x = (int) (widgetX + widgetWidth - widgetHeight - radius);
         }
+        params.y = widgetY;
+        layoutScheduler.updateViewLayout(playPauseButton);
         if (onWidgetStateChangedListener != null) {
             onWidgetStateChangedListener.onWidgetPositionChanged((int) (params.x + widgetHeight), (int) (params.y + widgetHeight));
         }
@@ -492,7 +654,15 @@ public class AudioWidget {
             } else {
                 x1 += widgetHeight / 2f;
             }
-            show(expandCollapseWidget, x1, y1);
+            if (keepExpandedWindow) {
+                WindowManager.LayoutParams widgetParams = (WindowManager.LayoutParams) expandCollapseWidget.getLayoutParams();
+                widgetParams.x = x1;
+                widgetParams.y = y1;
+                layoutScheduler.updateViewLayout(expandCollapseWidget);
+                expandCollapseWidget.setVisibility(View.VISIBLE);
+            } else {
+                show(expandCollapseWidget, x1, y1);
+            }
             playPauseButton.setLayerType(View.LAYER_TYPE_NONE, null);
 
             expandCollapseWidget.setExpandListener(percent -> playPauseButton.setAlpha(1f - percent));
@@ -510,6 +680,97 @@ public class AudioWidget {
         return controller;
     }
 
+    /**
+     * Get snapshot of widget performance metrics collected since widget was created
+     * or since last {@link #resetMetrics()} call. Must be called from main thread.
+     *
+     * @return metrics snapshot
+     */
+    @NonNull
+    public Metrics metrics() {
+        return new Metrics(
+                new ViewMetrics(playPauseButton.drawStats()),
+                new ViewMetrics(expandCollapseWidget.drawStats()),
+                new ViewMetrics(removeWidgetView.drawStats()),
+                layoutScheduler.requestedUpdates(),
+                layoutScheduler.committedUpdates(),
+                windowsAdded,
+                windowsRemoved,
+                surfacesCount(),
+                lastExpandLatency,
+                lastExpandDuration,
+                lastCollapseDuration,
+                albumCoverCache.hitCount() - albumCoverCacheHitsBase,
+                albumCoverCache.missCount() - albumCoverCacheMissesBase,
+                playbackState.progressEventsReceived(),
+                playbackState.progressEventsDispatched()
+        );
+    }
+
+    /**
+     * Reset widget performance metrics, for example at the start of new playback session.
+     * Must be called from main thread.
+     */
+    public void resetMetrics() {
+        playPauseButton.drawStats().reset();
+        expandCollapseWidget.drawStats().reset();
+        removeWidgetView.drawStats().reset();
+        layoutScheduler.resetStats();
+        playbackState.resetStats();
+        windowsAdded = 0;
+        windowsRemoved = 0;
+        lastExpandLatency = -1;
+        lastExpandDuration = -1;
+        lastCollapseDuration = -1;
+        albumCoverCacheHitsBase = albumCoverCache.hitCount();
+        albumCoverCacheMissesBase = albumCoverCache.missCount();
+    }
+
+    /**
+     * Start recording of touch events received by widget, for example to reproduce drag or fling
+     * session later. Previously recorded events are dropped. Must be called from main thread.
+     *
+     * @see #stopTouchRecording(OutputStream)
+     */
+    public void startTouchRecording() {
+        touchRecorder.start();
+    }
+
+    /**
+     * Stop recording of touch events and write recorded trace. Must be called from main thread.
+     *
+     * @param out stream to write trace to, it's not closed by widget
+     * @throws IOException if trace can't be written
+     */
+    public void stopTouchRecording(@NonNull OutputStream out) throws IOException {
+        touchRecorder.stop(out);
+    }
+
+    @NonNull
+    PlayPauseButton playPauseButton() {
+        return playPauseButton;
+    }
+
+    @NonNull
+    ExpandCollapseWidget expandCollapseWidget() {
+        return expandCollapseWidget;
+    }
+
+    @NonNull
+    RemoveWidgetView removeWidgetView() {
+        return removeWidgetView;
+    }
+
+    @NonNull
+    TouchManager playPauseButtonManager() {
+        return playPauseButtonManager;
+    }
+
+    @NonNull
+    TouchManager expandedWidgetManager() {
+        return expandedWidgetManager;
+    }
+
     private void show(View view, int left, int top) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
             preOreoShow(view, left, top);
@@ -531,7 +792,11 @@ public class AudioWidget {
         params.gravity = Gravity.START | Gravity.TOP;
         params.x = left;
         params.y = top;
+        if (renderMode == RenderMode.HARDWARE) {
+            params.flags |= WindowManager.LayoutParams.FLAG_HARDWARE_ACCELERATED;
+        }
         windowManager.addView(view, params);
+        windowsAdded++;
     }
 
     @TargetApi(Build.VERSION_CODES.O)
@@ -550,7 +815,24 @@ public class AudioWidget {
         params.gravity = Gravity.START | Gravity.TOP;
         params.x = left;
         params.y = top;
+        if (renderMode == RenderMode.HARDWARE) {
+            params.flags |= WindowManager.LayoutParams.FLAG_HARDWARE_ACCELERATED;
+        }
         windowManager.addView(view, params);
+        windowsAdded++;
+    }
+
+    /**
+     * Remove view's window.
+     * @param view view added to window manager
+     */
+    private void removeWindow(View view) {
+        try {
+            windowManager.removeView(view);
+            windowsRemoved++;
+        } catch (IllegalArgumentException e) {
+            // view not attached to window
+        }
     }
 
     abstract static class BoundsCheckerWithOffset implements TouchManager.BoundsChecker {
@@ -594,17 +876,40 @@ public class AudioWidget {
     private class PlayPauseButtonCallback extends TouchManager.SimpleCallback {
 
         private static final long REMOVE_BTN_ANIM_DURATION = 200;
-        private final ValueAnimator.AnimatorUpdateListener animatorUpdateListener;
+        private final FrameAnimation showRemoveBtnAnimator;
+        private final FrameAnimation hideRemoveBtnAnimator;
+        private final Runnable showRemoveBtnRunnable;
         private boolean readyToRemove;
 
         PlayPauseButtonCallback() {
-            animatorUpdateListener = animation -> {
+            FrameAnimation.UpdateListener animatorUpdateListener = animation -> {
                 if (!removeWidgetShown) {
                     return;
                 }
-                animatedRemBtnYPos = (int)((float) animation.getAnimatedValue());
+                animatedRemBtnYPos = (int) animation.getAnimatedValue();
                 updateRemoveBtnPosition();
             };
+            showRemoveBtnAnimator = new FrameAnimation(null).setDuration(REMOVE_BTN_ANIM_DURATION);
+            showRemoveBtnAnimator.setUpdateListener(animatorUpdateListener);
+            hideRemoveBtnAnimator = new FrameAnimation(null).setDuration(REMOVE_BTN_ANIM_DURATION);
+            hideRemoveBtnAnimator.setUpdateListener(animatorUpdateListener);
+            hideRemoveBtnAnimator.setListener(new FrameAnimation.Listener() {
+
+                @Override
+                void onAnimationEnd(@NonNull FrameAnimation animation) {
+                    removeWidgetShown = false;
+                    if (!shown) {
+                        removeWindow(removeWidgetView);
+                    }
+                }
+            });
+            showRemoveBtnRunnable = () -> {
+                if (!released) {
+                    removeWidgetShown = true;
+                    showRemoveBtnAnimator.setFloatValues(hiddenRemWidPos.y, visibleRemWidPos.y);
+                    showRemoveBtnAnimator.start();
+                }
+            };
         }
 
         @Override
@@ -625,15 +930,8 @@ public class AudioWidget {
         public void onTouched(float x, float y) {
             super.onTouched(x, y);
             released = false;
-            handler.postDelayed(() -> {
-                if (!released) {
-                    removeWidgetShown = true;
-                    ValueAnimator animator = ValueAnimator.ofFloat(hiddenRemWidPos.y, visibleRemWidPos.y);
-                    animator.setDuration(REMOVE_BTN_ANIM_DURATION);
-                    animator.addUpdateListener(animatorUpdateListener);
-                    animator.start();
-                }
-            }, Configuration.LONG_CLICK_THRESHOLD);
+            handler.removeCallbacks(showRemoveBtnRunnable);
+            handler.postDelayed(showRemoveBtnRunnable, Configuration.LONG_CLICK_THRESHOLD);
             playPauseButton.onTouchDown();
         }
 
@@ -653,33 +951,19 @@ public class AudioWidget {
 
         private void updateRemoveBtnPosition() {
             if(removeWidgetShown) {
-                WindowManager.LayoutParams playPauseBtnParams = (WindowManager.LayoutParams) playPauseButton.getLayoutParams();
+                int playPauseBtnX = playPauseButtonManager.positionX();
+                int playPauseBtnY = playPauseButtonManager.positionY();
                 WindowManager.LayoutParams removeBtnParams = (WindowManager.LayoutParams) removeWidgetView.getLayoutParams();
 
-                double tgAlpha = (screenSize.x / 2. - playPauseBtnParams.x) / (visibleRemWidPos.y - playPauseBtnParams.y);
-                double rotationDegrees = 360 - Math.toDegrees(Math.atan(tgAlpha));
-
-                float distance = (float) Math.sqrt(Math.pow(animatedRemBtnYPos - playPauseBtnParams.y, 2) +
-                        Math.pow(visibleRemWidPos.x - hiddenRemWidPos.x, 2));
-                float maxDistance = (float) Math.sqrt(Math.pow(screenSize.x, 2) + Math.pow(screenSize.y, 2));
-                distance /= maxDistance;
-
                 if (animatedRemBtnYPos == -1) {
                     animatedRemBtnYPos = visibleRemWidPos.y;
                 }
+                RemoveTrajectory.position(screenSize.x, screenSize.y, visibleRemWidPos, hiddenRemWidPos,
+                        animatedRemBtnYPos, radius, playPauseBtnX, playPauseBtnY, removeBtnPosition);
+                removeBtnParams.x = removeBtnPosition.x;
+                removeBtnParams.y = removeBtnPosition.y;
 
-                removeBtnParams.x = (int) DrawableUtils.rotateX(
-                        visibleRemWidPos.x, animatedRemBtnYPos - radius * distance,
-                        hiddenRemWidPos.x, animatedRemBtnYPos, (float) rotationDegrees);
-                removeBtnParams.y = (int) DrawableUtils.rotateY(
-                        visibleRemWidPos.x, animatedRemBtnYPos - radius * distance,
-                        hiddenRemWidPos.x, animatedRemBtnYPos, (float) rotationDegrees);
-
-                try {
-                    windowManager.updateViewLayout(removeWidgetView, removeBtnParams);
-                } catch (IllegalArgumentException e) {
-                    // view not attached to window
-                }
+                layoutScheduler.updateViewLayout(removeWidgetView);
             }
         }
 
@@ -689,24 +973,9 @@ public class AudioWidget {
             playPauseButton.onTouchUp();
             released = true;
             if (removeWidgetShown) {
-                ValueAnimator animator = ValueAnimator.ofFloat(visibleRemWidPos.y, hiddenRemWidPos.y);
-                animator.setDuration(REMOVE_BTN_ANIM_DURATION);
-                animator.addUpdateListener(animatorUpdateListener);
-                animator.addListener(new AnimatorListenerAdapter() {
-
-                    @Override
-                    public void onAnimationEnd(Animator animation) {
-                        removeWidgetShown = false;
-                        if (!shown) {
-                            try {
-                                windowManager.removeView(removeWidgetView);
-                            } catch (IllegalArgumentException e) {
-                                // view not attached to window
-                            }
-                        }
-                    }
-                });
-                animator.start();
+                showRemoveBtnAnimator.cancel();
+                hideRemoveBtnAnimator.setFloatValues(visibleRemWidPos.y, hiddenRemWidPos.y);
+                hideRemoveBtnAnimator.start();
             }
             if (isReadyToRemove()) {
                 hideInternal(false);
@@ -730,9 +999,8 @@ public class AudioWidget {
         private boolean isReadyToRemove() {
             WindowManager.LayoutParams removeParams = (WindowManager.LayoutParams) removeWidgetView.getLayoutParams();
             removeBounds.set(removeParams.x, removeParams.y, removeParams.x + widgetHeight, removeParams.y + widgetHeight);
-            WindowManager.LayoutParams params = (WindowManager.LayoutParams) playPauseButton.getLayoutParams();
-            float cx = params.x + widgetHeight;
-            float cy = params.y + widgetHeight;
+            float cx = playPauseButtonManager.positionX() + widgetHeight;
+            float cy = playPauseButtonManager.positionY() + widgetHeight;
             return removeBounds.contains(cx, cy);
         }
     }
@@ -932,6 +1200,15 @@ public class AudioWidget {
         private boolean edgeOffsetYCollapsedSet;
         private boolean edgeOffsetXExpandedSet;
         private boolean edgeOffsetYExpandedSet;
+        private RenderMode renderMode = RenderMode.SOFTWARE;
+        private DragMode dragMode = DragMode.WINDOW;
+        private boolean keepExpandedWindow;
+        private int albumCoverCacheSize;
+        private int particlesBudget = ParticleSystem.DEFAULT_BUDGET;
+        private ColorInterpolation colorInterpolation = ColorInterpolation.HSV;
+        private boolean adaptiveQuality;
+        private boolean drawMetrics;
+        private boolean touchPrediction;
 
         public Builder(@NonNull Context context) {
             this.context = context;
@@ -1176,6 +1453,99 @@ public class AudioWidget {
             return this;
         }
 
+        /**
+         * Set render mode of collapsed widget. Default value: {@link RenderMode#SOFTWARE}.
+         * @param renderMode render mode
+         */
+        public Builder renderMode(@NonNull RenderMode renderMode) {
+            this.renderMode = renderMode;
+            return this;
+        }
+
+        /**
+         * Set drag mode of widget. Default value: {@link DragMode#WINDOW}.
+         * @param dragMode drag mode
+         */
+        public Builder dragMode(@NonNull DragMode dragMode) {
+            this.dragMode = dragMode;
+            return this;
+        }
+
+        /**
+         * Keep expanded widget's window attached while widget is shown. Window is added once
+         * in {@link AudioWidget#show(int, int)} and then only shown or hidden instead of being added to
+         * and removed from window manager on every expand and collapse. Default value: false.
+         * <p>
+         * Collapsed, expanded and remove views still live in separate windows: a single window hosting them
+         * would have to cover the whole screen and would take touches from apps below it.
+         * @param keepExpandedWindow true to keep expanded widget's window attached
+         */
+        public Builder keepExpandedWindow(boolean keepExpandedWindow) {
+            this.keepExpandedWindow = keepExpandedWindow;
+            return this;
+        }
+
+        /**
+         * Set max size of album cover cache in bytes. Default value: 1/32 of available heap.
+         * @param albumCoverCacheSize max size of cached covers in bytes
+         */
+        public Builder albumCoverCacheSize(int albumCoverCacheSize) {
+            this.albumCoverCacheSize = albumCoverCacheSize;
+            return this;
+        }
+
+        /**
+         * Set max number of bubbles drawn per frame by each widget view. Default value: 64.
+         * @param particlesBudget max number of bubbles, 0 to disable bubbles
+         */
+        public Builder particlesBudget(int particlesBudget) {
+            this.particlesBudget = Math.max(0, particlesBudget);
+            return this;
+        }
+
+        /**
+         * Set color space used for color transitions of widget. Default value: {@link ColorInterpolation#HSV}.
+         * @param colorInterpolation color interpolation
+         */
+        public Builder colorInterpolation(@NonNull ColorInterpolation colorInterpolation) {
+            this.colorInterpolation = colorInterpolation;
+            return this;
+        }
+
+        /**
+         * Enable adaptive quality. Widget watches draw time of its views and, when they don't fit
+         * into frame budget, steps quality down: draws fewer bubbles, then disables shadows, then shortens
+         * expand animation. Quality is stepped back up when there is enough headroom. Default value: false.
+         * @param adaptiveQuality true to enable adaptive quality
+         * @see Controller#onQualityChangedListener(OnQualityChangedListener)
+         */
+        public Builder adaptiveQuality(boolean adaptiveQuality) {
+            this.adaptiveQuality = adaptiveQuality;
+            return this;
+        }
+
+        /**
+         * Enable draw time metrics of widget views. When disabled, views don't read clock while drawing
+         * and {@link AudioWidget#metrics()} reports no frames for them. Always enabled with adaptive quality,
+         * as it's based on draw time. Default value: false.
+         * @param drawMetrics true to enable draw time metrics
+         * @see Metrics#collapsedWidget()
+         */
+        public Builder drawMetrics(boolean drawMetrics) {
+            this.drawMetrics = drawMetrics;
+            return this;
+        }
+
+        /**
+         * Enable touch prediction. Dragged widget is moved slightly ahead of finger along its velocity,
+         * so it lags less behind finger. Default value: false.
+         * @param touchPrediction true to enable touch prediction
+         */
+        public Builder touchPrediction(boolean touchPrediction) {
+            this.touchPrediction = touchPrediction;
+            return this;
+        }
+
         /**
          * Create new audio widget.
          * @return new audio widget
@@ -1259,19 +1629,27 @@ public class AudioWidget {
         void duration(int duration);
 
         /**
-         * Get track position.
+         * Get track position. While playing, position is extrapolated from last reported one.
          *
          * @return track position
          */
         int position();
 
         /**
-         * Set track position.
+         * Set track position. Widget extrapolates position while playing, so there is no need
+         * to call this method periodically. Call it when track changed or position was changed by seeking.
          *
          * @param position track position
          */
         void position(int position);
 
+        /**
+         * Set playback speed used for extrapolating track position. Default value: 1.
+         *
+         * @param speed playback speed
+         */
+        void playbackSpeed(float speed);
+
         /**
          * Set controls click listener.
          *
@@ -1286,6 +1664,22 @@ public class AudioWidget {
          */
         void onWidgetStateChangedListener(@Nullable OnWidgetStateChangedListener onWidgetStateChangedListener);
 
+        /**
+         * Set quality change listener. Quality changes only if adaptive quality is enabled.
+         *
+         * @param onQualityChangedListener quality change listener
+         * @see Builder#adaptiveQuality(boolean)
+         */
+        void onQualityChangedListener(@Nullable OnQualityChangedListener onQualityChangedListener);
+
+        /**
+         * Get current visual quality of widget.
+         *
+         * @return current quality
+         */
+        @NonNull
+        Quality quality();
+
         /**
          * Set album cover.
          *
@@ -1299,6 +1693,66 @@ public class AudioWidget {
          * @param albumCover album cover or null to set default one
          */
         void albumCoverBitmap(@Nullable Bitmap albumCover);
+
+        /**
+         * Set album cover and put it to album cover cache. Use the same key for the same track,
+         * so cached cover is reused when track is played again. Cover previously cached
+         * with the same key is replaced.
+         *
+         * @param key track identity, for example track uri
+         * @param albumCover album cover or null to set default one
+         * @see #showCachedAlbumCover(String)
+         */
+        void putAlbumCover(@NonNull String key, @Nullable Bitmap albumCover);
+
+        /**
+         * Check if album cover cache has a cover. Neither widget nor cache statistics are changed.
+         *
+         * @param key track identity used in {@link #putAlbumCover(String, Bitmap)}
+         * @return true if cover is cached
+         */
+        boolean hasCachedAlbumCover(@NonNull String key);
+
+        /**
+         * Set album cover from album cover cache. Pending album cover loading is canceled
+         * only if cover is found.
+         *
+         * @param key track identity used in {@link #putAlbumCover(String, Bitmap)}
+         * @return true if cover found in cache, false otherwise (current cover is not changed)
+         */
+        boolean showCachedAlbumCover(@NonNull String key);
+
+        /**
+         * Load album cover from uri. Cover is decoded on background thread and downsampled
+         * to widget size. Loaded cover is put to album cover cache with uri as a key,
+         * so cached cover is set immediately next time. Previous pending request is canceled.
+         *
+         * @param uri content or file uri of album cover or null to set default one
+         */
+        void loadAlbumCover(@Nullable Uri uri);
+
+        /**
+         * Load album cover from file descriptor. Cover is decoded on background thread and downsampled
+         * to widget size. Descriptor must stay open until cover is set or another cover is requested.
+         * Previous pending request is canceled.
+         *
+         * @param fileDescriptor album cover file descriptor
+         */
+        void loadAlbumCover(@NonNull FileDescriptor fileDescriptor);
+
+        /**
+         * Get number of album cover cache hits.
+         *
+         * @return number of times cover was found in cache
+         */
+        int albumCoverCacheHitCount();
+
+        /**
+         * Get number of album cover cache misses.
+         *
+         * @return number of times cover wasn't found in cache
+         */
+        int albumCoverCacheMissCount();
     }
 
     /**
@@ -1380,6 +1834,245 @@ public class AudioWidget {
         void onWidgetPositionChanged(int cx, int cy);
     }
 
+    /**
+     * Listener for widget quality changes.
+     */
+    public interface OnQualityChangedListener {
+
+        /**
+         * Called when widget quality changed.
+         *
+         * @param quality new quality
+         */
+        void onQualityChanged(@NonNull Quality quality);
+    }
+
+    /**
+     * Snapshot of widget performance metrics.
+     */
+    public static final class Metrics {
+
+        private final ViewMetrics collapsedWidget;
+        private final ViewMetrics expandedWidget;
+        private final ViewMetrics removeWidget;
+        private final long layoutUpdatesRequested;
+        private final long layoutUpdatesCommitted;
+        private final int windowsAdded;
+        private final int windowsRemoved;
+        private final int surfacesCount;
+        private final long lastExpandLatency;
+        private final long lastExpandDuration;
+        private final long lastCollapseDuration;
+        private final int albumCoverCacheHitCount;
+        private final int albumCoverCacheMissCount;
+        private final long progressEventsReceived;
+        private final long progressEventsDispatched;
+
+        Metrics(@NonNull ViewMetrics collapsedWidget, @NonNull ViewMetrics expandedWidget, @NonNull ViewMetrics removeWidget,
+                long layoutUpdatesRequested, long layoutUpdatesCommitted, int windowsAdded, int windowsRemoved,
+                int surfacesCount, long lastExpandLatency, long lastExpandDuration, long lastCollapseDuration, int albumCoverCacheHitCount, int albumCoverCacheMissCount,
+                long progressEventsReceived, long progressEventsDispatched) {
+            this.collapsedWidget = collapsedWidget;
+            this.expandedWidget = expandedWidget;
+            this.removeWidget = removeWidget;
+            this.layoutUpdatesRequested = layoutUpdatesRequested;
+            this.layoutUpdatesCommitted = layoutUpdatesCommitted;
+            this.windowsAdded = windowsAdded;
+            this.windowsRemoved = windowsRemoved;
+            this.surfacesCount = surfacesCount;
+            this.lastExpandLatency = lastExpandLatency;
+            this.lastExpandDuration = lastExpandDuration;
+            this.lastCollapseDuration = lastCollapseDuration;
+            this.albumCoverCacheHitCount = albumCoverCacheHitCount;
+            this.albumCoverCacheMissCount = albumCoverCacheMissCount;
+            this.progressEventsReceived = progressEventsReceived;
+            this.progressEventsDispatched = progressEventsDispatched;
+        }
+
+        /**
+         * Get draw metrics of collapsed widget (play/pause button). Draw metrics are collected only when enabled
+         * by {@link Builder#drawMetrics(boolean)} or {@link Builder#adaptiveQuality(boolean)}.
+         */
+        @NonNull
+        public ViewMetrics collapsedWidget() {
+            return collapsedWidget;
+        }
+
+        /**
+         * Get draw metrics of expanded widget.
+         */
+        @NonNull
+        public ViewMetrics expandedWidget() {
+            return expandedWidget;
+        }
+
+        /**
+         * Get draw metrics of remove widget view.
+         */
+        @NonNull
+        public ViewMetrics removeWidget() {
+            return removeWidget;
+        }
+
+        /**
+         * Get number of window layout updates requested by widget.
+         */
+        public long layoutUpdatesRequested() {
+            return layoutUpdatesRequested;
+        }
+
+        /**
+         * Get number of window layout updates sent to window manager. Updates of the same window
+         * requested during one frame are merged into a single one.
+         */
+        public long layoutUpdatesCommitted() {
+            return layoutUpdatesCommitted;
+        }
+
+        /**
+         * Get number of windows added to window manager.
+         */
+        public int windowsAdded() {
+            return windowsAdded;
+        }
+
+        /**
+         * Get number of windows removed from window manager.
+         */
+        public int windowsRemoved() {
+            return windowsRemoved;
+        }
+
+        /**
+         * Get number of widget windows that had a surface when metrics were taken: attached to window manager
+         * and not hidden.
+         */
+        public int surfacesCount() {
+            return surfacesCount;
+        }
+
+        /**
+         * Get latency of last expand, from request to the first draw of expanded widget, in milliseconds.
+         *
+         * @return latency or -1 if expanded widget wasn't drawn after expand request yet
+         */
+        public long lastExpandLatency() {
+            return lastExpandLatency;
+        }
+
+        /**
+         * Get duration of last expand, from request to {@link State#EXPANDED} state, in milliseconds.
+         *
+         * @return duration or -1 if widget wasn't expanded yet
+         */
+        public long lastExpandDuration() {
+            return lastExpandDuration;
+        }
+
+        /**
+         * Get duration of last collapse, from request to {@link State#COLLAPSED} state, in milliseconds.
+         *
+         * @return duration or -1 if widget wasn't collapsed yet
+         */
+        public long lastCollapseDuration() {
+            return lastCollapseDuration;
+        }
+
+        /**
+         * Get number of album cover cache hits.
+         */
+        public int albumCoverCacheHitCount() {
+            return albumCoverCacheHitCount;
+        }
+
+        /**
+         * Get number of album cover cache misses.
+         */
+        public int albumCoverCacheMissCount() {
+            return albumCoverCacheMissCount;
+        }
+
+        /**
+         * Get album cover cache hit rate.
+         *
+         * @return value in range <code>0..1</code> or 0 if cache wasn't used yet
+         */
+        public float albumCoverCacheHitRate() {
+            int total = albumCoverCacheHitCount + albumCoverCacheMissCount;
+            return total == 0 ? 0 : 1f * albumCoverCacheHitCount / total;
+        }
+
+        /**
+         * Get number of track positions set via {@link Controller#position(int)}.
+         */
+        public long progressEventsReceived() {
+            return progressEventsReceived;
+        }
+
+        /**
+         * Get number of progress events delivered to widget views. Positions set during one frame
+         * are merged into a single event.
+         */
+        public long progressEventsDispatched() {
+            return progressEventsDispatched;
+        }
+    }
+
+    /**
+     * Draw metrics of widget view.
+     */
+    public static final class ViewMetrics {
+
+        private final int framesCount;
+        private final int slowFramesCount;
+        private final long budgetNanos;
+        private final long averageDrawTimeNanos;
+        private final long maxDrawTimeNanos;
+
+        ViewMetrics(@NonNull FrameStats stats) {
+            this.framesCount = stats.framesCount();
+            this.slowFramesCount = stats.slowFramesCount();
+            this.budgetNanos = stats.budgetNanos();
+            this.averageDrawTimeNanos = stats.averageNanos();
+            this.maxDrawTimeNanos = stats.maxNanos();
+        }
+
+        /**
+         * Get number of frames drawn.
+         */
+        public int framesCount() {
+            return framesCount;
+        }
+
+        /**
+         * Get number of frames drawn longer than draw time budget.
+         */
+        public int slowFramesCount() {
+            return slowFramesCount;
+        }
+
+        /**
+         * Get draw time budget of one frame, in nanoseconds.
+         */
+        public long budgetNanos() {
+            return budgetNanos;
+        }
+
+        /**
+         * Get average draw time of one frame, in nanoseconds.
+         */
+        public long averageDrawTimeNanos() {
+            return averageDrawTimeNanos;
+        }
+
+        /**
+         * Get max draw time of one frame, in nanoseconds.
+         */
+        public long maxDrawTimeNanos() {
+            return maxDrawTimeNanos;
+        }
+    }
+
     /**
      * Widget state.
      */
@@ -1388,4 +2081,71 @@ public class AudioWidget {
         EXPANDED,
         REMOVED
     }
+
+    /**
+     * Render mode of collapsed widget.
+     */
+    public enum RenderMode {
+        /**
+         * Widget is drawn in software layer, shadow is drawn using {@link Paint#setShadowLayer(float, float, float, int)}.
+         */
+        SOFTWARE,
+        /**
+         * Widget is drawn by hardware renderer, shadow is pre-rendered once into bitmap.
+         * On Android 10+ expanded widget is drawn by hardware renderer too, each control
+         * is recorded into its own render node.
+         */
+        HARDWARE
+    }
+
+    /**
+     * Visual quality of widget. Each level includes all reductions of previous ones.
+     */
+    public enum Quality {
+        /**
+         * All effects are enabled.
+         */
+        FULL,
+        /**
+         * Half of bubbles are drawn.
+         */
+        REDUCED_PARTICLES,
+        /**
+         * Shadows are not drawn.
+         */
+        NO_SHADOW,
+        /**
+         * Expand animation is shortened.
+         */
+        SHORT_ANIMATIONS
+    }
+
+    /**
+     * Color space used for color transitions.
+     */
+    public enum ColorInterpolation {
+        /**
+         * Colors are interpolated in HSV color space.
+         */
+        HSV,
+        /**
+         * Colors are interpolated in perceptually uniform OKLab color space.
+         */
+        OKLAB
+    }
+
+    /**
+     * Drag mode of widget.
+     */
+    public enum DragMode {
+        /**
+         * Widget's window is moved on each touch event.
+         */
+        WINDOW,
+        /**
+         * Widget's window is enlarged to full screen while dragging and widget is moved using translation.
+         * Window position is updated only when user releases finger.
+         */
+        TRANSLATION
+    }
 }
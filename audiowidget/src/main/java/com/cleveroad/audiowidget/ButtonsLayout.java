@@ -0,0 +1,112 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Immutable layout of a row of equally sized buttons. All bounds are computed once,
+ * hit testing is a single division.
+ */
+class ButtonsLayout {
+
+	private final int count;
+	private final float sizeStep;
+	private final int top;
+	private final int bottom;
+	/**
+	 * Bounds of button's icons: left, top, right, bottom of each button.
+	 */
+	private final int[] bounds;
+	/**
+	 * Centers of button's icons: x, y of each button.
+	 */
+	private final int[] centers;
+	/**
+	 * Half sizes of button's icons.
+	 */
+	private final float[] halfSizes;
+
+	/**
+	 * Create new layout.
+	 * @param width width of row
+	 * @param top top of row
+	 * @param bottom bottom of row
+	 * @param paddings padding of each button's icon, length of array defines number of buttons
+	 */
+	ButtonsLayout(float width, int top, int bottom, @NonNull int[] paddings) {
+		this.count = paddings.length;
+		this.sizeStep = width / count;
+		this.top = top;
+		this.bottom = bottom;
+		this.bounds = new int[count * 4];
+		this.centers = new int[count * 2];
+		this.halfSizes = new float[count];
+		for (int i = 0; i < count; i++) {
+			int padding = paddings[i];
+			int l = (int) (i * sizeStep + padding);
+			int t = top + padding;
+			int r = (int) ((i + 1) * sizeStep - padding);
+			int b = bottom - padding;
+			bounds[4 * i] = l;
+			bounds[4 * i + 1] = t;
+			bounds[4 * i + 2] = r;
+			bounds[4 * i + 3] = b;
+			centers[2 * i] = (l + r) >> 1;
+			centers[2 * i + 1] = (t + b) >> 1;
+			halfSizes[i] = sizeStep / 2f - padding;
+		}
+	}
+
+	int count() {
+		return count;
+	}
+
+	float sizeStep() {
+		return sizeStep;
+	}
+
+	/**
+	 * Get bounds of button's icon.
+	 * @param index button index
+	 * @param out rect to write bounds to
+	 */
+	void bounds(int index, @NonNull Rect out) {
+		out.set(bounds[4 * index], bounds[4 * index + 1], bounds[4 * index + 2], bounds[4 * index + 3]);
+	}
+
+	int left(int index) {
+		return bounds[4 * index];
+	}
+
+	int centerX(int index) {
+		return centers[2 * index];
+	}
+
+	int centerY(int index) {
+		return centers[2 * index + 1];
+	}
+
+	/**
+	 * Get half size of button's icon, i.e. distance from icon's center to its edge.
+	 * @param index button index
+	 * @return half size
+	 */
+	float halfSize(int index) {
+		return halfSizes[index];
+	}
+
+	/**
+	 * Find button under point.
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @return button index or -1 if there is no button under point
+	 */
+	int hitTest(float x, float y) {
+		if (x < 0 || y < top || y >= bottom) {
+			return -1;
+		}
+		int index = (int) (x / sizeStep);
+		return index < count ? index : -1;
+	}
+}
@@ -1,36 +1,78 @@
 package com.cleveroad.audiowidget;
 
-import android.graphics.Color;
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Helper class for changing color.
+ * <p>
+ * Transition between two colors is precomputed into a ramp of {@link #RAMP_SIZE} colors, so getting
+ * next color is an array lookup. Ramps are cached and shared by all changers with the same colors.
  */
 class ColorChanger {
 
-	private final float[] fromColorHsv;
-	private final float[] toColorHsv;
-	private final float[] resultColorHsv;
+	/**
+	 * Number of colors in a ramp.
+	 */
+	static final int RAMP_SIZE = 256;
+
+	private static final Map<Long, int[]> HSV_RAMPS = new HashMap<>();
+	private static final Map<Long, int[]> OKLAB_RAMPS = new HashMap<>();
+
+	private final AudioWidget.ColorInterpolation interpolation;
+	private int fromColor;
+	private int toColor;
+	private int[] ramp;
 
 	ColorChanger() {
-		fromColorHsv = new float[3];
-		toColorHsv = new float[3];
-		resultColorHsv = new float[3];
+		this(AudioWidget.ColorInterpolation.HSV);
+	}
+
+	ColorChanger(@NonNull AudioWidget.ColorInterpolation interpolation) {
+		this.interpolation = interpolation;
 	}
 
     ColorChanger fromColor(int fromColor) {
-		Color.colorToHSV(fromColor, fromColorHsv);
+		if (ramp == null || this.fromColor != fromColor) {
+			this.fromColor = fromColor;
+			ramp = null;
+		}
 		return this;
 	}
 
 	ColorChanger toColor(int toColor) {
-		Color.colorToHSV(toColor, toColorHsv);
+		if (ramp == null || this.toColor != toColor) {
+			this.toColor = toColor;
+			ramp = null;
+		}
 		return this;
 	}
 
 	int nextColor(float dt) {
-		for (int k = 0; k < 3; k++) {
-			resultColorHsv[k] = fromColorHsv[k] + (toColorHsv[k] - fromColorHsv[k]) * dt;
+		if (ramp == null) {
+			ramp = ramp(fromColor, toColor, interpolation);
+		}
+		return ColorRamps.color(ramp, dt);
+	}
+
+	/**
+	 * Get cached ramp or build new one.
+	 */
+	@NonNull
+	private static int[] ramp(int fromColor, int toColor, @NonNull AudioWidget.ColorInterpolation interpolation) {
+		Map<Long, int[]> ramps = interpolation == AudioWidget.ColorInterpolation.OKLAB ? OKLAB_RAMPS : HSV_RAMPS;
+		long key = ((long) fromColor << 32) | (toColor & 0xFFFFFFFFL);
+		synchronized (ramps) {
+			int[] ramp = ramps.get(key);
+			if (ramp == null) {
+				ramp = interpolation == AudioWidget.ColorInterpolation.OKLAB
+						? ColorRamps.oklab(fromColor, toColor, RAMP_SIZE)
+						: ColorRamps.hsv(fromColor, toColor, RAMP_SIZE);
+				ramps.put(key, ramp);
+			}
+			return ramp;
 		}
-		return Color.HSVToColor(resultColorHsv);
 	}
 }
@@ -0,0 +1,120 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Color;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+/**
+ * Builders of color ramps, i.e. transitions between two colors sampled at equal steps.
+ */
+final class ColorRamps {
+
+	private ColorRamps() {}
+
+	/**
+	 * Get color of ramp nearest to given position.
+	 * @param ramp ramp of at least one color
+	 * @param dt position in ramp, clamped to <code>0..1</code>
+	 * @return color
+	 */
+	@ColorInt
+	static int color(@NonNull int[] ramp, float dt) {
+		int index = (int) (DrawableUtils.between(dt, 0f, 1f) * (ramp.length - 1) + 0.5f);
+		return ramp[index];
+	}
+
+	/**
+	 * Build ramp interpolated in HSV color space. Colors of ramp are opaque.
+	 * @param fromColor first color of ramp
+	 * @param toColor last color of ramp
+	 * @param size number of colors in ramp
+	 * @return new ramp
+	 */
+	@NonNull
+	static int[] hsv(@ColorInt int fromColor, @ColorInt int toColor, int size) {
+		float[] fromHsv = new float[3];
+		float[] toHsv = new float[3];
+		float[] resultHsv = new float[3];
+		Color.colorToHSV(fromColor, fromHsv);
+		Color.colorToHSV(toColor, toHsv);
+		int[] ramp = new int[size];
+		for (int i = 0; i < size; i++) {
+			float dt = 1f * i / (size - 1);
+			for (int k = 0; k < 3; k++) {
+				resultHsv[k] = fromHsv[k] + (toHsv[k] - fromHsv[k]) * dt;
+			}
+			ramp[i] = Color.HSVToColor(resultHsv);
+		}
+		return ramp;
+	}
+
+	/**
+	 * Build ramp interpolated in OKLab color space. Alpha is interpolated linearly.
+	 * @param fromColor first color of ramp
+	 * @param toColor last color of ramp
+	 * @param size number of colors in ramp
+	 * @return new ramp
+	 */
+	@NonNull
+	static int[] oklab(@ColorInt int fromColor, @ColorInt int toColor, int size) {
+		float[] fromLab = toOklab(fromColor);
+		float[] toLab = toOklab(toColor);
+		float[] resultLab = new float[3];
+		int fromAlpha = Color.alpha(fromColor);
+		int toAlpha = Color.alpha(toColor);
+		int[] ramp = new int[size];
+		for (int i = 0; i < size; i++) {
+			float dt = 1f * i / (size - 1);
+			for (int k = 0; k < 3; k++) {
+				resultLab[k] = fromLab[k] + (toLab[k] - fromLab[k]) * dt;
+			}
+			int alpha = Math.round(fromAlpha + (toAlpha - fromAlpha) * dt);
+			ramp[i] = fromOklab(resultLab, alpha);
+		}
+		return ramp;
+	}
+
+	/**
+	 * Convert sRGB color to OKLab.
+	 * @see <a href="https://bottosson.github.io/posts/oklab/">A perceptual color space for image processing</a>
+	 */
+	@NonNull
+	private static float[] toOklab(@ColorInt int color) {
+		double r = toLinear(Color.red(color));
+		double g = toLinear(Color.green(color));
+		double b = toLinear(Color.blue(color));
+		double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+		double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+		double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+		return new float[] {
+				(float) (0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s),
+				(float) (1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s),
+				(float) (0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s)
+		};
+	}
+
+	@ColorInt
+	private static int fromOklab(@NonNull float[] lab, int alpha) {
+		double l = lab[0] + 0.3963377774 * lab[1] + 0.2158037573 * lab[2];
+		double m = lab[0] - 0.1055613458 * lab[1] - 0.0638541728 * lab[2];
+		double s = lab[0] - 0.0894841775 * lab[1] - 1.2914855480 * lab[2];
+		l = l * l * l;
+		m = m * m * m;
+		s = s * s * s;
+		double r = 4.0767416621 * l - 3.3077115913 * m + 0.2309699292 * s;
+		double g = -1.2684380046 * l + 2.6097574011 * m - 0.3413193965 * s;
+		double b = -0.0041960863 * l - 0.7034186147 * m + 1.7076147010 * s;
+		return Color.argb(alpha, fromLinear(r), fromLinear(g), fromLinear(b));
+	}
+
+	private static double toLinear(int channel) {
+		double c = channel / 255.0;
+		return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+	}
+
+	private static int fromLinear(double c) {
+		double v = c <= 0.0031308 ? c * 12.92 : 1.055 * Math.pow(c, 1 / 2.4) - 0.055;
+		return DrawableUtils.between((int) Math.round(v * 255), 0, 255);
+	}
+}
@@ -22,6 +22,7 @@ class Configuration {
     static final int STATE_PLAYING = 1;
     static final int STATE_PAUSED = 2;
     static final long TOUCH_ANIMATION_DURATION = 100;
+    static final float DEFAULT_REFRESH_RATE = 60f;
 
     private final int lightColor;
 	private final int darkColor;
@@ -51,6 +52,12 @@ class Configuration {
     private final int crossOverlappedColor;
     private final Interpolator accDecInterpolator;
     private final int prevNextExtraPadding;
+    private final AudioWidget.RenderMode renderMode;
+    private final int particlesBudget;
+    private final AudioWidget.ColorInterpolation colorInterpolation;
+    private final QualityController qualityController;
+    private final boolean drawMetrics;
+    private final float refreshRate;
 
 	private Configuration(Builder builder) {
 		this.context = builder.context;
@@ -81,6 +88,12 @@ class Configuration {
         this.crossOverlappedColor = builder.crossOverlappedColor;
         this.accDecInterpolator = builder.accDecInterpolator;
         this.prevNextExtraPadding = builder.prevNextExtraPadding;
+        this.renderMode = builder.renderMode;
+        this.particlesBudget = builder.particlesBudget;
+        this.colorInterpolation = builder.colorInterpolation;
+        this.qualityController = builder.qualityController;
+        this.drawMetrics = builder.drawMetrics;
+        this.refreshRate = builder.refreshRate;
 	}
 
 	Context context() {
@@ -199,6 +212,34 @@ class Configuration {
         return prevNextExtraPadding;
     }
 
+    AudioWidget.RenderMode renderMode() {
+        return renderMode;
+    }
+
+    int particlesBudget() {
+        return particlesBudget;
+    }
+
+    AudioWidget.ColorInterpolation colorInterpolation() {
+        return colorInterpolation;
+    }
+
+    QualityController qualityController() {
+        return qualityController;
+    }
+
+    boolean drawMetrics() {
+        return drawMetrics;
+    }
+
+    /**
+     * Get display refresh rate.
+     * @return refresh rate in frames per second
+     */
+    float refreshRate() {
+        return refreshRate;
+    }
+
     static final class Builder {
 
 		private int lightColor;
@@ -229,6 +270,12 @@ class Configuration {
         private int crossOverlappedColor;
         private Interpolator accDecInterpolator;
         private int prevNextExtraPadding;
+        private AudioWidget.RenderMode renderMode = AudioWidget.RenderMode.SOFTWARE;
+        private int particlesBudget = ParticleSystem.DEFAULT_BUDGET;
+        private AudioWidget.ColorInterpolation colorInterpolation = AudioWidget.ColorInterpolation.HSV;
+        private QualityController qualityController;
+        private boolean drawMetrics;
+        private float refreshRate = DEFAULT_REFRESH_RATE;
 
         Builder context(Context context) {
 			this.context = context;
@@ -370,6 +417,36 @@ class Configuration {
             return this;
         }
 
+        Builder renderMode(AudioWidget.RenderMode renderMode) {
+            this.renderMode = renderMode;
+            return this;
+        }
+
+        Builder particlesBudget(int particlesBudget) {
+            this.particlesBudget = particlesBudget;
+            return this;
+        }
+
+        Builder colorInterpolation(AudioWidget.ColorInterpolation colorInterpolation) {
+            this.colorInterpolation = colorInterpolation;
+            return this;
+        }
+
+        Builder qualityController(QualityController qualityController) {
+            this.qualityController = qualityController;
+            return this;
+        }
+
+        Builder drawMetrics(boolean drawMetrics) {
+            this.drawMetrics = drawMetrics;
+            return this;
+        }
+
+        Builder refreshRate(float refreshRate) {
+            this.refreshRate = refreshRate > 0 ? refreshRate : DEFAULT_REFRESH_RATE;
+            return this;
+        }
+
         Configuration build() {
 			return new Configuration(this);
 		}
@@ -0,0 +1,136 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RecordingCanvas;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.RenderNode;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+/**
+ * Display lists of expanded widget. Background, bubbles and each control are recorded into
+ * their own {@link RenderNode}. Controls are recorded once, their scale, alpha and position
+ * are changed as node properties, so animations don't re-record any drawables.
+ */
+@RequiresApi(Build.VERSION_CODES.Q)
+class ControlsRenderNodes {
+
+	private final RenderNode backgroundNode;
+	private final RenderNode bubblesNode;
+	private final RenderNode[] controlNodes;
+	private final boolean[] controlRecorded;
+	private final RectF recordedBackground;
+	private int recordedBackgroundColor;
+	private boolean backgroundRecorded;
+
+	/**
+	 * Create new nodes.
+	 * @param controlsCount number of control drawables
+	 */
+	ControlsRenderNodes(int controlsCount) {
+		backgroundNode = new RenderNode("AudioWidgetBackground");
+		backgroundNode.setClipToBounds(false);
+		bubblesNode = new RenderNode("AudioWidgetBubbles");
+		bubblesNode.setClipToBounds(false);
+		controlNodes = new RenderNode[controlsCount];
+		controlRecorded = new boolean[controlsCount];
+		for (int i = 0; i < controlsCount; i++) {
+			controlNodes[i] = new RenderNode("AudioWidgetControl" + i);
+		}
+		recordedBackground = new RectF();
+	}
+
+	/**
+	 * Mark control's drawable as changed, it will be recorded again on next draw.
+	 * @param index control index
+	 */
+	void invalidateControl(int index) {
+		controlRecorded[index] = false;
+	}
+
+	/**
+	 * Mark background as changed, it will be recorded again on next draw.
+	 */
+	void invalidateBackground() {
+		backgroundRecorded = false;
+	}
+
+	/**
+	 * Draw background. Background is recorded again only if its bounds or color changed.
+	 */
+	void drawBackground(@NonNull Canvas canvas, int width, int height, @NonNull RectF bounds, float radius, @NonNull Paint paint) {
+		if (!backgroundRecorded || !recordedBackground.equals(bounds) || recordedBackgroundColor != paint.getColor()) {
+			backgroundNode.setPosition(0, 0, width, height);
+			RecordingCanvas recordingCanvas = backgroundNode.beginRecording();
+			try {
+				recordingCanvas.drawRoundRect(bounds, radius, radius, paint);
+			} finally {
+				backgroundNode.endRecording();
+			}
+			recordedBackground.set(bounds);
+			recordedBackgroundColor = paint.getColor();
+			backgroundRecorded = true;
+		}
+		canvas.drawRenderNode(backgroundNode);
+	}
+
+	/**
+	 * Start recording of bubbles layer.
+	 * @return canvas to draw bubbles on
+	 */
+	@NonNull
+	Canvas beginBubbles(int width, int height) {
+		bubblesNode.setPosition(0, 0, width, height);
+		return bubblesNode.beginRecording();
+	}
+
+	/**
+	 * Finish recording of bubbles layer and draw it.
+	 */
+	void endBubbles(@NonNull Canvas canvas) {
+		bubblesNode.endRecording();
+		canvas.drawRenderNode(bubblesNode);
+	}
+
+	/**
+	 * Draw control.
+	 * @param canvas canvas
+	 * @param index control index
+	 * @param drawable control drawable, recorded only if control is not recorded yet
+	 * @param bounds control bounds in expanded state
+	 * @param translationX horizontal offset from bounds
+	 * @param scale control scale around its center
+	 * @param alpha control alpha
+	 */
+	void drawControl(@NonNull Canvas canvas, int index, @NonNull Drawable drawable, @NonNull Rect bounds,
+					 float translationX, float scale, float alpha) {
+		RenderNode node = controlNodes[index];
+		if (!controlRecorded[index]) {
+			node.setPosition(bounds);
+			node.setPivotX(bounds.width() / 2f);
+			node.setPivotY(bounds.height() / 2f);
+			RecordingCanvas recordingCanvas = node.beginRecording();
+			try {
+				drawable.setAlpha(255);
+				drawable.setBounds(0, 0, bounds.width(), bounds.height());
+				drawable.draw(recordingCanvas);
+			} finally {
+				node.endRecording();
+			}
+			controlRecorded[index] = true;
+		}
+		if (alpha <= 0 || scale <= 0) {
+			return;
+		}
+		node.setTranslationX(translationX);
+		node.setScaleX(scale);
+		node.setScaleY(scale);
+		node.setAlpha(alpha);
+		canvas.drawRenderNode(node);
+	}
+}
@@ -0,0 +1,69 @@
+package com.cleveroad.audiowidget;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Immutable piecewise linear function. Curve is defined by a set of points, slopes of all segments
+ * are computed once, so evaluation is a scan over point times and one multiplication.
+ * Curves have a few points, for them scan is faster than binary search.
+ */
+class Curve {
+
+	private final float[] times;
+	private final float[] values;
+	private final float[] slopes;
+
+	/**
+	 * Create new curve.
+	 * @param pairs pairs of value and time: <code>value0, time0, value1, time1, ...</code>, times must be ascending
+	 * @return new curve
+	 * @throws IllegalArgumentException if length of pairs is not a multiple of 2 or times are not ascending
+	 */
+	@NonNull
+	static Curve of(@NonNull float... pairs) {
+		return new Curve(pairs);
+	}
+
+	private Curve(@NonNull float[] pairs) {
+		if (pairs.length == 0 || pairs.length % 2 != 0) {
+			throw new IllegalArgumentException("Length of pairs must be multiple by 2 and greater than zero.");
+		}
+		int size = pairs.length / 2;
+		times = new float[size];
+		values = new float[size];
+		slopes = new float[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = pairs[2 * i];
+			times[i] = pairs[2 * i + 1];
+			if (i > 0 && times[i] < times[i - 1]) {
+				throw new IllegalArgumentException("Times must be ascending.");
+			}
+		}
+		for (int i = 0; i < size - 1; i++) {
+			float dt = times[i + 1] - times[i];
+			slopes[i] = dt == 0 ? 0 : (values[i + 1] - values[i]) / dt;
+		}
+	}
+
+	/**
+	 * Get value of curve at time.
+	 * @param t time
+	 * @return value of first point if time is before first point, value of last point
+	 * if time is after last point, interpolated value otherwise
+	 */
+	float value(float t) {
+		int last = times.length - 1;
+		if (t < times[0]) {
+			return values[0];
+		}
+		if (t >= times[last]) {
+			return values[last];
+		}
+		// find last point with time <= t
+		int low = 0;
+		while (times[low + 1] <= t) {
+			low++;
+		}
+		return values[low] + (t - times[low]) * slopes[low];
+	}
+}
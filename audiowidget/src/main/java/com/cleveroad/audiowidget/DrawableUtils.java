@@ -7,27 +7,6 @@ class DrawableUtils {
 
 	private DrawableUtils() {}
 
-	static float customFunction(float t, float ... pairs) {
-		if (pairs.length == 0 || pairs.length % 2 != 0) {
-			throw new IllegalArgumentException("Length of pairs must be multiple by 2 and greater than zero.");
-		}
-		if (t < pairs[1]) {
-			return pairs[0];
-		}
-		int size = pairs.length / 2;
-		for (int i=0; i<size - 1; i++) {
-			float a = pairs[2 * i];
-			float b = pairs[2 * (i + 1)];
-			float aT = pairs[2 * i + 1];
-			float bT = pairs[2 * (i + 1) + 1];
-			if (t >= aT && t <= bT) {
-				float norm = normalize(t, aT, bT);
-				return a + norm * (b - a);
-			}
-		}
-		return pairs[pairs.length - 2];
-	}
-
 	/**
 	 * Normalize value between minimum and maximum.
 	 * @param val value
@@ -1,9 +1,5 @@
 package com.cleveroad.audiowidget;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.PropertyValuesHolder;
-import android.animation.ValueAnimator;
 import android.annotation.SuppressLint;
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -13,19 +9,21 @@ import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.util.Log;
 import android.view.animation.Interpolator;
-import android.view.animation.LinearInterpolator;
 import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 
+import java.util.Map;
 import java.util.Random;
+import java.util.WeakHashMap;
 
 /**
  * Expanded state view.
  */
 @SuppressLint({"ViewConstructor", "AppCompatCustomView"})
-class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackStateListener {
+class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackStateListener, QualityController.Target {
 
 	static final int DIRECTION_LEFT = 1;
 	static final int DIRECTION_RIGHT = 2;
@@ -40,6 +38,10 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 	private static final float EXPAND_BUBBLES_END_F = 32 * Configuration.FRAME_SPEED;
 	private static final float EXPAND_ELEMENTS_START_F = 20 * Configuration.FRAME_SPEED;
 	private static final float EXPAND_ELEMENTS_END_F = 27 * Configuration.FRAME_SPEED;
+	/**
+	 * Expand duration scale used in {@link AudioWidget.Quality#SHORT_ANIMATIONS} quality.
+	 */
+	private static final float SHORT_EXPAND_SCALE = 0.6f;
 
 	private static final float COLLAPSE_DURATION_F = 12 * Configuration.FRAME_SPEED;
 	private static final long COLLAPSE_DURATION_L = (long) COLLAPSE_DURATION_F;
@@ -58,22 +60,39 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 	private static final int INDEX_PAUSE = 5;
 
 	private static final int TOTAL_BUBBLES_COUNT = 30;
+	private static final Curve BUBBLES_ALPHA_CURVE = Curve.of(0, 0, 255, 0.33f, 255, 0.66f, 0, 1f);
+
+	private static final int CHANNEL_BACKGROUND_LEFT = 0;
+	private static final int CHANNEL_BACKGROUND_RIGHT = 1;
+	private static final int CHANNEL_PLAY_LEFT = 2;
+	private static final int CHANNEL_ELEMENTS = 3;
+	private static final int CHANNEL_BUBBLES_ALPHA = 4;
+	private static final int CHANNEL_BUBBLES_TIME = 5;
+	private static final int CHANNEL_COLOR_PLAYING = 6;
+	private static final int CHANNEL_COLOR_PAUSED = CHANNEL_COLOR_PLAYING + KeyframeTable.COLOR_CHANNELS;
+	private static final int CHANNELS_COUNT = CHANNEL_COLOR_PAUSED + KeyframeTable.COLOR_CHANNELS;
 
 
 	private final Paint paint;
 	private final float radius;
 	private final float widgetWidth;
 	private final float widgetHeight;
-	private final ColorChanger colorChanger;
 	private final int playColor;
 	private final int pauseColor;
 	private final int widgetColor;
+	private final AudioWidget.ColorInterpolation colorInterpolation;
+	private final float shadowRadius;
+	private final float shadowDx;
+	private final float shadowDy;
+	private final int shadowColor;
+	/**
+	 * Time between keyframes of baked timelines, equals to display frame interval.
+	 */
+	private final float keyframeStep;
 	private final Drawable[] drawables;
 	private final Rect[] buttonBounds;
-	private final float sizeStep;
-	private final float[] bubbleSizes;
-	private final float[] bubbleSpeeds;
-	private final float[] bubblePositions;
+	private final ButtonsLayout buttonsLayout;
+	private final ParticleSystem bubbles;
 	private final float bubblesMinSize;
 	private final float bubblesMaxSize;
 	private final Random random;
@@ -81,19 +100,52 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 	private final RectF bounds;
 	private final Rect tmpRect;
 	private final PlaybackState playbackState;
-	private final ValueAnimator expandAnimator;
-	private final ValueAnimator collapseAnimator;
+	private final FrameAnimation expandAnimator;
+	private final FrameAnimation collapseAnimator;
 	private final Drawable defaultAlbumCover;
+	/**
+	 * Cover passed to {@link #albumCover(Drawable)}. Drawn cover is its mutated copy.
+	 */
+	@Nullable
+	private Drawable albumCoverSource;
+	/**
+	 * Mutated copies of covers. Entries live as long as cover drawable itself, so switching between
+	 * cached covers doesn't copy them again.
+	 */
+	private final Map<Drawable, Drawable> albumCoverCopies = new WeakHashMap<>();
 	private final int buttonPadding;
 	private final int prevNextExtraPadding;
 	private final Interpolator accDecInterpolator;
-	private final ValueAnimator touchDownAnimator;
-	private final ValueAnimator touchUpAnimator;
-	private final ValueAnimator bubblesTouchAnimator;
+	private final FrameAnimation touchDownAnimator;
+	private final FrameAnimation touchUpAnimator;
+	private final FrameAnimation bubblesTouchAnimator;
+	/**
+	 * Display lists of controls. Used on API 29+ in {@link AudioWidget.RenderMode#HARDWARE} mode only.
+	 */
+	@Nullable
+	private final ControlsRenderNodes renderNodes;
+	/**
+	 * Baked expand and collapse timelines, one per direction.
+	 */
+	private final KeyframeTable[] expandTimelines;
+	private final KeyframeTable[] collapseTimelines;
+	/**
+	 * Bounds of play button in expanded state.
+	 */
+	private final Rect expandedPlayBounds;
+	private final FrameStats drawStats;
+	private boolean shadowEnabled = true;
+	private boolean shortExpand;
 
 	private float bubblesTime;
+	private float elementsScale;
+	private float touchScale = 1f;
 	private boolean expanded;
 	private boolean animatingExpand, animatingCollapse;
+	/**
+	 * Whether expand or collapse animation started in playing state. Defines widget colors of animation.
+	 */
+	private boolean animatingFromPlaying;
 	private int expandDirection;
 	private AudioWidget.OnWidgetStateChangedListener onWidgetStateChangedListener;
 	private int padding;
@@ -104,10 +156,11 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 	protected AnimationProgressListener expandListener;
 	@Nullable
 	private AnimationProgressListener collapseListener;
+	@Nullable
+	private Runnable nextDrawAction;
 
 	public ExpandCollapseWidget(@NonNull Configuration configuration) {
 		super(configuration.context());
-		setLayerType(LAYER_TYPE_SOFTWARE, null);
 		this.playbackState = configuration.playbackState();
 		this.accDecInterpolator = configuration.accDecInterpolator();
 		this.random = configuration.random();
@@ -119,18 +172,18 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 		this.paint = new Paint();
 		this.paint.setColor(configuration.expandedColor());
 		this.paint.setAntiAlias(true);
-		this.paint.setShadowLayer(
-				configuration.shadowRadius(),
-				configuration.shadowDx(),
-				configuration.shadowDy(),
-				configuration.shadowColor()
-		);
+		this.shadowRadius = configuration.shadowRadius();
+		this.shadowDx = configuration.shadowDx();
+		this.shadowDy = configuration.shadowDy();
+		this.shadowColor = configuration.shadowColor();
+		this.paint.setShadowLayer(shadowRadius, shadowDx, shadowDy, shadowColor);
 		this.radius = configuration.radius();
 		this.widgetWidth = configuration.widgetWidth();
-		this.colorChanger = new ColorChanger();
 		this.playColor = configuration.darkColor();
 		this.pauseColor = configuration.lightColor();
 		this.widgetColor = configuration.expandedColor();
+		this.colorInterpolation = configuration.colorInterpolation();
+		this.keyframeStep = Math.min(KeyframeTable.MAX_KEYFRAME_STEP, 1000f / configuration.refreshRate());
 		this.buttonPadding = configuration.buttonPadding();
 		this.prevNextExtraPadding = configuration.prevNextExtraPadding();
 		this.bubblesMinSize = configuration.bubblesMinSize();
@@ -145,43 +198,56 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 		this.drawables[INDEX_PAUSE] = configuration.pauseDrawable().getConstantState().newDrawable().mutate();
 		this.drawables[INDEX_NEXT] = configuration.nextDrawable().getConstantState().newDrawable().mutate();
 		this.drawables[INDEX_ALBUM] = defaultAlbumCover = configuration.albumDrawable().getConstantState().newDrawable().mutate();
-		this.sizeStep = widgetWidth / 5f;
+		if (configuration.renderMode() == AudioWidget.RenderMode.HARDWARE && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+			// hardware renderer supports shadow layer for all shapes since API 28
+			this.renderNodes = new ControlsRenderNodes(drawables.length);
+		} else {
+			this.renderNodes = null;
+			setLayerType(LAYER_TYPE_SOFTWARE, null);
+		}
 		this.widgetHeight = radius * 2;
 		for (int i = 0; i < buttonBounds.length; i++) {
 			buttonBounds[i] = new Rect();
 		}
-		this.bubbleSizes = new float[TOTAL_BUBBLES_COUNT];
-		this.bubbleSpeeds = new float[TOTAL_BUBBLES_COUNT];
-		this.bubblePositions = new float[TOTAL_BUBBLES_COUNT * 2];
+		this.expandTimelines = new KeyframeTable[2];
+		this.collapseTimelines = new KeyframeTable[2];
+		int[] paddings = new int[buttonBounds.length];
+		for (int i = 0; i < paddings.length; i++) {
+			paddings[i] = buttonPadding;
+			if (i == INDEX_PREV || i == INDEX_NEXT) {
+				paddings[i] += prevNextExtraPadding;
+			}
+		}
+		this.buttonsLayout = new ButtonsLayout(widgetWidth, (int) radius, (int) (radius * 3), paddings);
+		this.expandedPlayBounds = new Rect();
+		buttonsLayout.bounds(INDEX_PLAY, expandedPlayBounds);
+		this.bubbles = new ParticleSystem(bubblesMinSize / 2f, bubblesMaxSize / 2f, configuration.particlesBudget());
 		this.playbackState.addPlaybackStateListener(this);
 
-		this.expandAnimator = ValueAnimator.ofPropertyValuesHolder(
-				PropertyValuesHolder.ofFloat("percent", 0f, 1f),
-				PropertyValuesHolder.ofInt("expandPosition", 0, (int) EXPAND_DURATION_L),
-				PropertyValuesHolder.ofFloat("alpha", 0f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f)
-		).setDuration(EXPAND_DURATION_L);
-
-		LinearInterpolator interpolator = new LinearInterpolator();
-		this.expandAnimator.setInterpolator(interpolator);
-		this.expandAnimator.addUpdateListener(animation -> {
-			updateExpandAnimation((int) animation.getAnimatedValue("expandPosition"));
-			setAlpha((float) animation.getAnimatedValue("alpha"));
-			invalidate();
+		this.expandAnimator = new FrameAnimation(this).setDuration(EXPAND_DURATION_L);
+		this.expandAnimator.setInterpolator(null);
+		this.expandAnimator.setUpdateListener(animation -> {
+			float percent = animation.getAnimatedFraction();
+			// timeline is baked for full duration, shortened animation plays it faster
+			updateAnimation(expandTimeline(expandDirection), percent * EXPAND_DURATION_F, true);
+			// fade in during first 1/12 of animation
+			setAlpha(Math.min(1f, percent * 12));
 
 			if(expandListener != null) {
-				expandListener.onValueChanged((float) animation.getAnimatedValue("percent"));
+				expandListener.onValueChanged(percent);
 			}
 		});
-		this.expandAnimator.addListener(new AnimatorListenerAdapter() {
+		this.expandAnimator.setListener(new FrameAnimation.Listener() {
 			@Override
-			public void onAnimationStart(Animator animation) {
-				super.onAnimationStart(animation);
+			void onAnimationStart(@NonNull FrameAnimation animation) {
 				animatingExpand = true;
 			}
 
 			@Override
-			public void onAnimationEnd(Animator animation) {
-				super.onAnimationEnd(animation);
+			void onAnimationEnd(@NonNull FrameAnimation animation) {
+				if (!animatingExpand) {
+					return;
+				}
 				animatingExpand = false;
 				expanded = true;
 				if (onWidgetStateChangedListener != null) {
@@ -190,36 +256,33 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 			}
 
 			@Override
-			public void onAnimationCancel(Animator animation) {
-				super.onAnimationCancel(animation);
+			void onAnimationCancel(@NonNull FrameAnimation animation) {
 				animatingExpand = false;
 			}
 		});
-		this.collapseAnimator = ValueAnimator.ofPropertyValuesHolder(
-				PropertyValuesHolder.ofFloat("percent", 0f, 1f),
-				PropertyValuesHolder.ofInt("expandPosition", 0, (int) COLLAPSE_DURATION_L),
-				PropertyValuesHolder.ofFloat("alpha", 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 0f)
-		).setDuration(COLLAPSE_DURATION_L);
-		this.collapseAnimator.setInterpolator(interpolator);
-		this.collapseAnimator.addUpdateListener(animation -> {
-			updateCollapseAnimation((int) animation.getAnimatedValue("expandPosition"));
-			setAlpha((float) animation.getAnimatedValue("alpha"));
-			invalidate();
+		this.collapseAnimator = new FrameAnimation(this).setDuration(COLLAPSE_DURATION_L);
+		this.collapseAnimator.setInterpolator(null);
+		this.collapseAnimator.setUpdateListener(animation -> {
+			float percent = animation.getAnimatedFraction();
+			updateAnimation(collapseTimeline(expandDirection), animation.getCurrentPlayTime(), false);
+			// fade out during last 1/10 of animation
+			setAlpha(Math.min(1f, (1 - percent) * 10));
 
 			if(collapseListener != null) {
-				collapseListener.onValueChanged((float) animation.getAnimatedValue("percent"));
+				collapseListener.onValueChanged(percent);
 			}
 		});
-		this.collapseAnimator.addListener(new AnimatorListenerAdapter() {
+		this.collapseAnimator.setListener(new FrameAnimation.Listener() {
 			@Override
-			public void onAnimationStart(Animator animation) {
-				super.onAnimationStart(animation);
+			void onAnimationStart(@NonNull FrameAnimation animation) {
 				animatingCollapse = true;
 			}
 
 			@Override
-			public void onAnimationEnd(Animator animation) {
-				super.onAnimationEnd(animation);
+			void onAnimationEnd(@NonNull FrameAnimation animation) {
+				if (!animatingCollapse) {
+					return;
+				}
 				animatingCollapse = false;
 				expanded = false;
 				if (onWidgetStateChangedListener != null) {
@@ -228,24 +291,29 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 			}
 
 			@Override
-			public void onAnimationCancel(Animator animation) {
-				super.onAnimationCancel(animation);
+			void onAnimationCancel(@NonNull FrameAnimation animation) {
 				animatingCollapse = false;
 			}
 		});
 		this.padding = configuration.context().getResources().getDimensionPixelSize(R.dimen.aw_expand_collapse_widget_padding);
-		ValueAnimator.AnimatorUpdateListener listener = animation -> {
+		FrameAnimation.UpdateListener listener = animation -> {
 			if (touchedButtonIndex == -1 || touchedButtonIndex >= buttonBounds.length) {
 				return;
 			}
-			calculateBounds(touchedButtonIndex, tmpRect);
+			touchScale = animation.getAnimatedValue();
+			if (renderNodes != null) {
+				// only node's scale is changed, nothing is recorded again
+				AnimationEngine.getInstance().invalidate(this);
+				return;
+			}
+			buttonsLayout.bounds(touchedButtonIndex, tmpRect);
 			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
-				invalidate();
+				AnimationEngine.getInstance().invalidate(this);
 				return;
 			}
 			Rect rect = buttonBounds[touchedButtonIndex];
-			float width = tmpRect.width() * (float) animation.getAnimatedValue() / 2;
-			float height = tmpRect.height() * (float) animation.getAnimatedValue() / 2;
+			float width = tmpRect.width() * animation.getAnimatedValue() / 2;
+			float height = tmpRect.height() * animation.getAnimatedValue() / 2;
 			int l = (int) (tmpRect.centerX() - width);
 			int r = (int) (tmpRect.centerX() + width);
 			int t = (int) (tmpRect.centerY() - height);
@@ -253,36 +321,44 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 			rect.set(l, t, r, b);
 			invalidate(rect);
 		};
-		touchDownAnimator = ValueAnimator.ofFloat(1, 0.9f).setDuration(Configuration.TOUCH_ANIMATION_DURATION);
-		touchDownAnimator.addUpdateListener(listener);
-		touchUpAnimator = ValueAnimator.ofFloat(0.9f, 1f).setDuration(Configuration.TOUCH_ANIMATION_DURATION);
-		touchUpAnimator.addUpdateListener(listener);
-		bubblesTouchAnimator = ValueAnimator.ofFloat(0, EXPAND_BUBBLES_END_F - EXPAND_BUBBLES_START_F)
-				.setDuration((long) (EXPAND_BUBBLES_END_F - EXPAND_BUBBLES_START_F));
-		bubblesTouchAnimator.setInterpolator(interpolator);
-		bubblesTouchAnimator.addUpdateListener(animation -> {
+		touchDownAnimator = new FrameAnimation(null).setFloatValues(1, 0.9f).setDuration(Configuration.TOUCH_ANIMATION_DURATION);
+		touchDownAnimator.setUpdateListener(listener);
+		touchUpAnimator = new FrameAnimation(null).setFloatValues(0.9f, 1f).setDuration(Configuration.TOUCH_ANIMATION_DURATION);
+		touchUpAnimator.setUpdateListener(listener);
+		bubblesTouchAnimator = new FrameAnimation(this).setDuration((long) (EXPAND_BUBBLES_END_F - EXPAND_BUBBLES_START_F));
+		bubblesTouchAnimator.setInterpolator(null);
+		bubblesTouchAnimator.setUpdateListener(animation -> {
 			bubblesTime = animation.getAnimatedFraction();
-			bubblesPaint.setAlpha((int) DrawableUtils.customFunction(bubblesTime, 0, 0, 255, 0.33f, 255, 0.66f, 0, 1f));
-			invalidate();
+			bubblesPaint.setAlpha((int) BUBBLES_ALPHA_CURVE.value(bubblesTime));
 		});
-		bubblesTouchAnimator.addListener(new AnimatorListenerAdapter() {
-			@Override
-			public void onAnimationStart(Animator animation) {
-				super.onAnimationStart(animation);
-			}
-
+		bubblesTouchAnimator.setListener(new FrameAnimation.Listener() {
 			@Override
-			public void onAnimationEnd(Animator animation) {
-				super.onAnimationEnd(animation);
-				bubblesTime = 0;
-			}
-
-			@Override
-			public void onAnimationCancel(Animator animation) {
-				super.onAnimationCancel(animation);
+			void onAnimationEnd(@NonNull FrameAnimation animation) {
 				bubblesTime = 0;
 			}
 		});
+		this.drawStats = new FrameStats(configuration.drawMetrics(), configuration.qualityController());
+		configuration.qualityController().addTarget(this);
+	}
+
+	@Override
+	public void onQualityChanged(@NonNull AudioWidget.Quality quality) {
+		bubbles.budget(QualityController.particlesBudget(quality, TOTAL_BUBBLES_COUNT, bubbles.capacity()));
+		shortExpand = quality.compareTo(AudioWidget.Quality.SHORT_ANIMATIONS) >= 0;
+		boolean shadowEnabled = quality.compareTo(AudioWidget.Quality.NO_SHADOW) < 0;
+		if (this.shadowEnabled == shadowEnabled) {
+			return;
+		}
+		this.shadowEnabled = shadowEnabled;
+		if (shadowEnabled) {
+			paint.setShadowLayer(shadowRadius, shadowDx, shadowDy, shadowColor);
+		} else {
+			paint.clearShadowLayer();
+		}
+		if (renderNodes != null) {
+			renderNodes.invalidateBackground();
+		}
+		invalidate();
 	}
 
 	@Override
@@ -294,22 +370,63 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 
 	@Override
 	protected void onDraw(@NonNull Canvas canvas) {
-		if (bubblesTime >= 0) {
-			int half = TOTAL_BUBBLES_COUNT / 2;
-			for (int i = 0; i < TOTAL_BUBBLES_COUNT; i++) {
-				float radius = bubbleSizes[i];
-				float speed = bubbleSpeeds[i] * bubblesTime;
-				float cx = bubblePositions[2 * i];
-				float cy = bubblePositions[2 * i + 1];
-				if (i < half)
-					cy *= (1 - speed);
-				else
-					cy *= (1 + speed);
-				canvas.drawCircle(cx, cy, radius, bubblesPaint);
+		long drawStart = drawStats.begin();
+		if (nextDrawAction != null) {
+			Runnable action = nextDrawAction;
+			nextDrawAction = null;
+			action.run();
+		}
+		if (renderNodes != null && canvas.isHardwareAccelerated()) {
+			drawRenderNodes(canvas, renderNodes);
+		} else {
+			if (bubblesTime >= 0) {
+				drawBubbles(canvas);
 			}
+			canvas.drawRoundRect(bounds, radius, radius, paint);
+			drawMediaButtons(canvas);
+		}
+		drawStats.end(drawStart);
+	}
+
+	/**
+	 * Get draw time statistics of view.
+	 */
+	@NonNull
+	FrameStats drawStats() {
+		return drawStats;
+	}
+
+	private void drawBubbles(@NonNull Canvas canvas) {
+		bubbles.draw(canvas, bubblesTime, bubblesPaint.getColor());
+	}
+
+	@RequiresApi(Build.VERSION_CODES.Q)
+	private void drawRenderNodes(@NonNull Canvas canvas, @NonNull ControlsRenderNodes renderNodes) {
+		int width = getWidth();
+		int height = getHeight();
+		if (bubblesTime >= 0 && bubblesPaint.getAlpha() > 0) {
+			drawBubbles(renderNodes.beginBubbles(width, height));
+			renderNodes.endBubbles(canvas);
+		}
+		renderNodes.drawBackground(canvas, width, height, bounds, radius, paint);
+		boolean playing = playbackState.state() == Configuration.STATE_PLAYING;
+		for (int i = 0; i < buttonBounds.length; i++) {
+			int index = i;
+			float translationX = 0;
+			float scale = elementsScale;
+			float alpha = elementsScale;
+			if (i == INDEX_PLAY) {
+				index = playing ? INDEX_PAUSE : INDEX_PLAY;
+				translationX = buttonBounds[INDEX_PLAY].left - expandedPlayBounds.left;
+				scale = 1;
+				alpha = 1;
+			}
+			if (i == touchedButtonIndex) {
+				scale *= touchScale;
+			}
+			buttonsLayout.bounds(i, tmpRect);
+			renderNodes.drawControl(canvas, index, drawables[index], tmpRect, translationX, scale, alpha);
 		}
-		canvas.drawRoundRect(bounds, radius, radius, paint);
-		drawMediaButtons(canvas);
 	}
 
 	private void drawMediaButtons(@NonNull Canvas canvas) {
@@ -329,162 +446,100 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 		}
 	}
 
-	private void updateExpandAnimation(long position) {
-		if (DrawableUtils.isBetween(position, 0, EXPAND_COLOR_END_F)) {
-			float t = DrawableUtils.normalize(position, 0, EXPAND_COLOR_END_F);
-			paint.setColor(colorChanger.nextColor(t));
-		}
-		if (DrawableUtils.isBetween(position, 0, EXPAND_SIZE_END_F)) {
-			float time = DrawableUtils.normalize(position, 0, EXPAND_SIZE_END_F);
-			time = accDecInterpolator.getInterpolation(time);
-			float l, r, t, b;
-			float height = radius * 2;
-			t = radius;
-			b = t + height;
-			if (expandDirection == DIRECTION_LEFT) {
-				r = widgetWidth;
-				l = r - height - (widgetWidth - height) * time;
-			} else {
-				l = 0;
-				r = l + height + (widgetWidth - height) * time;
-			}
-			bounds.set(l, t, r, b);
-		} else if (position > EXPAND_SIZE_END_F) {
-			if (expandDirection == DIRECTION_LEFT) {
-				bounds.left = 0;
-			} else {
-				bounds.right = widgetWidth;
-			}
-
-		}
-		if (DrawableUtils.isBetween(position, 0, EXPAND_POSITION_START_F)) {
-			if (expandDirection == DIRECTION_LEFT) {
-				calculateBounds(INDEX_ALBUM, buttonBounds[INDEX_PLAY]);
-			} else {
-				calculateBounds(INDEX_PLAYLIST, buttonBounds[INDEX_PLAY]);
-			}
-		}
-		if (DrawableUtils.isBetween(position, 0, EXPAND_ELEMENTS_START_F)) {
-			for (int i = 0; i < buttonBounds.length; i++) {
-				if (i != INDEX_PLAY) {
-					drawables[i].setAlpha(0);
-				}
-			}
-		}
-		if (DrawableUtils.isBetween(position, EXPAND_ELEMENTS_START_F, EXPAND_ELEMENTS_END_F)) {
-			float time = DrawableUtils.normalize(position, EXPAND_ELEMENTS_START_F, EXPAND_ELEMENTS_END_F);
-			expandCollapseElements(time);
-		}
-		if (DrawableUtils.isBetween(position, EXPAND_POSITION_START_F, EXPAND_POSITION_END_F)) {
-			float time = DrawableUtils.normalize(position, EXPAND_POSITION_START_F, EXPAND_POSITION_END_F);
-			time = accDecInterpolator.getInterpolation(time);
-			Rect playBounds = buttonBounds[INDEX_PLAY];
-			calculateBounds(INDEX_PLAY, playBounds);
-			int l, t, r, b;
-			t = playBounds.top;
-			b = playBounds.bottom;
-			if (expandDirection == DIRECTION_LEFT) {
-				calculateBounds(INDEX_ALBUM, tmpRect);
-				l = (int) DrawableUtils.reduce(tmpRect.left, playBounds.left, time);
-				r = l + playBounds.width();
-			} else {
-				calculateBounds(INDEX_PLAYLIST, tmpRect);
-				l = (int) DrawableUtils.enlarge(tmpRect.left, playBounds.left, time);
-				r = l + playBounds.width();
-			}
-			playBounds.set(l, t, r, b);
-		} else if (position >= EXPAND_POSITION_END_F) {
-			calculateBounds(INDEX_PLAY, buttonBounds[INDEX_PLAY]);
-		}
-		if (DrawableUtils.isBetween(position, EXPAND_BUBBLES_START_F, EXPAND_BUBBLES_END_F)) {
-			float time = DrawableUtils.normalize(position, EXPAND_BUBBLES_START_F, EXPAND_BUBBLES_END_F);
-			bubblesPaint.setAlpha((int) DrawableUtils.customFunction(time, 0, 0, 255, 0.33f, 255, 0.66f, 0, 1f));
+	/**
+	 * Apply baked timeline at position.
+	 * @param timeline expand or collapse timeline
+	 * @param position animation position
+	 * @param bubbles true to apply bubbles channels
+	 */
+	private void updateAnimation(@NonNull KeyframeTable timeline, float position, boolean bubbles) {
+		timeline.seek(position);
+		paint.setColor(timeline.color(animatingFromPlaying ? CHANNEL_COLOR_PLAYING : CHANNEL_COLOR_PAUSED));
+		bounds.set(timeline.value(CHANNEL_BACKGROUND_LEFT), radius, timeline.value(CHANNEL_BACKGROUND_RIGHT), radius * 3);
+		int playLeft = (int) timeline.value(CHANNEL_PLAY_LEFT);
+		buttonBounds[INDEX_PLAY].set(playLeft, expandedPlayBounds.top, playLeft + expandedPlayBounds.width(), expandedPlayBounds.bottom);
+		expandCollapseElements(timeline.value(CHANNEL_ELEMENTS));
+		if (bubbles) {
+			bubblesPaint.setAlpha((int) timeline.value(CHANNEL_BUBBLES_ALPHA));
+			bubblesTime = timeline.value(CHANNEL_BUBBLES_TIME);
+		}
+	}
+
+	private KeyframeTable expandTimeline(int direction) {
+		int index = direction == DIRECTION_LEFT ? 0 : 1;
+		if (expandTimelines[index] == null) {
+			ColorChanger fromPlaying = new ColorChanger(colorInterpolation).fromColor(playColor).toColor(widgetColor);
+			ColorChanger fromPaused = new ColorChanger(colorInterpolation).fromColor(pauseColor).toColor(widgetColor);
+			float startLeft = playStartLeft(direction);
+			expandTimelines[index] = new KeyframeTable(EXPAND_DURATION_F, keyframeStep, CHANNELS_COUNT, (position, keyframe, offset) -> {
+				float colorTime = DrawableUtils.normalize(position, 0, EXPAND_COLOR_END_F);
+				KeyframeTable.putColor(keyframe, offset + CHANNEL_COLOR_PLAYING, fromPlaying.nextColor(colorTime));
+				KeyframeTable.putColor(keyframe, offset + CHANNEL_COLOR_PAUSED, fromPaused.nextColor(colorTime));
+				float sizeTime = accDecInterpolator.getInterpolation(DrawableUtils.normalize(position, 0, EXPAND_SIZE_END_F));
+				putBackground(direction, sizeTime, keyframe, offset);
+				float positionTime = accDecInterpolator.getInterpolation(
+						DrawableUtils.normalize(position, EXPAND_POSITION_START_F, EXPAND_POSITION_END_F));
+				keyframe[offset + CHANNEL_PLAY_LEFT] = startLeft + (expandedPlayBounds.left - startLeft) * positionTime;
+				keyframe[offset + CHANNEL_ELEMENTS] = DrawableUtils.normalize(position, EXPAND_ELEMENTS_START_F, EXPAND_ELEMENTS_END_F);
+				float bubblesTime = DrawableUtils.normalize(position, EXPAND_BUBBLES_START_F, EXPAND_BUBBLES_END_F);
+				keyframe[offset + CHANNEL_BUBBLES_TIME] = bubblesTime;
+				keyframe[offset + CHANNEL_BUBBLES_ALPHA] = BUBBLES_ALPHA_CURVE.value(bubblesTime);
+			});
+		}
+		return expandTimelines[index];
+	}
+
+	private KeyframeTable collapseTimeline(int direction) {
+		int index = direction == DIRECTION_LEFT ? 0 : 1;
+		if (collapseTimelines[index] == null) {
+			ColorChanger toPlaying = new ColorChanger(colorInterpolation).fromColor(widgetColor).toColor(playColor);
+			ColorChanger toPaused = new ColorChanger(colorInterpolation).fromColor(widgetColor).toColor(pauseColor);
+			float endLeft = playStartLeft(direction);
+			collapseTimelines[index] = new KeyframeTable(COLLAPSE_DURATION_F, keyframeStep, CHANNELS_COUNT, (position, keyframe, offset) -> {
+				keyframe[offset + CHANNEL_ELEMENTS] = 1 - DrawableUtils.normalize(position, 0, COLLAPSE_ELEMENTS_END_F);
+				float positionTime = accDecInterpolator.getInterpolation(
+						DrawableUtils.normalize(position, COLLAPSE_POSITION_START_F, COLLAPSE_POSITION_END_F));
+				keyframe[offset + CHANNEL_PLAY_LEFT] = expandedPlayBounds.left + (endLeft - expandedPlayBounds.left) * positionTime;
+				float sizeTime = accDecInterpolator.getInterpolation(
+						DrawableUtils.normalize(position, COLLAPSE_SIZE_START_F, COLLAPSE_SIZE_END_F));
+				KeyframeTable.putColor(keyframe, offset + CHANNEL_COLOR_PLAYING, toPlaying.nextColor(sizeTime));
+				KeyframeTable.putColor(keyframe, offset + CHANNEL_COLOR_PAUSED, toPaused.nextColor(sizeTime));
+				putBackground(direction, 1 - sizeTime, keyframe, offset);
+			});
+		}
+		return collapseTimelines[index];
+	}
+
+	/**
+	 * Get left bound of play button in collapsed state: it's placed in album's slot when widget expands to the left
+	 * and in playlist's slot otherwise.
+	 */
+	private float playStartLeft(int direction) {
+		return buttonsLayout.left(direction == DIRECTION_LEFT ? INDEX_ALBUM : INDEX_PLAYLIST);
+	}
+
+	private void putBackground(int direction, float size, @NonNull float[] keyframe, int offset) {
+		float height = radius * 2;
+		float l, r;
+		if (direction == DIRECTION_LEFT) {
+			r = widgetWidth;
+			l = r - height - (widgetWidth - height) * size;
 		} else {
-			bubblesPaint.setAlpha(0);
-		}
-		if (DrawableUtils.isBetween(position, EXPAND_BUBBLES_START_F, EXPAND_BUBBLES_END_F)) {
-			bubblesTime = DrawableUtils.normalize(position, EXPAND_BUBBLES_START_F, EXPAND_BUBBLES_END_F);
-		}
-	}
-
-	private void calculateBounds(int index, Rect bounds) {
-		int padding = buttonPadding;
-		if (index == INDEX_PREV || index == INDEX_NEXT) {
-			padding += prevNextExtraPadding;
-		}
-		calculateBounds(index, bounds, padding);
-	}
-
-	private void calculateBounds(int index, Rect bounds, int padding) {
-		int l = (int) (index * sizeStep + padding);
-		int t = (int) (radius + padding);
-		int r = (int) ((index + 1) * sizeStep - padding);
-		int b = (int) (radius * 3 - padding);
-		bounds.set(l, t, r, b);
-	}
-
-	private void updateCollapseAnimation(long position) {
-		if (DrawableUtils.isBetween(position, 0, COLLAPSE_ELEMENTS_END_F)) {
-			float time = 1 - DrawableUtils.normalize(position, 0, COLLAPSE_ELEMENTS_END_F);
-			expandCollapseElements(time);
-		}
-		if (position > COLLAPSE_ELEMENTS_END_F) {
-			for (int i = 0; i < buttonBounds.length; i++) {
-				if (i != INDEX_PLAY) {
-					drawables[i].setAlpha(0);
-				}
-			}
-		}
-		if (DrawableUtils.isBetween(position, COLLAPSE_POSITION_START_F, COLLAPSE_POSITION_END_F)) {
-			float time = DrawableUtils.normalize(position, COLLAPSE_POSITION_START_F, COLLAPSE_POSITION_END_F);
-			time = accDecInterpolator.getInterpolation(time);
-			Rect playBounds = buttonBounds[INDEX_PLAY];
-			calculateBounds(INDEX_PLAY, playBounds);
-			int l, t, r, b;
-			t = playBounds.top;
-			b = playBounds.bottom;
-			if (expandDirection == DIRECTION_LEFT) {
-				calculateBounds(INDEX_ALBUM, tmpRect);
-				l = (int) DrawableUtils.enlarge(playBounds.left, tmpRect.left, time);
-				r = l + playBounds.width();
-			} else {
-				calculateBounds(INDEX_PLAYLIST, tmpRect);
-				l = (int) DrawableUtils.reduce(playBounds.left, tmpRect.left, time);
-				r = l + playBounds.width();
-			}
-			buttonBounds[INDEX_PLAY].set(l, t, r, b);
-		}
-		if (DrawableUtils.isBetween(position, COLLAPSE_SIZE_START_F, COLLAPSE_SIZE_END_F)) {
-			float time = DrawableUtils.normalize(position, COLLAPSE_SIZE_START_F, COLLAPSE_SIZE_END_F);
-			time = accDecInterpolator.getInterpolation(time);
-			paint.setColor(colorChanger.nextColor(time));
-			float l, r, t, b;
-			float height = radius * 2;
-			t = radius;
-			b = t + height;
-			if (expandDirection == DIRECTION_LEFT) {
-				r = widgetWidth;
-				l = r - height - (widgetWidth - height) * (1 - time);
-			} else {
-				l = 0;
-				r = l + height + (widgetWidth - height) * (1 - time);
-			}
-			bounds.set(l, t, r, b);
+			l = 0;
+			r = l + height + (widgetWidth - height) * size;
 		}
+		keyframe[offset + CHANNEL_BACKGROUND_LEFT] = l;
+		keyframe[offset + CHANNEL_BACKGROUND_RIGHT] = r;
 	}
 
 	private void expandCollapseElements(float time) {
+		elementsScale = time;
 		int alpha = (int) DrawableUtils.between(time * 255, 0, 255);
 		for (int i = 0; i < buttonBounds.length; i++) {
 			if (i != INDEX_PLAY) {
-				int padding = buttonPadding;
-				if (i == INDEX_PREV || i == INDEX_NEXT) {
-					padding += prevNextExtraPadding;
-				}
-				calculateBounds(i, buttonBounds[i]);
-				float size = time * (sizeStep / 2f - padding);
-				int cx = buttonBounds[i].centerX();
-				int cy = buttonBounds[i].centerY();
+				float size = time * buttonsLayout.halfSize(i);
+				int cx = buttonsLayout.centerX(i);
+				int cy = buttonsLayout.centerY(i);
 				buttonBounds[i].set((int) (cx - size), (int) (cy - size), (int) (cx + size), (int) (cy + size));
 				drawables[i].setAlpha(alpha);
 			}
@@ -494,7 +549,7 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 	public void onClick(float x, float y) {
 		if (isAnimationInProgress())
 			return;
-		int index = getTouchedAreaIndex((int) x, (int) y);
+		int index = buttonsLayout.hitTest(x, y);
 		if (index == INDEX_PLAY || index == INDEX_PREV || index == INDEX_NEXT) {
 			if (!bubblesTouchAnimator.isRunning()) {
 				randomizeBubblesPosition();
@@ -542,7 +597,7 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 	public void onLongClick(float x, float y) {
 		if (isAnimationInProgress())
 			return;
-		int index = getTouchedAreaIndex((int) x, (int) y);
+		int index = buttonsLayout.hitTest(x, y);
 		switch (index) {
 			case INDEX_PLAYLIST: {
 				if (onControlsClickListener != null) {
@@ -581,18 +636,6 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 		}
 	}
 
-	private int getTouchedAreaIndex(int x, int y) {
-		int index = -1;
-		for (int i = 0; i < buttonBounds.length; i++) {
-			calculateBounds(i, tmpRect, 0);
-			if (tmpRect.contains(x, y)) {
-				index = i;
-				break;
-			}
-		}
-		return index;
-	}
-
 	public void expand(int expandDirection) {
 		if (expanded) {
 			return;
@@ -605,34 +648,24 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 		if (isAnimationInProgress())
 			return;
 		animatingExpand = true;
-		if (playbackState.state() == Configuration.STATE_PLAYING) {
-			colorChanger
-					.fromColor(playColor)
-					.toColor(widgetColor);
-
-		} else {
-			colorChanger
-					.fromColor(pauseColor)
-					.toColor(widgetColor);
-		}
+		animatingFromPlaying = playbackState.state() == Configuration.STATE_PLAYING;
 		randomizeBubblesPosition();
+		expandAnimator.setDuration(shortExpand ? (long) (EXPAND_DURATION_F * SHORT_EXPAND_SCALE) : EXPAND_DURATION_L);
 		expandAnimator.start();
 	}
 
 	private void randomizeBubblesPosition() {
 		int half = TOTAL_BUBBLES_COUNT / 2;
 		float step = widgetWidth / half;
+		bubbles.burst(TOTAL_BUBBLES_COUNT);
 		for (int i = 0; i < TOTAL_BUBBLES_COUNT; i++) {
 			int index = i % half;
 			float speed = 0.3f + 0.7f * random.nextFloat();
 			float size = bubblesMinSize + (bubblesMaxSize - bubblesMinSize) * random.nextFloat();
-			float radius = size / 2f;
 			float cx = padding + index * step + step * random.nextFloat() * (random.nextBoolean() ? 1 : -1);
 			float cy = widgetHeight + padding;
-			bubbleSpeeds[i] = speed;
-			bubbleSizes[i] = radius;
-			bubblePositions[2 * i] = cx;
-			bubblePositions[2 * i + 1] = cy;
+			// first half of bubbles moves up, second half moves down
+			bubbles.emit(cx, cy, 0, i < half ? -1 : 1, cy * speed, size / 2f);
 		}
 	}
 
@@ -651,15 +684,10 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 		if (!expanded) {
 			return false;
 		}
-		if (playbackState.state() == Configuration.STATE_PLAYING) {
-			colorChanger
-					.fromColor(widgetColor)
-					.toColor(playColor);
-		} else {
-			colorChanger
-					.fromColor(widgetColor)
-					.toColor(pauseColor);
+		if (isAnimationInProgress()) {
+			return true;
 		}
+		animatingFromPlaying = playbackState.state() == Configuration.STATE_PLAYING;
 		startCollapseAnimation();
 		return true;
 	}
@@ -692,15 +720,23 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 	}
 
 	public void albumCover(@Nullable Drawable albumCover) {
-		if (drawables[INDEX_ALBUM] == albumCover)
+		if (albumCoverSource == albumCover)
 			return;
+		albumCoverSource = albumCover;
+		if (renderNodes != null) {
+			renderNodes.invalidateControl(INDEX_ALBUM);
+		}
 		if (albumCover == null) {
 			drawables[INDEX_ALBUM] = defaultAlbumCover;
+		} else if (albumCover.getConstantState() != null) {
+			Drawable copy = albumCoverCopies.get(albumCover);
+			if (copy == null) {
+				copy = albumCover.getConstantState().newDrawable().mutate();
+				albumCoverCopies.put(albumCover, copy);
+			}
+			drawables[INDEX_ALBUM] = copy;
 		} else {
-			if (albumCover.getConstantState() != null)
-				drawables[INDEX_ALBUM] = albumCover.getConstantState().newDrawable().mutate();
-			else
-				drawables[INDEX_ALBUM] = albumCover;
+			drawables[INDEX_ALBUM] = albumCover;
 		}
 		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.P) {
 			Rect bounds = buttonBounds[INDEX_ALBUM];
@@ -711,7 +747,7 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 	}
 
 	public void onTouched(float x, float y) {
-		int index = getTouchedAreaIndex((int) x, (int) y);
+		int index = buttonsLayout.hitTest(x, y);
 		if (index == INDEX_PLAY || index == INDEX_NEXT || index == INDEX_PREV) {
 			touchedButtonIndex = index;
 			touchDownAnimator.start();
@@ -719,7 +755,7 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 	}
 
 	public void onReleased(float x, float y) {
-		int index = getTouchedAreaIndex((int) x, (int) y);
+		int index = buttonsLayout.hitTest(x, y);
 		if (index == INDEX_PLAY || index == INDEX_NEXT || index == INDEX_PREV) {
 			touchedButtonIndex = index;
 			touchUpAnimator.start();
@@ -734,6 +770,14 @@ class ExpandCollapseWidget extends ImageView implements PlaybackState.PlaybackSt
 		this.collapseListener = collapseListener;
 	}
 
+	/**
+	 * Run action once at the start of next draw.
+	 * @param action action or null to drop pending one
+	 */
+	void runOnNextDraw(@Nullable Runnable action) {
+		nextDrawAction = action;
+	}
+
 	public void setExpandListener(@Nullable AnimationProgressListener expandListener) {
 		this.expandListener = expandListener;
 	}
@@ -0,0 +1,186 @@
+package com.cleveroad.audiowidget;
+
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Float animation ticked by {@link AnimationEngine}. Keeps its state in primitives,
+ * so no values are boxed on each frame.
+ * <p>
+ * Time is measured in nanoseconds of frame time, so animation is sampled at actual display
+ * frame rate. Duration is scaled by system animator duration scale when animation starts,
+ * zero scale makes animation jump to its end state.
+ */
+class FrameAnimation {
+
+	private static final Interpolator DEFAULT_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+	private final AnimationEngine engine;
+	@Nullable
+	private final View target;
+	@Nullable
+	private UpdateListener updateListener;
+	@Nullable
+	private Listener listener;
+	@Nullable
+	private Interpolator interpolator = DEFAULT_INTERPOLATOR;
+	private float fromValue;
+	private float toValue = 1f;
+	private float value;
+	private float fraction;
+	private long duration;
+	private long scaledDurationNanos;
+	private long startTimeNanos;
+	private float playTime;
+	private boolean running;
+
+	/**
+	 * Create new animation.
+	 * @param target view that must be invalidated on each frame or null if listener invalidates views itself
+	 */
+	FrameAnimation(@Nullable View target) {
+		this.engine = AnimationEngine.getInstance();
+		this.target = target;
+	}
+
+	FrameAnimation setFloatValues(float fromValue, float toValue) {
+		this.fromValue = fromValue;
+		this.toValue = toValue;
+		return this;
+	}
+
+	FrameAnimation setDuration(long duration) {
+		this.duration = duration;
+		return this;
+	}
+
+	FrameAnimation setInterpolator(@Nullable Interpolator interpolator) {
+		this.interpolator = interpolator;
+		return this;
+	}
+
+	FrameAnimation setUpdateListener(@Nullable UpdateListener updateListener) {
+		this.updateListener = updateListener;
+		return this;
+	}
+
+	FrameAnimation setListener(@Nullable Listener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * Start animation from the beginning. Running animation is restarted. Animation is registered
+	 * in engine only if it's still running after its first update.
+	 */
+	void start() {
+		running = true;
+		startTimeNanos = -1;
+		scaledDurationNanos = (long) (duration * 1_000_000L * engine.durationScale());
+		if (listener != null) {
+			listener.onAnimationStart(this);
+		}
+		update(0);
+		// listener may cancel animation on its first frame, cancelled one must not keep engine running
+		if (running) {
+			engine.add(this);
+		}
+	}
+
+	/**
+	 * Cancel animation. Listener receives both {@link Listener#onAnimationCancel(FrameAnimation)}
+	 * and {@link Listener#onAnimationEnd(FrameAnimation)}.
+	 */
+	void cancel() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		engine.remove(this);
+		if (listener != null) {
+			listener.onAnimationCancel(this);
+			listener.onAnimationEnd(this);
+		}
+	}
+
+	boolean isRunning() {
+		return running;
+	}
+
+	float getAnimatedValue() {
+		return value;
+	}
+
+	float getAnimatedFraction() {
+		return fraction;
+	}
+
+	/**
+	 * Get current play time, not affected by animator duration scale.
+	 * @return play time in milliseconds
+	 */
+	float getCurrentPlayTime() {
+		return playTime;
+	}
+
+	long getDuration() {
+		return duration;
+	}
+
+	void doFrame(long frameTimeNanos) {
+		if (startTimeNanos < 0) {
+			startTimeNanos = frameTimeNanos;
+		}
+		long time = Math.min(frameTimeNanos - startTimeNanos, scaledDurationNanos);
+		update(time);
+		if (time >= scaledDurationNanos && running) {
+			running = false;
+			engine.remove(this);
+			if (listener != null) {
+				listener.onAnimationEnd(this);
+			}
+		}
+	}
+
+	private void update(long timeNanos) {
+		fraction = scaledDurationNanos == 0 ? 1f : 1f * timeNanos / scaledDurationNanos;
+		playTime = fraction * duration;
+		float interpolated = interpolator == null ? fraction : interpolator.getInterpolation(fraction);
+		value = fromValue + (toValue - fromValue) * interpolated;
+		if (updateListener != null) {
+			updateListener.onAnimationUpdate(this);
+		}
+		if (target != null) {
+			engine.invalidate(target);
+		}
+	}
+
+	/**
+	 * Animation update listener. Called on each frame.
+	 */
+	interface UpdateListener {
+		void onAnimationUpdate(@NonNull FrameAnimation animation);
+	}
+
+	/**
+	 * Animation lifecycle listener.
+	 */
+	static class Listener {
+
+		void onAnimationStart(@NonNull FrameAnimation animation) {
+
+		}
+
+		void onAnimationEnd(@NonNull FrameAnimation animation) {
+
+		}
+
+		void onAnimationCancel(@NonNull FrameAnimation animation) {
+
+		}
+	}
+}
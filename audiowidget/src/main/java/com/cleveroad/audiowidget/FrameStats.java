@@ -0,0 +1,121 @@
+package com.cleveroad.audiowidget;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Draw time statistics of a view. View calls {@link #begin()} at the start of
+ * {@link android.view.View#onDraw(android.graphics.Canvas)} and {@link #end(long)} at its end.
+ * Disabled statistics don't read clock and record nothing.
+ * <p>
+ * Must be used from main thread only. Nothing is allocated while recording.
+ */
+class FrameStats {
+
+	/**
+	 * Default draw time budget, in nanoseconds. Quarter of 60 Hz frame, as widget shares frame with host app.
+	 */
+	static final long DEFAULT_BUDGET_NANOS = 16_666_667L / 4;
+
+	private final boolean enabled;
+	@Nullable
+	private final QualityController qualityController;
+	private long budgetNanos = DEFAULT_BUDGET_NANOS;
+	private int framesCount;
+	private int slowFramesCount;
+	private long totalNanos;
+	private long maxNanos;
+	private long lastNanos;
+
+	/**
+	 * Create new statistics.
+	 * @param enabled false to skip recording
+	 * @param qualityController controller notified about each recorded frame or null
+	 */
+	FrameStats(boolean enabled, @Nullable QualityController qualityController) {
+		this.enabled = enabled;
+		this.qualityController = qualityController;
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Start recording of frame.
+	 * @return frame start time to pass to {@link #end(long)}
+	 */
+	long begin() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Finish recording of frame.
+	 * @param startNanos value returned by {@link #begin()}
+	 */
+	void end(long startNanos) {
+		if (!enabled) {
+			return;
+		}
+		long duration = System.nanoTime() - startNanos;
+		framesCount++;
+		totalNanos += duration;
+		lastNanos = duration;
+		if (duration > maxNanos) {
+			maxNanos = duration;
+		}
+		if (duration > budgetNanos) {
+			slowFramesCount++;
+		}
+		if (qualityController != null) {
+			qualityController.onFrameDrawn(duration, budgetNanos);
+		}
+	}
+
+	/**
+	 * Set draw time budget. Frames drawn longer than budget are counted as slow.
+	 * @param budgetNanos budget in nanoseconds
+	 */
+	void budgetNanos(long budgetNanos) {
+		this.budgetNanos = budgetNanos;
+	}
+
+	long budgetNanos() {
+		return budgetNanos;
+	}
+
+	int framesCount() {
+		return framesCount;
+	}
+
+	int slowFramesCount() {
+		return slowFramesCount;
+	}
+
+	long totalNanos() {
+		return totalNanos;
+	}
+
+	long maxNanos() {
+		return maxNanos;
+	}
+
+	long lastNanos() {
+		return lastNanos;
+	}
+
+	/**
+	 * Get average draw time.
+	 * @return average draw time in nanoseconds or 0 if nothing was drawn yet
+	 */
+	long averageNanos() {
+		return framesCount == 0 ? 0 : totalNanos / framesCount;
+	}
+
+	void reset() {
+		framesCount = 0;
+		slowFramesCount = 0;
+		totalNanos = 0;
+		maxNanos = 0;
+		lastNanos = 0;
+	}
+}
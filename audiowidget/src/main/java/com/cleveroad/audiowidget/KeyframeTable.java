@@ -0,0 +1,132 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Color;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+/**
+ * Animation timeline baked into a table of keyframes. Each keyframe holds values of all channels
+ * at fixed time step, playback is a table lookup with linear interpolation between two keyframes.
+ * Positions are continuous, so timeline can be played at any frame rate.
+ * <p>
+ * Table is not thread safe: {@link #seek(float)} stores current position in the table itself.
+ */
+class KeyframeTable {
+
+	/**
+	 * Max time between two keyframes, in milliseconds.
+	 */
+	static final float MAX_KEYFRAME_STEP = 16f;
+
+	/**
+	 * Number of channels used by color value.
+	 */
+	static final int COLOR_CHANNELS = 4;
+
+	private final float[] keyframes;
+	private final int channels;
+	private final int keyframesCount;
+	private final float duration;
+	private final float step;
+	private int index;
+	private float fraction;
+
+	/**
+	 * Bake timeline.
+	 * @param duration timeline duration in milliseconds
+	 * @param step time between two keyframes in milliseconds, usually display frame interval
+	 * @param channels number of channels in one keyframe
+	 * @param sampler sampler called once for each keyframe
+	 */
+	KeyframeTable(float duration, float step, int channels, @NonNull Sampler sampler) {
+		this.duration = duration;
+		this.step = DrawableUtils.between(step, 1f, MAX_KEYFRAME_STEP);
+		this.channels = channels;
+		this.keyframesCount = (int) Math.ceil(duration / this.step) + 1;
+		this.keyframes = new float[keyframesCount * channels];
+		for (int i = 0; i < keyframesCount; i++) {
+			sampler.sample(keyframeTime(i), keyframes, i * channels);
+		}
+	}
+
+	private float keyframeTime(int index) {
+		return Math.min(index * step, duration);
+	}
+
+	/**
+	 * Move to position. Values of all channels are read at this position.
+	 * @param position position in milliseconds
+	 */
+	void seek(float position) {
+		if (position <= 0) {
+			index = 0;
+			fraction = 0;
+			return;
+		}
+		if (position >= duration) {
+			index = keyframesCount - 1;
+			fraction = 0;
+			return;
+		}
+		index = Math.min((int) (position / step), keyframesCount - 2);
+		float start = keyframeTime(index);
+		fraction = (position - start) / (keyframeTime(index + 1) - start);
+	}
+
+	/**
+	 * Get value of channel at current position.
+	 * @param channel channel index
+	 * @return interpolated value
+	 */
+	float value(int channel) {
+		int offset = index * channels + channel;
+		float value = keyframes[offset];
+		if (fraction == 0) {
+			return value;
+		}
+		return value + (keyframes[offset + channels] - value) * fraction;
+	}
+
+	/**
+	 * Get color value at current position.
+	 * @param channel index of first of {@link #COLOR_CHANNELS} channels written by {@link #putColor(float[], int, int)}
+	 * @return interpolated color
+	 */
+	@ColorInt
+	int color(int channel) {
+		return Color.argb(
+				Math.round(value(channel)),
+				Math.round(value(channel + 1)),
+				Math.round(value(channel + 2)),
+				Math.round(value(channel + 3))
+		);
+	}
+
+	/**
+	 * Write color to keyframe.
+	 * @param keyframe keyframe values
+	 * @param offset index of first channel
+	 * @param color color
+	 */
+	static void putColor(@NonNull float[] keyframe, int offset, @ColorInt int color) {
+		keyframe[offset] = Color.alpha(color);
+		keyframe[offset + 1] = Color.red(color);
+		keyframe[offset + 2] = Color.green(color);
+		keyframe[offset + 3] = Color.blue(color);
+	}
+
+	/**
+	 * Timeline sampler.
+	 */
+	interface Sampler {
+
+		/**
+		 * Calculate values of all channels at position.
+		 * @param position position in milliseconds
+		 * @param keyframe array to put values to
+		 * @param offset index of first channel in array
+		 */
+		void sample(float position, @NonNull float[] keyframe, int offset);
+	}
+}
@@ -0,0 +1,75 @@
+package com.cleveroad.audiowidget;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Copy-on-write array of listeners. Array is replaced on every add/remove and never modified in place,
+ * so dispatch iterates a stable snapshot without locking or allocating: listeners added or removed
+ * during dispatch take effect from the next one.
+ * <p>
+ * Adding and removing are synchronized, dispatch can run on any thread.
+ */
+final class ListenerArray<L> {
+
+	private static final Object[] NO_LISTENERS = new Object[0];
+
+	private volatile Object[] listeners = NO_LISTENERS;
+
+	/**
+	 * Add listener.
+	 * @return false if listener is already added
+	 */
+	synchronized boolean add(@NonNull L listener) {
+		Object[] current = listeners;
+		for (Object l : current) {
+			if (l == listener) {
+				return false;
+			}
+		}
+		Object[] newListeners = new Object[current.length + 1];
+		System.arraycopy(current, 0, newListeners, 0, current.length);
+		newListeners[current.length] = listener;
+		listeners = newListeners;
+		return true;
+	}
+
+	/**
+	 * Remove listener.
+	 * @return false if listener wasn't added
+	 */
+	synchronized boolean remove(@NonNull L listener) {
+		Object[] current = listeners;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == listener) {
+				Object[] newListeners = current.length == 1 ? NO_LISTENERS : new Object[current.length - 1];
+				System.arraycopy(current, 0, newListeners, 0, i);
+				System.arraycopy(current, i + 1, newListeners, i, current.length - i - 1);
+				listeners = newListeners;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	int size() {
+		return listeners.length;
+	}
+
+	/**
+	 * Deliver event to each listener, in order of adding.
+	 */
+	@SuppressWarnings("unchecked")
+	void dispatch(@NonNull Event<? super L> event) {
+		for (Object listener : listeners) {
+			event.dispatch((L) listener);
+		}
+	}
+
+	/**
+	 * Event delivered to listeners. Frequent events should reuse one instance to keep dispatch
+	 * allocation free.
+	 */
+	interface Event<L> {
+		void dispatch(@NonNull L listener);
+	}
+}
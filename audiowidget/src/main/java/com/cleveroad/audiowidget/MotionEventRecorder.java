@@ -0,0 +1,127 @@
+package com.cleveroad.audiowidget;
+
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records touch events received by widget's views into compact binary trace, so gestures can be replayed later.
+ * <p>
+ * Trace format, big-endian:
+ * <pre>
+ * header: int magic ('AWTR'), byte version
+ * event:  byte source, byte action, byte actionIndex, int time (ms since previous event),
+ *         float rawX, float rawY, byte pointerCount,
+ *         pointerCount * (byte pointerId, float x, float y), short historySize,
+ *         historySize * (int time (ms before event time), pointerCount * (float x, float y))
+ * </pre>
+ * Action is masked, index of pointer that went down or up is stored separately. Pointer x and y are local
+ * to view as received. Raw values are screen coordinates of first pointer only, raw coordinates of other
+ * pointers are not available before Android 10; they can be restored from local ones, as all pointers of
+ * event have the same offset.
+ * <p>
+ * Must be used from main thread only. Events are written into preallocated buffer, which grows only when it's full.
+ */
+class MotionEventRecorder {
+
+	static final int MAGIC = 0x41575452;
+	static final int VERSION = 2;
+
+	/**
+	 * Source of events: collapsed play/pause button.
+	 */
+	static final int SOURCE_COLLAPSED = 0;
+
+	/**
+	 * Source of events: expanded widget.
+	 */
+	static final int SOURCE_EXPANDED = 1;
+
+	private static final int INITIAL_CAPACITY = 16 * 1024;
+
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(INITIAL_CAPACITY);
+	private final DataOutputStream data = new DataOutputStream(buffer);
+	private boolean recording;
+	private long lastEventTime;
+	private int eventsCount;
+
+	/**
+	 * Start new trace. Previously recorded events are dropped.
+	 */
+	void start() {
+		buffer.reset();
+		eventsCount = 0;
+		lastEventTime = -1;
+		recording = true;
+		try {
+			data.writeInt(MAGIC);
+			data.writeByte(VERSION);
+		} catch (IOException e) {
+			// not thrown by in-memory stream
+		}
+	}
+
+	boolean isRecording() {
+		return recording;
+	}
+
+	int eventsCount() {
+		return eventsCount;
+	}
+
+	/**
+	 * Record event if recording is started.
+	 * @param source source of event
+	 * @param event event as received by view
+	 */
+	void record(int source, @NonNull MotionEvent event) {
+		if (!recording) {
+			return;
+		}
+		long eventTime = event.getEventTime();
+		int pointerCount = Math.min(event.getPointerCount(), Byte.MAX_VALUE);
+		int historySize = Math.min(event.getHistorySize(), Short.MAX_VALUE);
+		try {
+			data.writeByte(source);
+			data.writeByte(event.getActionMasked());
+			data.writeByte(event.getActionIndex());
+			data.writeInt(lastEventTime < 0 ? 0 : (int) (eventTime - lastEventTime));
+			data.writeFloat(event.getRawX());
+			data.writeFloat(event.getRawY());
+			data.writeByte(pointerCount);
+			for (int p = 0; p < pointerCount; p++) {
+				data.writeByte(event.getPointerId(p));
+				data.writeFloat(event.getX(p));
+				data.writeFloat(event.getY(p));
+			}
+			data.writeShort(historySize);
+			for (int i = 0; i < historySize; i++) {
+				data.writeInt((int) (eventTime - event.getHistoricalEventTime(i)));
+				for (int p = 0; p < pointerCount; p++) {
+					data.writeFloat(event.getHistoricalX(p, i));
+					data.writeFloat(event.getHistoricalY(p, i));
+				}
+			}
+		} catch (IOException e) {
+			// not thrown by in-memory stream
+		}
+		lastEventTime = eventTime;
+		eventsCount++;
+	}
+
+	/**
+	 * Stop recording and write trace.
+	 * @param out stream to write trace to, not closed by recorder
+	 * @throws IOException if trace can't be written
+	 */
+	void stop(@NonNull OutputStream out) throws IOException {
+		recording = false;
+		buffer.writeTo(out);
+		out.flush();
+	}
+}
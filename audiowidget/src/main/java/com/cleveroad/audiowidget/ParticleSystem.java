@@ -0,0 +1,209 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+/**
+ * Bubble particles moving along straight lines from their origins. Particles are stored
+ * in primitive arrays (one array per property) and drawn in batches: radii are quantized
+ * into a few buckets and each bucket is drawn with a single {@link Canvas#drawPoints(float[], int, int, Paint)} call.
+ * <p>
+ * Particles are emitted in bursts. When burst is larger than budget, particles are dropped evenly over the burst,
+ * so a burst keeps its shape with fewer particles.
+ * <p>
+ * Nothing is allocated after first draw.
+ */
+class ParticleSystem {
+
+	/**
+	 * Default max number of particles drawn per frame.
+	 */
+	static final int DEFAULT_BUDGET = 64;
+
+	/**
+	 * Max number of draw calls per frame.
+	 */
+	static final int SIZE_BUCKETS = 4;
+
+	private final float minRadius;
+	private final float maxRadius;
+	private Paint paint;
+	private final float[] originX;
+	private final float[] originY;
+	private final float[] directionX;
+	private final float[] directionY;
+	private final float[] distance;
+	private final int[] bucket;
+	private final int[] bucketCounts;
+	private final int[] bucketOffsets;
+	private final float[] points;
+	private int count;
+	private int budget;
+	private int burstSize;
+	private int burstIndex;
+
+	/**
+	 * Create new particle system.
+	 * @param minRadius min radius of particle
+	 * @param maxRadius max radius of particle
+	 * @param capacity max number of particles
+	 */
+	ParticleSystem(float minRadius, float maxRadius, int capacity) {
+		this.minRadius = minRadius;
+		this.maxRadius = Math.max(minRadius, maxRadius);
+		this.originX = new float[capacity];
+		this.originY = new float[capacity];
+		this.directionX = new float[capacity];
+		this.directionY = new float[capacity];
+		this.distance = new float[capacity];
+		this.bucket = new int[capacity];
+		this.bucketCounts = new int[SIZE_BUCKETS];
+		this.bucketOffsets = new int[SIZE_BUCKETS];
+		this.points = new float[capacity * 2];
+		this.budget = capacity;
+	}
+
+	/**
+	 * Set max number of particles drawn per frame. Particles emitted over the budget are dropped.
+	 * @param budget particles budget, can't be greater than capacity
+	 */
+	void budget(int budget) {
+		this.budget = DrawableUtils.between(budget, 0, originX.length);
+		if (count > this.budget) {
+			clear();
+		}
+	}
+
+	int budget() {
+		return budget;
+	}
+
+	int capacity() {
+		return originX.length;
+	}
+
+	int count() {
+		return count;
+	}
+
+	/**
+	 * Remove all particles.
+	 */
+	void clear() {
+		count = 0;
+		burstSize = 0;
+		burstIndex = 0;
+		for (int i = 0; i < SIZE_BUCKETS; i++) {
+			bucketCounts[i] = 0;
+		}
+	}
+
+	/**
+	 * Remove all particles and start new burst.
+	 * @param size number of particles that will be emitted in burst
+	 */
+	void burst(int size) {
+		clear();
+		burstSize = size;
+	}
+
+	/**
+	 * Emit new particle.
+	 * @param x origin x
+	 * @param y origin y
+	 * @param dx x of unit direction vector
+	 * @param dy y of unit direction vector
+	 * @param distance distance passed by particle at the end of animation
+	 * @param radius particle radius
+	 * @return false if particle is dropped to fit into budget, true otherwise
+	 */
+	boolean emit(float x, float y, float dx, float dy, float distance, float radius) {
+		if (burstSize > budget) {
+			// accept particle when its share of budget, index * budget / burstSize, reaches next integer
+			int index = burstIndex++;
+			if ((index + 1) * budget / burstSize == index * budget / burstSize) {
+				return false;
+			}
+		}
+		if (count >= budget) {
+			return false;
+		}
+		int b = 0;
+		if (maxRadius > minRadius) {
+			b = (int) ((radius - minRadius) / (maxRadius - minRadius) * SIZE_BUCKETS);
+			b = DrawableUtils.between(b, 0, SIZE_BUCKETS - 1);
+		}
+		originX[count] = x;
+		originY[count] = y;
+		directionX[count] = dx;
+		directionY[count] = dy;
+		this.distance[count] = distance;
+		bucket[count] = b;
+		bucketCounts[b]++;
+		count++;
+		return true;
+	}
+
+	/**
+	 * Draw particles.
+	 * @param canvas canvas
+	 * @param progress animation progress, <code>0..1</code>
+	 * @param color color of particles
+	 */
+	void draw(@NonNull Canvas canvas, float progress, @ColorInt int color) {
+		if (count == 0 || (color >>> 24) == 0) {
+			return;
+		}
+		update(progress);
+		if (paint == null) {
+			paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			paint.setStyle(Paint.Style.STROKE);
+			paint.setStrokeCap(Paint.Cap.ROUND);
+		}
+		paint.setColor(color);
+		int offset = 0;
+		for (int b = 0; b < SIZE_BUCKETS; b++) {
+			int bucketCount = bucketCounts[b];
+			if (bucketCount > 0) {
+				paint.setStrokeWidth(2 * bucketRadius(b));
+				canvas.drawPoints(points, offset * 2, bucketCount * 2, paint);
+				offset += bucketCount;
+			}
+		}
+	}
+
+	/**
+	 * Compute positions of particles. Positions are grouped by size buckets.
+	 * @param progress animation progress, <code>0..1</code>
+	 * @see #points()
+	 */
+	void update(float progress) {
+		int offset = 0;
+		for (int b = 0; b < SIZE_BUCKETS; b++) {
+			bucketOffsets[b] = offset;
+			offset += bucketCounts[b];
+		}
+		// group particles by buckets, so each bucket is a continuous range of points
+		for (int i = 0; i < count; i++) {
+			float d = distance[i] * progress;
+			int index = bucketOffsets[bucket[i]]++;
+			points[2 * index] = originX[i] + directionX[i] * d;
+			points[2 * index + 1] = originY[i] + directionY[i] * d;
+		}
+	}
+
+	/**
+	 * Get positions computed by last {@link #update(float)}: x and y of each of {@link #count()} particles.
+	 */
+	@NonNull
+	float[] points() {
+		return points;
+	}
+
+	private float bucketRadius(int bucket) {
+		return minRadius + (maxRadius - minRadius) * (bucket + 0.5f) / SIZE_BUCKETS;
+	}
+}
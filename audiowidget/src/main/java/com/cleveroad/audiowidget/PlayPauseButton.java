@@ -1,33 +1,32 @@
 package com.cleveroad.audiowidget;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
 import android.annotation.SuppressLint;
 import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.RectF;
+import android.graphics.Shader;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.AsyncTask;
-import android.view.animation.LinearInterpolator;
 import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.palette.graphics.Palette;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.WeakHashMap;
 
 /**
  * Collapsed state view.
  */
 @SuppressLint({"ViewConstructor", "AppCompatCustomView"})
-class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateListener {
+class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateListener, QualityController.Target {
 
 	private static final float BUBBLES_ANGLE_STEP = 18.0f;
 	private static final float ANIMATION_TIME_F = 8 * Configuration.FRAME_SPEED;
@@ -35,9 +34,22 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 	private static final float COLOR_ANIMATION_TIME_F = ANIMATION_TIME_F / 4f;
 	private static final float COLOR_ANIMATION_TIME_START_F = (ANIMATION_TIME_F - COLOR_ANIMATION_TIME_F) / 2;
 	private static final float COLOR_ANIMATION_TIME_END_F = COLOR_ANIMATION_TIME_START_F + COLOR_ANIMATION_TIME_F;
+	private static final Curve BUBBLES_ALPHA_CURVE = Curve.of(0, 0, 0, 0.3f, 255, 0.5f, 225, 0.7f, 0, 1f);
 	private static final int TOTAL_BUBBLES_COUNT = (int) (360 / BUBBLES_ANGLE_STEP);
+	/**
+	 * Unit vectors of bubbles directions: up vector rotated clockwise by {@link #BUBBLES_ANGLE_STEP} for each bubble.
+	 */
+	private static final float[] BUBBLE_DIRECTIONS = new float[TOTAL_BUBBLES_COUNT * 2];
+
+	static {
+		for (int i = 0; i < TOTAL_BUBBLES_COUNT; i++) {
+			double angle = Math.toRadians(BUBBLES_ANGLE_STEP * i);
+			BUBBLE_DIRECTIONS[2 * i] = (float) Math.sin(angle);
+			BUBBLE_DIRECTIONS[2 * i + 1] = (float) -Math.cos(angle);
+		}
+	}
 	static final long PROGRESS_CHANGES_DURATION = (long) (6 * Configuration.FRAME_SPEED);
-    private static final long PROGRESS_STEP_DURATION = (long) (3 * Configuration.FRAME_SPEED);
+    private static final long PROGRESS_MIN_TICK_DURATION = 16;
 	private static final int ALBUM_COVER_PLACEHOLDER_ALPHA = 100;
 
 	private final Paint albumPlaceholderPaint;
@@ -46,9 +58,7 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 	private final Paint progressPaint;
 	private final int pausedColor;
 	private final int playingColor;
-	private final float[] bubbleSizes;
-	private final float[] bubbleSpeeds;
-	private final float[] bubbleSpeedCoefficients;
+	private final ParticleSystem bubbles;
 	private final Random random;
 	private final ColorChanger colorChanger;
 	private final Drawable playDrawable;
@@ -56,43 +66,76 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 	private final RectF bounds;
 	private final float radius;
 	private final PlaybackState playbackState;
-	private final ValueAnimator touchDownAnimator;
-	private final ValueAnimator touchUpAnimator;
-	private final ValueAnimator bubblesAnimator;
-	private final ValueAnimator progressAnimator;
+	private final FrameAnimation touchDownAnimator;
+	private final FrameAnimation touchUpAnimator;
+	private final FrameAnimation bubblesAnimator;
+	private final FrameAnimation progressAnimator;
     private final float buttonPadding;
     private final float bubblesMinSize;
     private final float bubblesMaxSize;
-    private final Map<Integer, Boolean> isNeedToFillAlbumCoverMap = new HashMap<>();
+    /**
+     * Covers already clipped to circle. Entries live as long as cover drawable itself
+     * (for example while it's kept in album cover cache).
+     */
+    private final Map<Drawable, PreparedAlbumCover> preparedAlbumCovers = new WeakHashMap<>();
+	@Nullable
+	private final Bitmap shadowBitmap;
+	private final Paint shadowPaint;
+	private final float shadowRadius;
+	private final float shadowDx;
+	private final float shadowDy;
+	private final int shadowColor;
+	private boolean shadowEnabled = true;
 
 	private boolean animatingBubbles;
-	private float randomStartAngle;
+	private float bubblesProgress;
 	private float buttonSize = 1.0f;
-	private float progress = 0.0f;
 	private float animatedProgress = 0;
-	private boolean progressChangesEnabled;
+	private boolean progressChangesEnabled = true;
+	private final Runnable progressTicker = this::invalidate;
+	private final FrameStats drawStats;
 
 	@Nullable
 	private Drawable albumCover;
+	/**
+	 * Album cover clipped to circle, scaled to button size and tinted. Prepared once per cover.
+	 */
+	@Nullable
+	private Bitmap albumCoverBitmap;
+	private final Paint albumCoverPaint;
+	private final Matrix albumCoverMatrix;
     @Nullable
     private AsyncTask lastPaletteAsyncTask;
     private final float hsvArray[] = new float[3];
 
     public PlayPauseButton(@NonNull Configuration configuration) {
 		super(configuration.context());
-		setLayerType(LAYER_TYPE_SOFTWARE, null);
 		this.playbackState = configuration.playbackState();
 		this.random = configuration.random();
 		this.buttonPaint = new Paint();
 		this.buttonPaint.setColor(configuration.lightColor());
 		this.buttonPaint.setStyle(Paint.Style.FILL);
 		this.buttonPaint.setAntiAlias(true);
-		this.buttonPaint.setShadowLayer(
-                configuration.shadowRadius(),
-                configuration.shadowDx(),
-                configuration.shadowDy(),
-                configuration.shadowColor()
-        );
+		this.shadowPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+		this.shadowRadius = configuration.shadowRadius();
+		this.shadowDx = configuration.shadowDx();
+		this.shadowDy = configuration.shadowDy();
+		this.shadowColor = configuration.shadowColor();
+		if (configuration.renderMode() == AudioWidget.RenderMode.HARDWARE) {
+			// shadow layer of shapes isn't supported by hardware canvas below API 28, draw pre-rendered shadow instead
+			this.shadowBitmap = ShadowCache.circleShadow(
+					configuration.radius(),
+					shadowRadius,
+					shadowDx,
+					shadowDy,
+					shadowColor
+			);
+		} else {
+			this.shadowBitmap = null;
+			setLayerType(LAYER_TYPE_SOFTWARE, null);
+			this.buttonPaint.setShadowLayer(shadowRadius, shadowDx, shadowDy, shadowColor);
+		}
+		this.drawStats = new FrameStats(configuration.drawMetrics(), configuration.qualityController());
         this.bubblesMinSize = configuration.bubblesMinSize();
         this.bubblesMaxSize = configuration.bubblesMaxSize();
 		this.bubblesPaint = new Paint();
@@ -107,60 +150,72 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 		this.albumPlaceholderPaint.setColor(configuration.lightColor());
 		this.albumPlaceholderPaint.setAntiAlias(true);
 		this.albumPlaceholderPaint.setAlpha(ALBUM_COVER_PLACEHOLDER_ALPHA);
+		this.albumCoverPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+		this.albumCoverMatrix = new Matrix();
 		this.pausedColor = configuration.lightColor();
 		this.playingColor = configuration.darkColor();
 		this.radius = configuration.radius();
         this.buttonPadding = configuration.buttonPadding();
         this.bounds = new RectF();
-		this.bubbleSizes = new float[TOTAL_BUBBLES_COUNT];
-		this.bubbleSpeeds = new float[TOTAL_BUBBLES_COUNT];
-		this.bubbleSpeedCoefficients = new float[TOTAL_BUBBLES_COUNT];
-		this.colorChanger = new ColorChanger();
+		this.bubbles = new ParticleSystem(bubblesMinSize / 2f, bubblesMaxSize / 2f, configuration.particlesBudget());
+		this.colorChanger = new ColorChanger(configuration.colorInterpolation());
 		this.playDrawable = configuration.playDrawable().getConstantState().newDrawable().mutate();
 		this.pauseDrawable = configuration.pauseDrawable().getConstantState().newDrawable().mutate();
 		this.pauseDrawable.setAlpha(0);
 		this.playbackState.addPlaybackStateListener(this);
-		final ValueAnimator.AnimatorUpdateListener listener = animation -> {
-			buttonSize = (float) animation.getAnimatedValue();
-			invalidate();
-		};
-		this.touchDownAnimator = ValueAnimator.ofFloat(1, 0.9f).setDuration(Configuration.TOUCH_ANIMATION_DURATION);
-		this.touchDownAnimator.addUpdateListener(listener);
-		this.touchUpAnimator = ValueAnimator.ofFloat(0.9f, 1).setDuration(Configuration.TOUCH_ANIMATION_DURATION);
-		this.touchUpAnimator.addUpdateListener(listener);
-		this.bubblesAnimator = ValueAnimator.ofInt(0, (int)ANIMATION_TIME_L).setDuration(ANIMATION_TIME_L);
-        this.bubblesAnimator.setInterpolator(new LinearInterpolator());
-		this.bubblesAnimator.addUpdateListener(animation -> {
-			long position = animation.getCurrentPlayTime();
+		final FrameAnimation.UpdateListener listener = animation -> buttonSize = animation.getAnimatedValue();
+		this.touchDownAnimator = new FrameAnimation(this).setFloatValues(1, 0.9f).setDuration(Configuration.TOUCH_ANIMATION_DURATION);
+		this.touchDownAnimator.setUpdateListener(listener);
+		this.touchUpAnimator = new FrameAnimation(this).setFloatValues(0.9f, 1).setDuration(Configuration.TOUCH_ANIMATION_DURATION);
+		this.touchUpAnimator.setUpdateListener(listener);
+		this.bubblesAnimator = new FrameAnimation(this).setDuration(ANIMATION_TIME_L);
+		this.bubblesAnimator.setInterpolator(null);
+		this.bubblesAnimator.setUpdateListener(animation -> {
+			float position = animation.getCurrentPlayTime();
 			float fraction = animation.getAnimatedFraction();
 			updateBubblesPosition(position, fraction);
-			invalidate();
 		});
-		this.bubblesAnimator.addListener(new AnimatorListenerAdapter() {
+		this.bubblesAnimator.setListener(new FrameAnimation.Listener() {
 
 			@Override
-			public void onAnimationStart(Animator animation) {
-				super.onAnimationStart(animation);
+			void onAnimationStart(@NonNull FrameAnimation animation) {
 				animatingBubbles = true;
 			}
 
 			@Override
-			public void onAnimationEnd(Animator animation) {
-				super.onAnimationEnd(animation);
+			void onAnimationEnd(@NonNull FrameAnimation animation) {
 				animatingBubbles = false;
 			}
+		});
+		this.progressAnimator = new FrameAnimation(this);
+		this.progressAnimator.setUpdateListener(animation -> animatedProgress = animation.getAnimatedValue());
+		this.progressAnimator.setListener(new FrameAnimation.Listener() {
 
 			@Override
-			public void onAnimationCancel(Animator animation) {
-				super.onAnimationCancel(animation);
-				animatingBubbles = false;
+			void onAnimationEnd(@NonNull FrameAnimation animation) {
+				// switch back to extrapolated progress
+				invalidate();
 			}
 		});
-		this.progressAnimator = new ValueAnimator();
-		this.progressAnimator.addUpdateListener(animation -> {
-			animatedProgress = (float) animation.getAnimatedValue();
-			invalidate();
-		});
+		configuration.qualityController().addTarget(this);
+	}
+
+	@Override
+	public void onQualityChanged(@NonNull AudioWidget.Quality quality) {
+		bubbles.budget(QualityController.particlesBudget(quality, TOTAL_BUBBLES_COUNT, bubbles.capacity()));
+		boolean shadowEnabled = quality.compareTo(AudioWidget.Quality.NO_SHADOW) < 0;
+		if (this.shadowEnabled == shadowEnabled) {
+			return;
+		}
+		this.shadowEnabled = shadowEnabled;
+		if (shadowBitmap == null) {
+			if (shadowEnabled) {
+				buttonPaint.setShadowLayer(shadowRadius, shadowDx, shadowDy, shadowColor);
+			} else {
+				buttonPaint.clearShadowLayer();
+			}
+		}
+		invalidate();
 	}
 
 	@Override
@@ -169,8 +224,8 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 		super.onMeasure(size , size);
 	}
 
-	private void updateBubblesPosition(long position, float fraction) {
-		int alpha = (int) DrawableUtils.customFunction(fraction, 0, 0, 0, 0.3f, 255, 0.5f, 225, 0.7f, 0, 1f);
+	private void updateBubblesPosition(float position, float fraction) {
+		int alpha = (int) BUBBLES_ALPHA_CURVE.value(fraction);
 		bubblesPaint.setAlpha(alpha);
 		if (DrawableUtils.isBetween(position, COLOR_ANIMATION_TIME_START_F, COLOR_ANIMATION_TIME_END_F)) {
 			float colorDt = DrawableUtils.normalize(position, COLOR_ANIMATION_TIME_START_F, COLOR_ANIMATION_TIME_END_F);
@@ -183,9 +238,7 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 				pauseDrawable.setAlpha((int) DrawableUtils.between(255 * (1 - colorDt), 0, 255));
 			}
 		}
-		for (int i=0; i<TOTAL_BUBBLES_COUNT; i++) {
-			bubbleSpeeds[i] = fraction * bubbleSpeedCoefficients[i];
-		}
+		bubblesProgress = fraction;
 	}
 
 	public void onClick() {
@@ -207,14 +260,21 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 	}
 
 	private void startBubblesAnimation() {
-		randomStartAngle = 360 * random.nextFloat();
-		for (int i=0; i<TOTAL_BUBBLES_COUNT; i++) {
+		// rotate precomputed directions by random angle once per burst instead of on each frame
+		double startAngle = Math.toRadians(360 * random.nextFloat());
+		float sin = (float) Math.sin(startAngle);
+		float cos = (float) Math.cos(startAngle);
+		float cx = getWidth() >> 1;
+		float cy = getHeight() >> 1;
+		bubbles.burst(TOTAL_BUBBLES_COUNT);
+		for (int i = 0; i < TOTAL_BUBBLES_COUNT; i++) {
 			float speed = 0.5f + 0.5f * random.nextFloat();
 			float size = bubblesMinSize + (bubblesMaxSize - bubblesMinSize) * random.nextFloat();
-			float radius = size / 2f;
-			bubbleSizes[i] = radius;
-			bubbleSpeedCoefficients[i] = speed;
+			float dx = BUBBLE_DIRECTIONS[2 * i];
+			float dy = BUBBLE_DIRECTIONS[2 * i + 1];
+			bubbles.emit(cx, cy, dx * cos - dy * sin, dx * sin + dy * cos, cy * speed, size / 2f);
 		}
+		bubblesProgress = 0;
 		bubblesAnimator.start();
 	}
 
@@ -232,17 +292,12 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 
 	@Override
 	public void onDraw(@NonNull Canvas canvas) {
+		long drawStart = drawStats.begin();
 		float cx = getWidth() >> 1;
 		float cy = getHeight() >> 1;
 		canvas.scale(buttonSize, buttonSize, cx, cy);
 		if (animatingBubbles) {
-			for (int i = 0; i < TOTAL_BUBBLES_COUNT; i++) {
-				float angle = randomStartAngle + BUBBLES_ANGLE_STEP * i;
-				float speed = bubbleSpeeds[i];
-				float x = DrawableUtils.rotateX(cx, cy * (1 - speed), cx, cy, angle);
-				float y = DrawableUtils.rotateY(cx, cy * (1 - speed), cx, cy, angle);
-				canvas.drawCircle(x, y, bubbleSizes[i], bubblesPaint);
-			}
+			bubbles.draw(canvas, bubblesProgress, bubblesPaint.getColor());
 		} else if (playbackState.state() != Configuration.STATE_PLAYING) {
 			playDrawable.setAlpha(255);
 			pauseDrawable.setAlpha(0);
@@ -259,20 +314,26 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
             }
 		}
 
+		if (shadowBitmap != null && shadowEnabled) {
+			canvas.drawBitmap(shadowBitmap, cx - shadowBitmap.getWidth() / 2f, cy - shadowBitmap.getHeight() / 2f, shadowPaint);
+		}
         canvas.drawCircle(cx, cy, radius, buttonPaint);
-        if(albumCover != null) {
-            canvas.drawCircle(cx, cy, radius, buttonPaint);
-            albumCover.setBounds((int) (cx - radius), (int) (cy - radius), (int) (cx + radius), (int) (cy + radius));
-            albumCover.draw(canvas);
-			Boolean isNeedToFillAlbumCover = isNeedToFillAlbumCoverMap.get(albumCover.hashCode());
-			if(isNeedToFillAlbumCover != null && isNeedToFillAlbumCover) {
-				canvas.drawCircle(cx, cy, radius, albumPlaceholderPaint);
-			}
+        if(albumCoverBitmap != null) {
+            canvas.drawBitmap(albumCoverBitmap, cx - radius, cy - radius, albumCoverPaint);
         }
 
 		float padding = progressPaint.getStrokeWidth() / 2f;
 		bounds.set(cx - radius + padding, cy - radius + padding, cx + radius - padding, cy + radius - padding);
-		canvas.drawArc(bounds, -90, animatedProgress, false, progressPaint);
+		float sweepAngle;
+		if (progressAnimator.isRunning()) {
+			sweepAngle = animatedProgress;
+		} else if (progressChangesEnabled) {
+			sweepAngle = playbackState.progress() * 360;
+			scheduleProgressTick();
+		} else {
+			sweepAngle = 0;
+		}
+		canvas.drawArc(bounds, -90, sweepAngle, false, progressPaint);
 
 		int l = (int) (cx - radius + buttonPadding);
 		int t = (int) (cy - radius + buttonPadding);
@@ -286,6 +347,15 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 			pauseDrawable.setBounds(l, t, r, b);
 			pauseDrawable.draw(canvas);
 		}
+		drawStats.end(drawStart);
+	}
+
+	/**
+	 * Get draw time statistics of view.
+	 */
+	@NonNull
+	FrameStats drawStats() {
+		return drawStats;
 	}
 
     @Override
@@ -306,19 +376,29 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 
 	@Override
 	public void onProgressChanged(int position, int duration, float percentage) {
-		if (percentage > progress) {
-            float old = progress;
-            post(() -> {
-                if (animateProgressChanges(old * 360, percentage * 360, PROGRESS_STEP_DURATION)) {
-                    progress = percentage;
-                }
-            });
-        } else {
-            this.progress = percentage;
-            this.animatedProgress = percentage * 360;
-            postInvalidate();
-        }
+		invalidate();
+	}
 
+	/**
+	 * Schedule next redraw of progress while playing. Progress is extrapolated from last reported position,
+	 * so view is redrawn only when arc grows approximately by one pixel.
+	 */
+	private void scheduleProgressTick() {
+		removeCallbacks(progressTicker);
+		int duration = playbackState.duration();
+		float speed = playbackState.speed();
+		if (playbackState.state() != Configuration.STATE_PLAYING || duration <= 0 || speed <= 0) {
+			return;
+		}
+		float circumference = (float) (2 * Math.PI * radius);
+		long delay = Math.max(PROGRESS_MIN_TICK_DURATION, (long) (duration / (circumference * speed)));
+		postDelayed(progressTicker, delay);
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		removeCallbacks(progressTicker);
 	}
 
 	public void enableProgressChanges(boolean enable) {
@@ -326,9 +406,9 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 			return;
 		progressChangesEnabled = enable;
 		if (progressChangesEnabled) {
-			animateProgressChangesForce(0, progress * 360, PROGRESS_CHANGES_DURATION);
+			animateProgressChangesForce(0, playbackState.progress() * 360, PROGRESS_CHANGES_DURATION);
 		} else {
-			animateProgressChangesForce(progress * 360, 0, PROGRESS_CHANGES_DURATION);
+			animateProgressChangesForce(playbackState.progress() * 360, 0, PROGRESS_CHANGES_DURATION);
 		}
 	}
 
@@ -336,18 +416,10 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
         if (progressAnimator.isRunning()) {
             progressAnimator.cancel();
         }
-        animateProgressChanges(oldValue, newValue, duration);
-    }
-
-	private boolean animateProgressChanges(float oldValue, float newValue, long duration) {
-		if (progressAnimator.isRunning()) {
-			return false;
-		}
 		progressAnimator.setFloatValues(oldValue, newValue);
 		progressAnimator.setDuration(duration);
 		progressAnimator.start();
-        return true;
-	}
+    }
 
     public TouchManager.BoundsChecker newBoundsChecker(int offsetX, int offsetY) {
         return new BoundsCheckerImpl(radius, offsetX, offsetY);
@@ -356,18 +428,31 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
 	public void albumCover(Drawable newAlbumCover) {
         if(this.albumCover == newAlbumCover) return;
         this.albumCover = newAlbumCover;
+        PreparedAlbumCover prepared = newAlbumCover == null ? null : preparedAlbumCovers.get(newAlbumCover);
+        if (prepared == null && newAlbumCover != null) {
+            prepared = new PreparedAlbumCover();
+            prepared.bitmap = prepareAlbumCover(newAlbumCover, false);
+            preparedAlbumCovers.put(newAlbumCover, prepared);
+        }
+        this.albumCoverBitmap = prepared == null ? null : prepared.bitmap;
 
-        if(albumCover instanceof BitmapDrawable && !isNeedToFillAlbumCoverMap.containsKey(albumCover.hashCode())) {
+        if(albumCover instanceof BitmapDrawable && !prepared.paletteChecked) {
             Bitmap bitmap = ((BitmapDrawable) albumCover).getBitmap();
             if(bitmap != null && !bitmap.isRecycled()) {
                 if(lastPaletteAsyncTask != null && !lastPaletteAsyncTask.isCancelled()) {
                     lastPaletteAsyncTask.cancel(true);
                 }
+                Drawable cover = albumCover;
+                PreparedAlbumCover preparedCover = prepared;
                 lastPaletteAsyncTask = Palette.from(bitmap).generate(palette -> {
                     int dominantColor = palette.getDominantColor(Integer.MAX_VALUE);
                     if(dominantColor != Integer.MAX_VALUE) {
 						Color.colorToHSV(dominantColor, hsvArray);
-						isNeedToFillAlbumCoverMap.put(albumCover.hashCode(), hsvArray[2] > 0.65f);
+						preparedCover.paletteChecked = true;
+						preparedCover.bitmap = prepareAlbumCover(cover, hsvArray[2] > 0.65f);
+						if (cover == albumCover) {
+							albumCoverBitmap = preparedCover.bitmap;
+						}
                         postInvalidate();
                     }
                 });
@@ -376,6 +461,56 @@ class PlayPauseButton extends ImageView implements PlaybackState.PlaybackStateLi
         postInvalidate();
 	}
 
+	/**
+	 * Clip album cover to circle, scale it to button size and apply placeholder tint for bright covers.
+	 * @param cover album cover
+	 * @param fillPlaceholder true to tint bright cover with placeholder color
+	 * @return bitmap ready to be drawn or null if there is no cover
+	 */
+	@Nullable
+	private Bitmap prepareAlbumCover(@Nullable Drawable cover, boolean fillPlaceholder) {
+		int size = (int) (radius * 2);
+		if (cover == null || size <= 0) {
+			return null;
+		}
+		Bitmap source;
+		if (cover instanceof BitmapDrawable && ((BitmapDrawable) cover).getBitmap() != null
+				&& !((BitmapDrawable) cover).getBitmap().isRecycled()) {
+			source = ((BitmapDrawable) cover).getBitmap();
+		} else {
+			source = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+			Canvas sourceCanvas = new Canvas(source);
+			cover.setBounds(0, 0, size, size);
+			cover.draw(sourceCanvas);
+		}
+		BitmapShader shader = new BitmapShader(source, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+		albumCoverMatrix.setScale(1f * size / source.getWidth(), 1f * size / source.getHeight());
+		shader.setLocalMatrix(albumCoverMatrix);
+		albumCoverPaint.setShader(shader);
+		Bitmap result = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+		Canvas canvas = new Canvas(result);
+		float r = size / 2f;
+		canvas.drawCircle(r, r, r, albumCoverPaint);
+		albumCoverPaint.setShader(null);
+		if (fillPlaceholder) {
+			canvas.drawCircle(r, r, r, albumPlaceholderPaint);
+		}
+		return result;
+	}
+
+	/**
+	 * Album cover clipped to circle and result of its palette check.
+	 */
+	private static final class PreparedAlbumCover {
+
+		@Nullable
+		Bitmap bitmap;
+		/**
+		 * True when cover's dominant color is known and bitmap is tinted if cover is bright.
+		 */
+		boolean paletteChecked;
+	}
+
 	private static final class BoundsCheckerImpl extends AudioWidget.BoundsCheckerWithOffset {
 
         private float radius;
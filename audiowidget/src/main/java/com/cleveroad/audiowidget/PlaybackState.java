@@ -1,24 +1,45 @@
 package com.cleveroad.audiowidget;
 
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
 import androidx.annotation.NonNull;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Helper class for managing playback state.
+ * <p>
+ * Safe to update from any thread. Listeners are always notified on main thread,
+ * progress changes are coalesced so at most one progress event is delivered per frame.
  */
 class PlaybackState {
 
-	private int state = Configuration.STATE_STOPPED;
-
-	private int position;
-	private int duration;
-
-	private final Set<PlaybackStateListener> stateListeners;
+	private final AtomicReference<Snapshot> snapshot;
+	private final AtomicBoolean progressDispatchPending;
+	private final AtomicLong progressEventsReceived;
+	private final Handler mainHandler;
+	private final Runnable progressDispatcher;
+	private final Runnable frameProgressDispatcher;
+	private final ListenerArray<PlaybackStateListener> stateListeners;
+	private final ProgressEvent progressEvent;
+	private Choreographer.FrameCallback progressFrameCallback;
+	private long progressEventsDispatched;
 
 	PlaybackState() {
-		stateListeners = new HashSet<>();
+		snapshot = new AtomicReference<>(new Snapshot(Configuration.STATE_STOPPED, 0, 0, 1f, 0));
+		progressDispatchPending = new AtomicBoolean();
+		progressEventsReceived = new AtomicLong();
+		mainHandler = new Handler(Looper.getMainLooper());
+		progressDispatcher = this::dispatchProgressChanged;
+		frameProgressDispatcher = this::postProgressFrameCallback;
+		stateListeners = new ListenerArray<>();
+		progressEvent = new ProgressEvent();
 	}
 
 	boolean addPlaybackStateListener(@NonNull PlaybackStateListener playbackStateListener) {
@@ -30,25 +51,66 @@ class PlaybackState {
 	}
 
 	public int state() {
-		return state;
+		return snapshot.get().state;
 	}
 
+	/**
+	 * Get current position. While playing, position is extrapolated from last reported one.
+	 * @return current position
+	 */
 	public int position() {
-		return position;
+		return snapshot.get().position(SystemClock.elapsedRealtime());
+	}
+
+	/**
+	 * Get current progress.
+	 * @return value in range <code>0..1</code>
+	 */
+	float progress() {
+		Snapshot current = snapshot.get();
+		if (current.duration <= 0) {
+			return 0;
+		}
+		return DrawableUtils.between(1f * current.position(SystemClock.elapsedRealtime()) / current.duration, 0f, 1f);
+	}
+
+	float speed() {
+		return snapshot.get().speed;
 	}
 
 	public int duration() {
-		return duration;
+		return snapshot.get().duration;
 	}
 
 	public PlaybackState position(int position) {
-		this.position = position;
-		notifyProgressChanged(position);
+		Snapshot old;
+		do {
+			old = snapshot.get();
+		} while (!snapshot.compareAndSet(old, new Snapshot(old.state, position, SystemClock.elapsedRealtime(), old.speed, old.duration)));
+		progressEventsReceived.incrementAndGet();
+		notifyProgressChanged();
+		return this;
+	}
+
+	/**
+	 * Set playback speed used for extrapolating position.
+	 * @param speed playback speed, 1 is normal speed
+	 */
+	public PlaybackState speed(float speed) {
+		Snapshot old;
+		long now;
+		do {
+			old = snapshot.get();
+			now = SystemClock.elapsedRealtime();
+		} while (!snapshot.compareAndSet(old, new Snapshot(old.state, old.position(now), now, speed, old.duration)));
 		return this;
 	}
 
 	public PlaybackState duration(int duration) {
-		this.duration = duration;
+		Snapshot old;
+		do {
+			old = snapshot.get();
+		} while (!snapshot.compareAndSet(old, new Snapshot(old.state, old.position, old.positionTime, old.speed, duration)));
 		return this;
 	}
 
@@ -66,22 +128,137 @@ class PlaybackState {
 	}
 
 	private void state(int state, Object initiator) {
-		if (this.state == state)
+		Snapshot old;
+		long now;
+		do {
+			old = snapshot.get();
+			if (old.state == state)
+				return;
+			now = SystemClock.elapsedRealtime();
+			// position is re-anchored, so further extrapolation starts from now
+		} while (!snapshot.compareAndSet(old, new Snapshot(state, old.position(now), now, old.speed, old.duration)));
+		int oldState = old.state;
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			dispatchStateChanged(oldState, state, initiator);
+		} else {
+			mainHandler.post(() -> dispatchStateChanged(oldState, state, initiator));
+		}
+	}
+
+	private void dispatchStateChanged(int oldState, int newState, Object initiator) {
+		// state changes are rare, listener may change state again from inside dispatch
+		stateListeners.dispatch(listener -> listener.onStateChanged(oldState, newState, initiator));
+	}
+
+	/**
+	 * Get number of position changes published by host.
+	 */
+	long progressEventsReceived() {
+		return progressEventsReceived.get();
+	}
+
+	/**
+	 * Get number of progress events delivered to listeners. Must be called from main thread.
+	 */
+	long progressEventsDispatched() {
+		return progressEventsDispatched;
+	}
+
+	/**
+	 * Reset progress events counters. Must be called from main thread.
+	 */
+	void resetStats() {
+		progressEventsReceived.set(0);
+		progressEventsDispatched = 0;
+	}
+
+	/**
+	 * Schedule progress event. Any number of changes published before event is delivered
+	 * are merged into a single event.
+	 */
+	private void notifyProgressChanged() {
+		if (!progressDispatchPending.compareAndSet(false, true)) {
 			return;
-		int oldState = this.state;
-		this.state = state;
-		for (PlaybackStateListener listener : stateListeners) {
-			listener.onStateChanged(oldState, state, initiator);
 		}
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+			mainHandler.post(progressDispatcher);
+		} else if (Looper.myLooper() == Looper.getMainLooper()) {
+			postProgressFrameCallback();
+		} else {
+			mainHandler.post(frameProgressDispatcher);
+		}
+	}
+
+	private void postProgressFrameCallback() {
+		if (progressFrameCallback == null) {
+			progressFrameCallback = frameTimeNanos -> dispatchProgressChanged();
+		}
+		Choreographer.getInstance().postFrameCallback(progressFrameCallback);
+	}
+
+	private void dispatchProgressChanged() {
+		progressDispatchPending.set(false);
+		progressEventsDispatched++;
+		Snapshot current = snapshot.get();
+		progressEvent.position = current.position;
+		progressEvent.duration = current.duration;
+		progressEvent.progress = current.duration <= 0 ? 0 : 1f * current.position / current.duration;
+		stateListeners.dispatch(progressEvent);
 	}
 
-	private void notifyProgressChanged(int position) {
-		float progress = 1f * position / duration;
-		for (PlaybackStateListener listener : stateListeners) {
+	/**
+	 * Reusable progress event. Progress is dispatched only from main thread callbacks and never
+	 * from inside of another dispatch, so one instance is enough.
+	 */
+	private static final class ProgressEvent implements ListenerArray.Event<PlaybackStateListener> {
+
+		int position;
+		int duration;
+		float progress;
+
+		@Override
+		public void dispatch(@NonNull PlaybackStateListener listener) {
 			listener.onProgressChanged(position, duration, progress);
 		}
 	}
 
+	/**
+	 * Immutable playback state.
+	 */
+	private static final class Snapshot {
+
+		final int state;
+		/**
+		 * Last reported position.
+		 */
+		final int position;
+		/**
+		 * Time when position was reported, in {@link SystemClock#elapsedRealtime()} time base.
+		 */
+		final long positionTime;
+		final float speed;
+		final int duration;
+
+		Snapshot(int state, int position, long positionTime, float speed, int duration) {
+			this.state = state;
+			this.position = position;
+			this.positionTime = positionTime;
+			this.speed = speed;
+			this.duration = duration;
+		}
+
+		int position(long now) {
+			if (state != Configuration.STATE_PLAYING) {
+				return position;
+			}
+			long extrapolated = position + (long) ((now - positionTime) * speed);
+			if (duration > 0 && extrapolated > duration) {
+				return duration;
+			}
+			return (int) extrapolated;
+		}
+	}
+
     /**
      * Playback state listener.
      */
@@ -0,0 +1,165 @@
+package com.cleveroad.audiowidget;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Adapts visual quality of widget to actual draw time of its views. Draw times are collected in windows
+ * of {@link #WINDOW_FRAMES} frames. Quality is stepped down when too many frames of a window exceed
+ * draw time budget and stepped back up after several windows in a row had enough headroom.
+ * <p>
+ * Frames are recorded from inside of draw, so new quality is only decided there and applied at the end
+ * of next animation engine frame: targets never change their state while they or their siblings are drawn.
+ * <p>
+ * Must be used from main thread only.
+ */
+class QualityController implements AnimationEngine.FrameCommitCallback {
+
+	/**
+	 * Number of frames in one window.
+	 */
+	static final int WINDOW_FRAMES = 30;
+
+	/**
+	 * Max number of slow frames in window. Quality is stepped down when window has more slow frames.
+	 */
+	private static final int MAX_SLOW_FRAMES = WINDOW_FRAMES / 4;
+
+	/**
+	 * Number of windows in a row with headroom needed to step quality up.
+	 */
+	private static final int HEADROOM_WINDOWS = 4;
+
+	private static final AudioWidget.Quality[] LEVELS = AudioWidget.Quality.values();
+
+	private final boolean enabled;
+	private final AnimationEngine engine;
+	private Target[] targets = new Target[2];
+	private int targetsCount;
+	@Nullable
+	private AudioWidget.OnQualityChangedListener listener;
+	private int level;
+	private int pendingLevel;
+	private int windowFrames;
+	private int windowSlowFrames;
+	private long windowMaxNanos;
+	private int headroomWindows;
+
+	/**
+	 * Create new controller.
+	 * @param enabled false to always keep full quality
+	 */
+	QualityController(boolean enabled) {
+		this.enabled = enabled;
+		this.engine = AnimationEngine.getInstance();
+	}
+
+	/**
+	 * Add view which quality must be adapted. Target immediately receives current quality.
+	 * @param target target
+	 */
+	void addTarget(@NonNull Target target) {
+		if (targetsCount == targets.length) {
+			Target[] newTargets = new Target[targets.length * 2];
+			System.arraycopy(targets, 0, newTargets, 0, targetsCount);
+			targets = newTargets;
+		}
+		targets[targetsCount++] = target;
+		target.onQualityChanged(LEVELS[level]);
+	}
+
+	void listener(@Nullable AudioWidget.OnQualityChangedListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Get applied quality. Quality decided by the last recorded frame is applied at the end of next frame.
+	 */
+	@NonNull
+	AudioWidget.Quality quality() {
+		return LEVELS[level];
+	}
+
+	/**
+	 * Record frame drawn by one of targets.
+	 * @param durationNanos draw time of frame
+	 * @param budgetNanos draw time budget of frame
+	 */
+	void onFrameDrawn(long durationNanos, long budgetNanos) {
+		if (!enabled) {
+			return;
+		}
+		windowFrames++;
+		if (durationNanos > budgetNanos) {
+			windowSlowFrames++;
+		}
+		if (durationNanos > windowMaxNanos) {
+			windowMaxNanos = durationNanos;
+		}
+		if (windowFrames < WINDOW_FRAMES) {
+			return;
+		}
+		if (windowSlowFrames > MAX_SLOW_FRAMES) {
+			headroomWindows = 0;
+			if (pendingLevel < LEVELS.length - 1) {
+				requestLevel(pendingLevel + 1);
+			}
+		} else if (windowSlowFrames == 0 && windowMaxNanos < budgetNanos / 2) {
+			headroomWindows++;
+			if (headroomWindows >= HEADROOM_WINDOWS && pendingLevel > 0) {
+				headroomWindows = 0;
+				requestLevel(pendingLevel - 1);
+			}
+		} else {
+			headroomWindows = 0;
+		}
+		windowFrames = 0;
+		windowSlowFrames = 0;
+		windowMaxNanos = 0;
+	}
+
+	/**
+	 * Get number of particles drawn at quality.
+	 * @param quality quality
+	 * @param burstSize number of particles emitted in one burst
+	 * @param capacity max number of particles configured for widget
+	 * @return whole burst at full quality, half of burst since {@link AudioWidget.Quality#REDUCED_PARTICLES};
+	 * never greater than capacity
+	 */
+	static int particlesBudget(@NonNull AudioWidget.Quality quality, int burstSize, int capacity) {
+		int budget = quality.compareTo(AudioWidget.Quality.REDUCED_PARTICLES) >= 0 ? burstSize / 2 : burstSize;
+		return Math.min(budget, capacity);
+	}
+
+	private void requestLevel(int level) {
+		pendingLevel = level;
+		engine.commitAtFrameEnd(this);
+	}
+
+	@Override
+	public void onFrameCommit() {
+		if (pendingLevel == level) {
+			return;
+		}
+		level = pendingLevel;
+		AudioWidget.Quality quality = LEVELS[level];
+		for (int i = 0; i < targetsCount; i++) {
+			targets[i].onQualityChanged(quality);
+		}
+		if (listener != null) {
+			listener.onQualityChanged(quality);
+		}
+	}
+
+	/**
+	 * View which quality is adapted.
+	 */
+	interface Target {
+
+		/**
+		 * Called when quality changed.
+		 * @param quality new quality
+		 */
+		void onQualityChanged(@NonNull AudioWidget.Quality quality);
+	}
+}
@@ -0,0 +1,52 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Point;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Trajectory of remove button while play/pause button is dragged: remove button is moved off its visible position
+ * and turned around its hidden position towards dragged button.
+ * <p>
+ * Rotation is computed from tangent of angle to dragged button, so no trigonometric functions are evaluated.
+ */
+final class RemoveTrajectory {
+
+	private RemoveTrajectory() {}
+
+	/**
+	 * Compute position of remove button.
+	 * @param screenWidth screen width
+	 * @param screenHeight screen height
+	 * @param visible position of visible remove button
+	 * @param hidden position of hidden remove button
+	 * @param animatedY current y position of remove button, animated between hidden and visible positions
+	 * @param radius radius of widget
+	 * @param buttonX x position of play/pause button
+	 * @param buttonY y position of play/pause button
+	 * @param out point to write position of remove button to
+	 */
+	static void position(int screenWidth, int screenHeight, @NonNull Point visible, @NonNull Point hidden,
+						 int animatedY, float radius, int buttonX, int buttonY, @NonNull Point out) {
+		// angle to dragged button is atan(dx / dy), remove button is rotated by (360 - angle) degrees
+		double dx = screenWidth / 2. - buttonX;
+		double dy = visible.y - buttonY;
+		double hypot = Math.sqrt(dx * dx + dy * dy);
+		double cos = 1;
+		double sin = 0;
+		if (hypot > 0) {
+			cos = Math.abs(dy) / hypot;
+			sin = -(dy < 0 ? -dx : dx) / hypot;
+		}
+		double distanceY = animatedY - buttonY;
+		double distanceX = visible.x - hidden.x;
+		double distance = Math.sqrt(distanceY * distanceY + distanceX * distanceX)
+				/ Math.sqrt((double) screenWidth * screenWidth + (double) screenHeight * screenHeight);
+		double px = visible.x - hidden.x;
+		double py = -radius * distance;
+		out.set(
+				(int) (cos * px - sin * py + hidden.x),
+				(int) (sin * px + cos * py + animatedY)
+		);
+	}
+}
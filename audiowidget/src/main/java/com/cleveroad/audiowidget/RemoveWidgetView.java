@@ -1,6 +1,5 @@
 package com.cleveroad.audiowidget;
 
-import android.animation.ValueAnimator;
 import android.annotation.SuppressLint;
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -22,7 +21,8 @@ class RemoveWidgetView extends View {
 	private final Paint paint;
     private final int defaultColor;
     private final int overlappedColor;
-    private final ValueAnimator sizeAnimator;
+    private final FrameAnimation sizeAnimator;
+    private final FrameStats drawStats;
     private float scale = 1.0f;
 
 	public RemoveWidgetView(@NonNull Configuration configuration) {
@@ -30,6 +30,7 @@ class RemoveWidgetView extends View {
 		this.radius = configuration.radius();
 		this.size = configuration.radius() * SCALE_LARGE * 2;
 		this.paint = new Paint();
+		this.drawStats = new FrameStats(configuration.drawMetrics(), null);
         this.defaultColor = configuration.crossColor();
         this.overlappedColor = configuration.crossOverlappedColor();
 		paint.setAntiAlias(true);
@@ -37,11 +38,8 @@ class RemoveWidgetView extends View {
 		paint.setStrokeWidth(configuration.crossStrokeWidth());
 		paint.setColor(configuration.crossColor());
 		paint.setStrokeCap(Paint.Cap.ROUND);
-        sizeAnimator = new ValueAnimator();
-        sizeAnimator.addUpdateListener(animation -> {
-            scale = (float) animation.getAnimatedValue();
-            invalidate();
-        });
+        sizeAnimator = new FrameAnimation(this);
+        sizeAnimator.setUpdateListener(animation -> scale = animation.getAnimatedValue());
 	}
 
 	@Override
@@ -52,6 +50,7 @@ class RemoveWidgetView extends View {
 
 	@Override
 	protected void onDraw(Canvas canvas) {
+		long drawStart = drawStats.begin();
 		super.onDraw(canvas);
 		int cx = canvas.getWidth() >> 1;
 		int cy = canvas.getHeight() >> 1;
@@ -61,6 +60,15 @@ class RemoveWidgetView extends View {
 		canvas.drawCircle(cx, cy, rad, paint);
 		drawCross(canvas, cx, cy, rad * 0.5f, 45);
         canvas.restore();
+		drawStats.end(drawStart);
+	}
+
+	/**
+	 * Get draw time statistics of view.
+	 */
+	@NonNull
+	FrameStats drawStats() {
+		return drawStats;
 	}
 
 	private void drawCross(@NonNull Canvas canvas, float cx, float cy, float radius, float startAngle) {
@@ -0,0 +1,73 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.util.LruCache;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+/**
+ * Cache of pre-rendered circle shadows. Used in {@link AudioWidget.RenderMode#HARDWARE} mode
+ * where {@link Paint#setShadowLayer(float, float, float, int)} isn't supported for shapes below API 28.
+ * <p>
+ * Cache is bounded by size of shadow bitmaps in bytes. Evicted shadow stays valid for views that still draw it.
+ */
+class ShadowCache {
+
+	/**
+	 * Max size of cached shadows in bytes, enough for shadows of a few widgets.
+	 */
+	private static final int MAX_SIZE = 1024 * 1024;
+
+	private static final LruCache<String, Bitmap> CACHE = new LruCache<String, Bitmap>(MAX_SIZE) {
+		@Override
+		protected int sizeOf(@NonNull String key, @NonNull Bitmap value) {
+			return value.getByteCount();
+		}
+	};
+
+	private ShadowCache() {}
+
+	/**
+	 * Get shadow of circle with specified radius. Bitmap is centered on circle's center,
+	 * shadow offset is already applied. Circle itself is cut out of the bitmap.
+	 * @param radius circle radius
+	 * @param shadowRadius shadow radius
+	 * @param shadowDx shadow dx
+	 * @param shadowDy shadow dy
+	 * @param shadowColor shadow color
+	 * @return shadow bitmap
+	 */
+	@NonNull
+	static synchronized Bitmap circleShadow(float radius, float shadowRadius, float shadowDx, float shadowDy, @ColorInt int shadowColor) {
+		String key = radius + ":" + shadowRadius + ":" + shadowDx + ":" + shadowDy + ":" + shadowColor;
+		Bitmap bitmap = CACHE.get(key);
+		if (bitmap == null || bitmap.isRecycled()) {
+			bitmap = createCircleShadow(radius, shadowRadius, shadowDx, shadowDy, shadowColor);
+			CACHE.put(key, bitmap);
+		}
+		return bitmap;
+	}
+
+	private static Bitmap createCircleShadow(float radius, float shadowRadius, float shadowDx, float shadowDy, int shadowColor) {
+		float half = radius + shadowRadius * 2 + Math.max(Math.abs(shadowDx), Math.abs(shadowDy));
+		int size = (int) Math.ceil(half * 2);
+		Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+		Canvas canvas = new Canvas(bitmap);
+		float c = size / 2f;
+		Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		paint.setStyle(Paint.Style.FILL);
+		paint.setColor(Color.BLACK);
+		paint.setShadowLayer(shadowRadius, shadowDx, shadowDy, shadowColor);
+		canvas.drawCircle(c, c, radius, paint);
+		paint.clearShadowLayer();
+		paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+		canvas.drawCircle(c, c, radius, paint);
+		return bitmap;
+	}
+}
@@ -0,0 +1,127 @@
+package com.cleveroad.audiowidget;
+
+/**
+ * One-dimensional damped spring of unit mass pulling value to its target. Each step applies exact solution
+ * of spring equation from current state, so result doesn't depend on frame rate and any step length is stable.
+ * Target, position and velocity can be changed at any time, motion continues from current state.
+ * <p>
+ * Nothing is allocated while stepping.
+ */
+class Spring {
+
+	/**
+	 * Stiffness used for snapping widget to screen edge.
+	 */
+	static final float STIFFNESS_MEDIUM = 400f;
+
+	/**
+	 * Damping ratio with a small overshoot.
+	 */
+	static final float DAMPING_RATIO_LOW_BOUNCY = 0.75f;
+
+	/**
+	 * Critical damping ratio, value reaches target as fast as possible without overshoot.
+	 */
+	static final float DAMPING_RATIO_NO_BOUNCY = 1f;
+
+	private static final float REST_POSITION_THRESHOLD = 0.5f;
+	private static final float REST_VELOCITY_THRESHOLD = 10f;
+
+	private final float naturalFrequency;
+	private final float dampingRatio;
+	private final float dampedFrequency;
+	private float position;
+	private float velocity;
+	private float target;
+
+	/**
+	 * Create new spring.
+	 * @param stiffness spring stiffness
+	 * @param dampingRatio damping ratio, <code>0..1</code>
+	 */
+	Spring(float stiffness, float dampingRatio) {
+		this.naturalFrequency = (float) Math.sqrt(stiffness);
+		this.dampingRatio = DrawableUtils.between(dampingRatio, 0f, 1f);
+		this.dampedFrequency = (float) (naturalFrequency * Math.sqrt(1 - this.dampingRatio * this.dampingRatio));
+	}
+
+	/**
+	 * Set current state of spring.
+	 * @param position position
+	 * @param velocity velocity, in units per second
+	 */
+	Spring set(float position, float velocity) {
+		this.position = position;
+		this.velocity = velocity;
+		return this;
+	}
+
+	Spring target(float target) {
+		this.target = target;
+		return this;
+	}
+
+	float position() {
+		return position;
+	}
+
+	float velocity() {
+		return velocity;
+	}
+
+	float target() {
+		return target;
+	}
+
+	/**
+	 * Advance spring.
+	 * @param dt time step in seconds
+	 */
+	void step(float dt) {
+		if (dt <= 0) {
+			return;
+		}
+		float x0 = position - target;
+		float v0 = velocity;
+		float decay = dampingRatio * naturalFrequency;
+		float exp = (float) Math.exp(-decay * dt);
+		if (dampedFrequency < 1e-3f) {
+			// critically damped
+			float c = v0 + naturalFrequency * x0;
+			position = target + exp * (x0 + c * dt);
+			velocity = exp * (v0 - naturalFrequency * c * dt);
+		} else {
+			float b = (v0 + decay * x0) / dampedFrequency;
+			float cos = (float) Math.cos(dampedFrequency * dt);
+			float sin = (float) Math.sin(dampedFrequency * dt);
+			position = target + exp * (x0 * cos + b * sin);
+			velocity = exp * (v0 * cos - (x0 * dampedFrequency + decay * b) * sin);
+		}
+	}
+
+	/**
+	 * Check if spring is at rest at its target.
+	 * @return true if both distance to target and velocity are negligible
+	 */
+	boolean isAtRest() {
+		return Math.abs(position - target) < REST_POSITION_THRESHOLD && Math.abs(velocity) < REST_VELOCITY_THRESHOLD;
+	}
+
+	/**
+	 * Move spring to its target and stop it.
+	 */
+	void finish() {
+		position = target;
+		velocity = 0;
+	}
+
+	/**
+	 * Get distance passed by value moving with given velocity and exponentially decaying by friction.
+	 * @param velocity initial velocity, in units per second
+	 * @param friction decay rate of velocity, in 1/seconds
+	 * @return distance passed until value stops
+	 */
+	static float decayDistance(float velocity, float friction) {
+		return velocity / friction;
+	}
+}
@@ -1,20 +1,13 @@
 package com.cleveroad.audiowidget;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.FloatEvaluator;
-import android.animation.IntEvaluator;
-import android.animation.PropertyValuesHolder;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.os.SystemClock;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.WindowManager;
-import android.view.animation.DecelerateInterpolator;
-import android.view.animation.Interpolator;
-import android.view.animation.OvershootInterpolator;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -24,32 +17,48 @@ import androidx.annotation.Nullable;
  */
 class TouchManager implements View.OnTouchListener {
 
+    /**
+     * How far ahead drag position is predicted when touch prediction is enabled, in milliseconds.
+     * About half of 60 Hz frame: time between input sampling and frame presentation.
+     */
+    private static final float PREDICTION_MILLIS = 8f;
+
     private final View view;
     private final BoundsChecker boundsChecker;
-    private final WindowManager windowManager;
-    private final StickyEdgeAnimator stickyEdgeAnimator;
-    private final FlingGestureAnimator velocityAnimator;
+    private final WindowLayoutScheduler layoutScheduler;
+    private final SnapAnimator snapAnimator;
+    private final int maxFlingVelocity;
+    private final int maxPredictionDistance;
 
     private GestureListener gestureListener;
     private GestureDetector gestureDetector;
     private Callback callback;
     private int screenWidth;
     private int screenHeight;
-    private Float lastRawX, lastRawY;
+    @Nullable
+    private VelocityTracker velocityTracker;
+    private boolean touchPrediction;
+    @Nullable
+    private MotionEventRecorder recorder;
+    private int recorderSource;
     private boolean touchCanceled;
+    private boolean translationDrag;
+    private boolean translating;
 
-    TouchManager(@NonNull View view, @NonNull BoundsChecker boundsChecker) {
+    TouchManager(@NonNull View view, @NonNull BoundsChecker boundsChecker, @NonNull WindowLayoutScheduler layoutScheduler) {
         this.gestureDetector = new GestureDetector(view.getContext(), gestureListener = new GestureListener());
         gestureDetector.setIsLongpressEnabled(true);
         this.view = view;
         this.boundsChecker = boundsChecker;
         this.view.setOnTouchListener(this);
         Context context = view.getContext().getApplicationContext();
-        this.windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        this.layoutScheduler = layoutScheduler;
         this.screenWidth = context.getResources().getDisplayMetrics().widthPixels;
         this.screenHeight = context.getResources().getDisplayMetrics().heightPixels - context.getResources().getDimensionPixelSize(R.dimen.aw_status_bar_height);
-        stickyEdgeAnimator = new StickyEdgeAnimator();
-        velocityAnimator = new FlingGestureAnimator();
+        ViewConfiguration viewConfiguration = ViewConfiguration.get(view.getContext());
+        this.maxFlingVelocity = viewConfiguration.getScaledMaximumFlingVelocity();
+        this.maxPredictionDistance = viewConfiguration.getScaledTouchSlop();
+        snapAnimator = new SnapAnimator();
     }
 
     TouchManager screenWidth(int screenWidth) {
@@ -67,8 +76,110 @@ class TouchManager implements View.OnTouchListener {
         return this;
     }
 
+    /**
+     * Enable translation drag mode. In this mode window is enlarged to full screen when user starts
+     * dragging and view is moved using translation, so no window layout updates are made while dragging.
+     * Real window position is committed when user releases finger.
+     * @param translationDrag true to enable translation drag mode
+     */
+    TouchManager translationDrag(boolean translationDrag) {
+        this.translationDrag = translationDrag;
+        return this;
+    }
+
+    /**
+     * Enable touch prediction. Dragged view is moved slightly ahead of finger along its velocity,
+     * which hides part of input-to-display latency.
+     * @param touchPrediction true to enable touch prediction
+     */
+    TouchManager touchPrediction(boolean touchPrediction) {
+        this.touchPrediction = touchPrediction;
+        return this;
+    }
+
+    /**
+     * Set recorder of touch events received by view.
+     * @param recorder recorder or null
+     * @param source source of events in trace
+     */
+    TouchManager recorder(@Nullable MotionEventRecorder recorder, int source) {
+        this.recorder = recorder;
+        this.recorderSource = source;
+        return this;
+    }
+
+    /**
+     * Get current X position of view on screen. Differs from window position while dragging in translation mode.
+     * @return x position
+     */
+    int positionX() {
+        if (translating) {
+            return (int) view.getTranslationX();
+        }
+        return ((WindowManager.LayoutParams) view.getLayoutParams()).x;
+    }
+
+    /**
+     * Get current Y position of view on screen. Differs from window position while dragging in translation mode.
+     * @return y position
+     */
+    int positionY() {
+        if (translating) {
+            return (int) view.getTranslationY();
+        }
+        return ((WindowManager.LayoutParams) view.getLayoutParams()).y;
+    }
+
+    private void startTranslation() {
+        translating = true;
+        WindowManager.LayoutParams params = (WindowManager.LayoutParams) view.getLayoutParams();
+        view.setTranslationX(params.x);
+        view.setTranslationY(params.y);
+        params.x = 0;
+        params.y = 0;
+        params.width = WindowManager.LayoutParams.MATCH_PARENT;
+        params.height = WindowManager.LayoutParams.MATCH_PARENT;
+        layoutScheduler.updateViewLayout(view);
+    }
+
+    private void finishTranslation() {
+        if (!translating) {
+            return;
+        }
+        translating = false;
+        WindowManager.LayoutParams params = (WindowManager.LayoutParams) view.getLayoutParams();
+        params.x = (int) view.getTranslationX();
+        params.y = (int) view.getTranslationY();
+        params.width = WindowManager.LayoutParams.WRAP_CONTENT;
+        params.height = WindowManager.LayoutParams.WRAP_CONTENT;
+        // translation reset and window move are applied in the same traversal
+        view.setTranslationX(0);
+        view.setTranslationY(0);
+        layoutScheduler.updateViewLayout(view);
+    }
+
     @Override
     public boolean onTouch(@NonNull View v, @NonNull MotionEvent event) {
+        if (recorder != null) {
+            recorder.record(recorderSource, event);
+        }
+        float offsetX = 0, offsetY = 0;
+        if (translating) {
+            // window is full screen, convert coordinates to view's local ones
+            offsetX = view.getTranslationX();
+            offsetY = view.getTranslationY();
+            event.offsetLocation(-offsetX, -offsetY);
+        }
+        if (event.getAction() == MotionEvent.ACTION_UP || event.getAction() == MotionEvent.ACTION_CANCEL) {
+            finishTranslation();
+        }
+        boolean res = handleTouch(event);
+        event.offsetLocation(offsetX, offsetY);
+        return res;
+    }
+
+    private boolean handleTouch(@NonNull MotionEvent event) {
+        trackVelocity(event);
         boolean res = (!touchCanceled || event.getAction() == MotionEvent.ACTION_UP) && gestureDetector.onTouchEvent(event);
         if (event.getAction() == MotionEvent.ACTION_DOWN) {
             touchCanceled = false;
@@ -87,9 +198,37 @@ class TouchManager implements View.OnTouchListener {
         } else if (event.getAction() == MotionEvent.ACTION_CANCEL) {
             touchCanceled = true;
         }
+        if (event.getAction() == MotionEvent.ACTION_UP || event.getAction() == MotionEvent.ACTION_CANCEL) {
+            if (velocityTracker != null) {
+                velocityTracker.recycle();
+                velocityTracker = null;
+            }
+        }
         return res;
     }
 
+    /**
+     * Add event with all its historical samples to velocity tracker. Window follows finger, so samples
+     * are converted to screen coordinates, otherwise dragged view would look still to tracker.
+     */
+    private void trackVelocity(@NonNull MotionEvent event) {
+        if (event.getAction() == MotionEvent.ACTION_DOWN) {
+            if (velocityTracker == null) {
+                velocityTracker = VelocityTracker.obtain();
+            } else {
+                velocityTracker.clear();
+            }
+        }
+        if (velocityTracker == null) {
+            return;
+        }
+        float dx = event.getRawX() - event.getX();
+        float dy = event.getRawY() - event.getY();
+        event.offsetLocation(dx, dy);
+        velocityTracker.addMovement(event);
+        event.offsetLocation(-dx, -dy);
+    }
+
     /**
      * Touch manager callback.
      */
@@ -221,20 +360,24 @@ class TouchManager implements View.OnTouchListener {
 
         private int prevX, prevY;
         private float velX, velY;
-        private long lastEventTime;
+        private boolean moved;
 
         @Override
         public boolean onDown(MotionEvent e) {
+            if (snapAnimator.isAnimating()) {
+                // catch widget where it is, its velocity is kept for release without drag
+                snapAnimator.interrupt();
+                velX = snapAnimator.velocityX();
+                velY = snapAnimator.velocityY();
+            }
+            moved = false;
             WindowManager.LayoutParams params = (WindowManager.LayoutParams) view.getLayoutParams();
             prevX = params.x;
             prevY = params.y;
-            boolean result = !stickyEdgeAnimator.isAnimating();
-            if (result) {
-                if (callback != null) {
-                    callback.onTouched(e.getX(), e.getY());
-                }
+            if (callback != null) {
+                callback.onTouched(e.getX(), e.getY());
             }
-            return result;
+            return true;
         }
 
         @Override
@@ -251,13 +394,22 @@ class TouchManager implements View.OnTouchListener {
             float diffY = e2.getRawY() - e1.getRawY();
             float l = prevX + diffX;
             float t = prevY + diffY;
-            WindowManager.LayoutParams params = (WindowManager.LayoutParams) view.getLayoutParams();
-            params.x = (int) l;
-            params.y = (int) t;
-            try {
-                windowManager.updateViewLayout(view, params);
-            } catch (IllegalArgumentException e) {
-                // view not attached to window
+            if (touchPrediction && velocityTracker != null) {
+                velocityTracker.computeCurrentVelocity(1000, maxFlingVelocity);
+                l += DrawableUtils.between(velocityTracker.getXVelocity() * PREDICTION_MILLIS / 1000f, -maxPredictionDistance, maxPredictionDistance);
+                t += DrawableUtils.between(velocityTracker.getYVelocity() * PREDICTION_MILLIS / 1000f, -maxPredictionDistance, maxPredictionDistance);
+            }
+            if (translationDrag) {
+                if (!translating) {
+                    startTranslation();
+                }
+                view.setTranslationX((int) l);
+                view.setTranslationY((int) t);
+            } else {
+                WindowManager.LayoutParams params = (WindowManager.LayoutParams) view.getLayoutParams();
+                params.x = (int) l;
+                params.y = (int) t;
+                layoutScheduler.updateViewLayout(view);
             }
             if (callback != null) {
                 callback.onMoved(distanceX, distanceY);
@@ -289,35 +441,26 @@ class TouchManager implements View.OnTouchListener {
 
         @Override
         public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
-            velocityAnimator.animate(velX, velY);
+            // release velocity is carried into edge snapping, see onUpEvent
             return true;
         }
 
         private void onMove(MotionEvent e2) {
-            if (lastRawX != null && lastRawY != null) {
-                long diff = e2.getEventTime() - lastEventTime;
-                float dt = diff == 0 ? 0 : 1000f / diff;
-                float newVelX = (e2.getRawX() - lastRawX) * dt;
-                float newVelY = (e2.getRawY() - lastRawY) * dt;
-                velX = DrawableUtils.smooth(velX, newVelX, 0.2f);
-                velY = DrawableUtils.smooth(velY, newVelY, 0.2f);
-            }
-            lastRawX = e2.getRawX();
-            lastRawY = e2.getRawY();
-            lastEventTime = e2.getEventTime();
+            moved = true;
         }
 
         private void onUpEvent(MotionEvent e) {
             if (callback != null) {
                 callback.onReleased(e.getX(), e.getY());
             }
-            lastRawX = null;
-            lastRawY = null;
-            lastEventTime = 0;
-            velX = velY = 0;
-            if (!velocityAnimator.isAnimating()) {
-                stickyEdgeAnimator.animate(boundsChecker);
+            if (moved && velocityTracker != null) {
+                // least squares fit over recent samples, including historical ones
+                velocityTracker.computeCurrentVelocity(1000, maxFlingVelocity);
+                velX = velocityTracker.getXVelocity();
+                velY = velocityTracker.getYVelocity();
             }
+            snapAnimator.animate(boundsChecker, velX, velY, null);
+            velX = velY = 0;
         }
 
         private void onTouchOutsideEvent(MotionEvent e) {
@@ -328,194 +471,166 @@ class TouchManager implements View.OnTouchListener {
     }
 
     /**
-     * Helper class for animating fling gesture.
+     * Helper class for animating sticking to screen edge. Widget is pulled to the edge by springs,
+     * so release velocity is carried into snapping and animation can be retargeted or interrupted
+     * at any point without a jump in position or velocity.
      */
-    private class FlingGestureAnimator {
-        private static final long DEFAULT_ANIM_DURATION = 200;
-        private final ValueAnimator flingGestureAnimator;
-        private final PropertyValuesHolder dxHolder;
-        private final PropertyValuesHolder dyHolder;
-        private final Interpolator interpolator;
-        private WindowManager.LayoutParams params;
-
-        FlingGestureAnimator() {
-            interpolator = new DecelerateInterpolator();
-            dxHolder = PropertyValuesHolder.ofFloat("x", 0, 0);
-            dyHolder = PropertyValuesHolder.ofFloat("y", 0, 0);
-            dxHolder.setEvaluator(new FloatEvaluator());
-            dyHolder.setEvaluator(new FloatEvaluator());
-            flingGestureAnimator = ValueAnimator.ofPropertyValuesHolder(dxHolder, dyHolder);
-            flingGestureAnimator.setInterpolator(interpolator);
-            flingGestureAnimator.setDuration(DEFAULT_ANIM_DURATION);
-            flingGestureAnimator.addUpdateListener(animation -> {
-                float newX = (float) animation.getAnimatedValue("x");
-                float newY = (float) animation.getAnimatedValue("y");
-                if (callback != null) {
-                    callback.onMoved(newX - params.x, newY - params.y);
-                }
-                params.x = (int) newX;
-                params.y = (int) newY;
+    private class SnapAnimator {
 
-                try {
-                    windowManager.updateViewLayout(view, params);
-                } catch (IllegalArgumentException e) {
-                    animation.cancel();
-                }
-            });
-            flingGestureAnimator.addListener(new AnimatorListenerAdapter() {
-
-                @Override
-                public void onAnimationEnd(Animator animation) {
-                    super.onAnimationEnd(animation);
-                    stickyEdgeAnimator.animate(boundsChecker);
-                }
-
-                @Override
-                public void onAnimationCancel(Animator animation) {
-                    super.onAnimationCancel(animation);
-                    stickyEdgeAnimator.animate(boundsChecker);
-                }
-            });
-        }
-
-        void animate(float velocityX, float velocityY) {
-            if (isAnimating()) {
-                return;
-            }
-
-            params = (WindowManager.LayoutParams) view.getLayoutParams();
-
-            float dx = velocityX / 1000f * DEFAULT_ANIM_DURATION;
-            float dy = velocityY / 1000f * DEFAULT_ANIM_DURATION;
-
-            final float newX, newY;
-
-            if(dx + params.x > screenWidth / 2f) {
-                newX = boundsChecker.stickyRightSide(screenWidth) + Math.min(view.getWidth(), view.getHeight()) / 2f;
-            } else {
-                newX = boundsChecker.stickyLeftSide(screenWidth) - Math.min(view.getWidth(), view.getHeight()) / 2f;
-            }
-
-            newY = params.y + dy;
-
-            dxHolder.setFloatValues(params.x, newX);
-            dyHolder.setFloatValues(params.y, newY);
-
-            flingGestureAnimator.start();
-        }
+        /**
+         * Max duration of animation. Springs come to rest much earlier, animation is finished as soon as they do.
+         */
+        private static final long MAX_ANIM_DURATION = 2000;
 
-        boolean isAnimating() {
-            return flingGestureAnimator.isRunning();
-        }
-    }
+        /**
+         * Decay rate of release velocity used to predict where flung widget would stop, in 1/seconds.
+         */
+        private static final float FLING_FRICTION = 5f;
 
-    /**
-     * Helper class for animating sticking to screen edge.
-     */
-    private class StickyEdgeAnimator {
-        private static final long DEFAULT_ANIM_DURATION = 300;
-        private final PropertyValuesHolder dxHolder;
-        private final PropertyValuesHolder dyHolder;
-        private final ValueAnimator edgeAnimator;
-        private final Interpolator interpolator;
+        private final FrameAnimation edgeAnimator;
+        private final Spring springX;
+        private final Spring springY;
         private WindowManager.LayoutParams params;
-
-        public StickyEdgeAnimator() {
-            interpolator = new OvershootInterpolator();
-            dxHolder = PropertyValuesHolder.ofInt("x", 0, 0);
-            dyHolder = PropertyValuesHolder.ofInt("y", 0, 0);
-            dxHolder.setEvaluator(new IntEvaluator());
-            dyHolder.setEvaluator(new IntEvaluator());
-            edgeAnimator = ValueAnimator.ofPropertyValuesHolder(dxHolder, dyHolder);
-            edgeAnimator.setInterpolator(interpolator);
-            edgeAnimator.setDuration(DEFAULT_ANIM_DURATION);
-            edgeAnimator.addUpdateListener(animation -> {
-                int x = (int) animation.getAnimatedValue("x");
-                int y = (int) animation.getAnimatedValue("y");
-                if (callback != null) {
-                    callback.onMoved(x - params.x, y - params.y);
-                }
-                params.x = x;
-                params.y = y;
-                try {
-                    windowManager.updateViewLayout(view, params);
-                } catch (IllegalArgumentException e) {
+        private float lastPlayTime;
+        private boolean interrupted;
+        @Nullable
+        private Runnable afterAnimation;
+
+        SnapAnimator() {
+            springX = new Spring(Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_LOW_BOUNCY);
+            springY = new Spring(Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_NO_BOUNCY);
+            edgeAnimator = new FrameAnimation(null);
+            edgeAnimator.setInterpolator(null);
+            edgeAnimator.setDuration(MAX_ANIM_DURATION);
+            edgeAnimator.setUpdateListener(animation -> {
+                if (view.getParent() == null) {
                     // view not attached to window
                     animation.cancel();
+                    return;
+                }
+                float playTime = animation.getCurrentPlayTime();
+                float dt = (playTime - lastPlayTime) / 1000f;
+                lastPlayTime = playTime;
+                springX.step(dt);
+                springY.step(dt);
+                moveTo(springX.position(), springY.position());
+                if (springX.isAtRest() && springY.isAtRest()) {
+                    animation.cancel();
                 }
             });
-            edgeAnimator.addListener(new AnimatorListenerAdapter() {
+            edgeAnimator.setListener(new FrameAnimation.Listener() {
                 @Override
-                public void onAnimationEnd(Animator animation) {
-                    super.onAnimationEnd(animation);
-                    if (callback != null) {
-                        callback.onAnimationCompleted();
+                void onAnimationEnd(@NonNull FrameAnimation animation) {
+                    if (interrupted) {
+                        interrupted = false;
+                        return;
                     }
+                    finish();
                 }
             });
         }
 
-        private void animate(BoundsChecker boundsChecker) {
-            animate(boundsChecker, null);
-        }
-
-        public void animate(BoundsChecker boundsChecker, @Nullable Runnable afterAnimation) {
-            if (edgeAnimator.isRunning()) {
-                return;
-            }
+        /**
+         * Snap widget to screen edge. If widget is already moving, it's retargeted from its current position
+         * and velocity, given velocity is ignored.
+         * @param boundsChecker bounds checker
+         * @param velocityX release velocity by X axis, in pixels per second
+         * @param velocityY release velocity by Y axis, in pixels per second
+         * @param afterAnimation action to run when widget reaches its position
+         */
+        void animate(BoundsChecker boundsChecker, float velocityX, float velocityY, @Nullable Runnable afterAnimation) {
             params = (WindowManager.LayoutParams) view.getLayoutParams();
-            float cx = params.x + view.getWidth() / 2f;
-            float cy = params.y + view.getWidth() / 2f;
-            int x;
+            if (!edgeAnimator.isRunning()) {
+                springX.set(params.x, velocityX);
+                springY.set(params.y, velocityY);
+            }
+            // choose edge by position where flung widget would stop
+            float cx = springX.position() + view.getWidth() / 2f + Spring.decayDistance(springX.velocity(), FLING_FRICTION);
             if (cx < screenWidth / 2f) {
-                x = (int) boundsChecker.stickyLeftSide(screenWidth);
+                springX.target((int) boundsChecker.stickyLeftSide(screenWidth));
             } else {
-                x = (int) boundsChecker.stickyRightSide(screenWidth);
+                springX.target((int) boundsChecker.stickyRightSide(screenWidth));
             }
-            int y = params.y;
+            float y = springY.position() + Spring.decayDistance(springY.velocity(), FLING_FRICTION);
             int top = (int) boundsChecker.stickyTopSide(screenHeight);
             int bottom = (int) boundsChecker.stickyBottomSide(screenHeight);
-            if (params.y > bottom || params.y < top) {
-                if (cy < screenHeight / 2f) {
-                    y = top;
-                } else {
-                    y = bottom;
-                }
+            springY.target((int) DrawableUtils.between(y, top, Math.max(top, bottom)));
+            if (afterAnimation != null) {
+                this.afterAnimation = afterAnimation;
             }
-            dxHolder.setIntValues(params.x, x);
-            dyHolder.setIntValues(params.y, y);
-            edgeAnimator.addListener(new AnimatorListenerAdapter() {
-                @Override
-                public void onAnimationCancel(Animator animation) {
-                    super.onAnimationCancel(animation);
-                    edgeAnimator.removeListener(this);
-                    if (afterAnimation != null) {
-                        afterAnimation.run();
-                    }
-                }
-
-                @Override
-                public void onAnimationEnd(Animator animation) {
-                    super.onAnimationEnd(animation);
-                    edgeAnimator.removeListener(this);
-                    if (afterAnimation != null) {
-                        afterAnimation.run();
-                    }
-                }
-            });
+            if (!edgeAnimator.isRunning() && springX.isAtRest() && springY.isAtRest()) {
+                // widget is already at its edge, e.g. after a tap
+                finish();
+                return;
+            }
+            lastPlayTime = 0;
             edgeAnimator.start();
         }
 
-        public boolean isAnimating() {
+        /**
+         * Put widget to its target, notify callback and run pending action.
+         */
+        private void finish() {
+            springX.finish();
+            springY.finish();
+            if (view.getParent() != null) {
+                moveTo(springX.position(), springY.position());
+            }
+            if (callback != null) {
+                callback.onAnimationCompleted();
+            }
+            Runnable action = afterAnimation;
+            afterAnimation = null;
+            if (action != null) {
+                action.run();
+            }
+        }
+
+        /**
+         * Stop widget at its current position. Pending action is not dropped: widget is moved
+         * to its target immediately and action is run, as it expects widget to be there.
+         */
+        void interrupt() {
+            if (!edgeAnimator.isRunning()) {
+                return;
+            }
+            if (afterAnimation != null) {
+                edgeAnimator.cancel();
+                return;
+            }
+            interrupted = true;
+            edgeAnimator.cancel();
+        }
+
+        float velocityX() {
+            return springX.velocity();
+        }
+
+        float velocityY() {
+            return springY.velocity();
+        }
+
+        boolean isAnimating() {
             return edgeAnimator.isRunning();
         }
+
+        private void moveTo(float newX, float newY) {
+            int x = Math.round(newX);
+            int y = Math.round(newY);
+            if (callback != null) {
+                callback.onMoved(x - params.x, y - params.y);
+            }
+            params.x = x;
+            params.y = y;
+            layoutScheduler.updateViewLayout(view);
+        }
     }
 
     void animateToBounds(BoundsChecker boundsChecker, @Nullable Runnable afterAnimation) {
-        stickyEdgeAnimator.animate(boundsChecker, afterAnimation);
+        snapAnimator.animate(boundsChecker, 0, 0, afterAnimation);
     }
 
     void animateToBounds() {
-        stickyEdgeAnimator.animate(boundsChecker, null);
+        snapAnimator.animate(boundsChecker, 0, 0, null);
     }
 }
@@ -0,0 +1,95 @@
+package com.cleveroad.audiowidget;
+
+import android.view.View;
+import android.view.WindowManager;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Collects window layout changes and commits them to {@link WindowManager} once per frame.
+ * Each {@link WindowManager#updateViewLayout(View, android.view.ViewGroup.LayoutParams)} call is an IPC
+ * to system server, so all changes of the same window made during one frame are merged into a single call.
+ * <p>
+ * Layout params must be changed in place (view's own params object), they are read at commit time.
+ * Must be used from main thread only.
+ */
+class WindowLayoutScheduler implements AnimationEngine.FrameCommitCallback {
+
+	private final WindowManager windowManager;
+	private View[] pendingViews = new View[4];
+	private int pendingViewsCount;
+	private long requestedUpdates;
+	private long committedUpdates;
+
+	WindowLayoutScheduler(@NonNull WindowManager windowManager) {
+		this.windowManager = windowManager;
+	}
+
+	/**
+	 * Schedule layout update of view's window.
+	 * @param view view added to window manager
+	 */
+	void updateViewLayout(@NonNull View view) {
+		requestedUpdates++;
+		for (int i = 0; i < pendingViewsCount; i++) {
+			if (pendingViews[i] == view) {
+				return;
+			}
+		}
+		if (pendingViewsCount == pendingViews.length) {
+			View[] newViews = new View[pendingViews.length * 2];
+			System.arraycopy(pendingViews, 0, newViews, 0, pendingViewsCount);
+			pendingViews = newViews;
+		}
+		pendingViews[pendingViewsCount++] = view;
+		AnimationEngine.getInstance().commitAtFrameEnd(this);
+	}
+
+	@Override
+	public void onFrameCommit() {
+		int count = pendingViewsCount;
+		pendingViewsCount = 0;
+		for (int i = 0; i < count; i++) {
+			View view = pendingViews[i];
+			pendingViews[i] = null;
+			committedUpdates++;
+			try {
+				windowManager.updateViewLayout(view, view.getLayoutParams());
+			} catch (IllegalArgumentException e) {
+				// view not attached to window
+			}
+		}
+	}
+
+	/**
+	 * Get number of layout updates that were merged with other updates of the same frame.
+	 * @return number of saved IPC calls
+	 */
+	long savedUpdates() {
+		return requestedUpdates - committedUpdates - pendingViewsCount;
+	}
+
+	/**
+	 * Get number of requested layout updates.
+	 * @return number of {@link #updateViewLayout(View)} calls
+	 */
+	long requestedUpdates() {
+		return requestedUpdates;
+	}
+
+	/**
+	 * Get number of layout updates actually sent to window manager.
+	 * @return number of IPC calls
+	 */
+	long committedUpdates() {
+		return committedUpdates;
+	}
+
+	/**
+	 * Reset updates counters. Pending updates are counted as requested after reset.
+	 */
+	void resetStats() {
+		requestedUpdates = pendingViewsCount;
+		committedUpdates = 0;
+	}
+}
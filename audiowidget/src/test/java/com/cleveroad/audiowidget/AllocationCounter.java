@@ -0,0 +1,45 @@
+package com.cleveroad.audiowidget;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts bytes allocated by current thread while running an action. Reading the counter allocates a little itself,
+ * this overhead is measured once and subtracted.
+ */
+final class AllocationCounter {
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private static long overhead = -1;
+
+	private AllocationCounter() {
+
+	}
+
+	static boolean isSupported() {
+		return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+	}
+
+	/**
+	 * Get bytes allocated by action.
+	 * @param action action to run on current thread
+	 * @return allocated bytes, without counter overhead
+	 */
+	static long allocatedBytes(Runnable action) {
+		if (overhead < 0) {
+			long min = Long.MAX_VALUE;
+			for (int i = 0; i < 10; i++) {
+				min = Math.min(min, measure(() -> { }));
+			}
+			overhead = min;
+		}
+		return Math.max(0, measure(action) - overhead);
+	}
+
+	private static long measure(Runnable action) {
+		long threadId = Thread.currentThread().getId();
+		long before = THREADS.getThreadAllocatedBytes(threadId);
+		action.run();
+		return THREADS.getThreadAllocatedBytes(threadId) - before;
+	}
+}
@@ -0,0 +1,83 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Rect;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ButtonsLayoutTest {
+
+	private static final float WIDTH = 1000f;
+	private static final int TOP = 80;
+	private static final int BOTTOM = 240;
+
+	@Test
+	public void hitTestMatchesBoundsOfButtons() {
+		int[] counts = {1, 5, 7, 10};
+		for (int count : counts) {
+			ButtonsLayout layout = new ButtonsLayout(WIDTH, TOP, BOTTOM, new int[count]);
+			float sizeStep = WIDTH / count;
+			for (int y = TOP - 10; y < BOTTOM + 10; y += 5) {
+				for (int x = -10; x < WIDTH + 10; x++) {
+					int expected = hitTestByBounds(x, y, count, sizeStep);
+					int actual = layout.hitTest(x, y);
+					// old bounds were truncated to whole pixels, so they may differ by the pixel at slot's edge
+					if (expected != actual && !isAtSlotEdge(x, sizeStep)) {
+						assertEquals("hit test at " + x + ", " + y, expected, actual);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void iconsAreCenteredInSlots() {
+		ButtonsLayout layout = new ButtonsLayout(WIDTH, TOP, BOTTOM, new int[] {20, 30, 20, 30, 20});
+		assertEquals(5, layout.count());
+		assertEquals(200f, layout.sizeStep(), 0f);
+		for (int i = 0; i < layout.count(); i++) {
+			assertEquals(100 + 200 * i, layout.centerX(i));
+			assertEquals((TOP + BOTTOM) / 2, layout.centerY(i));
+		}
+		assertEquals(20, layout.left(0));
+		assertEquals(230, layout.left(1));
+		assertEquals(80f, layout.halfSize(0), 0f);
+		assertEquals(70f, layout.halfSize(1), 0f);
+	}
+
+	@Test
+	public void hitTestAndBoundsDoNotAllocate() {
+		ButtonsLayout layout = new ButtonsLayout(WIDTH, TOP, BOTTOM, new int[] {20, 30, 20, 30, 20});
+		Rect bounds = new Rect();
+		int[] sum = new int[1];
+		long allocated = AllocationCounter.allocatedBytes(() -> {
+			for (int x = 0; x < WIDTH; x += 10) {
+				sum[0] += layout.hitTest(x, (TOP + BOTTOM) / 2f);
+			}
+			for (int i = 0; i < layout.count(); i++) {
+				layout.bounds(i, bounds);
+			}
+		});
+		assertEquals(0, allocated);
+	}
+
+	private static boolean isAtSlotEdge(int x, float sizeStep) {
+		float slot = x / sizeStep;
+		return Math.abs(slot - Math.round(slot)) * sizeStep < 1;
+	}
+
+	/**
+	 * Hit test as it was done before layout was cached: bounds of every button are checked.
+	 */
+	private static int hitTestByBounds(int x, int y, int count, float sizeStep) {
+		for (int i = 0; i < count; i++) {
+			int l = (int) (i * sizeStep);
+			int r = (int) ((i + 1) * sizeStep);
+			if (x >= l && x < r && y >= TOP && y < BOTTOM) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
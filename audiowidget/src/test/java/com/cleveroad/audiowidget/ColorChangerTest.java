@@ -0,0 +1,108 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Color;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ColorChangerTest {
+
+	private static final int FROM = 0xFFFF4081;
+	private static final int TO = 0xFF3F51B5;
+
+	@Test
+	public void rampEndsAtColors() {
+		for (AudioWidget.ColorInterpolation interpolation : AudioWidget.ColorInterpolation.values()) {
+			ColorChanger changer = new ColorChanger(interpolation).fromColor(FROM).toColor(TO);
+			assertColor(interpolation.name(), FROM, changer.nextColor(0f), 1);
+			assertColor(interpolation.name(), TO, changer.nextColor(1f), 1);
+		}
+	}
+
+	@Test
+	public void oklabInterpolatesAlpha() {
+		ColorChanger changer = new ColorChanger(AudioWidget.ColorInterpolation.OKLAB)
+				.fromColor(0x00FFFFFF)
+				.toColor(Color.WHITE);
+		assertEquals(0, Color.alpha(changer.nextColor(0f)));
+		assertEquals(128, Color.alpha(changer.nextColor(0.5f)), 1);
+		assertEquals(255, Color.alpha(changer.nextColor(1f)));
+	}
+
+	@Test
+	public void timeIsClamped() {
+		ColorChanger changer = new ColorChanger(AudioWidget.ColorInterpolation.OKLAB).fromColor(FROM).toColor(TO);
+		assertEquals(changer.nextColor(0f), changer.nextColor(-1f));
+		assertEquals(changer.nextColor(1f), changer.nextColor(2f));
+	}
+
+	@Test
+	public void sameColorsGiveConstantRamp() {
+		for (AudioWidget.ColorInterpolation interpolation : AudioWidget.ColorInterpolation.values()) {
+			ColorChanger changer = new ColorChanger(interpolation).fromColor(FROM).toColor(FROM);
+			for (int i = 0; i <= 10; i++) {
+				assertColor(interpolation.name(), FROM, changer.nextColor(i / 10f), 1);
+			}
+		}
+	}
+
+	@Test
+	public void oklabMidpointIsPerceptualGray() {
+		ColorChanger changer = new ColorChanger(AudioWidget.ColorInterpolation.OKLAB)
+				.fromColor(Color.BLACK)
+				.toColor(Color.WHITE);
+		int middle = changer.nextColor(0.5f);
+		// OKLab lightness of 0.5 is linear value of 0.125, which is 99 in sRGB
+		assertColor("middle", Color.rgb(99, 99, 99), middle, 1);
+	}
+
+	@Test
+	public void oklabRampIsMonotonicInLightness() {
+		ColorChanger changer = new ColorChanger(AudioWidget.ColorInterpolation.OKLAB)
+				.fromColor(Color.BLACK)
+				.toColor(Color.WHITE);
+		int previous = -1;
+		for (int i = 0; i < ColorChanger.RAMP_SIZE; i++) {
+			int gray = Color.red(changer.nextColor(1f * i / (ColorChanger.RAMP_SIZE - 1)));
+			assertTrue(gray >= previous);
+			previous = gray;
+		}
+	}
+
+	@Test
+	public void changingColorRebuildsRamp() {
+		ColorChanger changer = new ColorChanger(AudioWidget.ColorInterpolation.HSV).fromColor(FROM).toColor(TO);
+		changer.nextColor(0.5f);
+		changer.toColor(Color.WHITE);
+		assertColor("to", Color.WHITE, changer.nextColor(1f), 1);
+	}
+
+	@Test
+	public void nextColorDoesNotAllocate() {
+		for (AudioWidget.ColorInterpolation interpolation : AudioWidget.ColorInterpolation.values()) {
+			ColorChanger changer = new ColorChanger(interpolation).fromColor(FROM).toColor(TO);
+			// ramp is built on first use
+			changer.nextColor(0f);
+			int[] sum = new int[1];
+			long allocated = AllocationCounter.allocatedBytes(() -> {
+				for (int i = 0; i <= 100; i++) {
+					sum[0] += changer.nextColor(i / 100f);
+				}
+			});
+			assertEquals(interpolation.name(), 0, allocated);
+		}
+	}
+
+	private static void assertColor(String message, int expected, int actual, int tolerance) {
+		String text = message + ": expected " + Integer.toHexString(expected) + ", actual " + Integer.toHexString(actual);
+		assertTrue(text, Math.abs(Color.alpha(expected) - Color.alpha(actual)) <= tolerance);
+		assertTrue(text, Math.abs(Color.red(expected) - Color.red(actual)) <= tolerance);
+		assertTrue(text, Math.abs(Color.green(expected) - Color.green(actual)) <= tolerance);
+		assertTrue(text, Math.abs(Color.blue(expected) - Color.blue(actual)) <= tolerance);
+	}
+}
@@ -0,0 +1,107 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Software canvas that counts draw calls instead of drawing, so draw cost of a view can be checked on JVM.
+ */
+class CountingCanvas extends Canvas {
+
+	private int drawCalls;
+
+	CountingCanvas(@NonNull Bitmap bitmap) {
+		super(bitmap);
+	}
+
+	int drawCalls() {
+		return drawCalls;
+	}
+
+	void reset() {
+		drawCalls = 0;
+	}
+
+	@Override
+	public void drawArc(@NonNull RectF oval, float startAngle, float sweepAngle, boolean useCenter, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawBitmap(@NonNull Bitmap bitmap, float left, float top, @Nullable Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawBitmap(@NonNull Bitmap bitmap, @Nullable Rect src, @NonNull Rect dst, @Nullable Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawBitmap(@NonNull Bitmap bitmap, @Nullable Rect src, @NonNull RectF dst, @Nullable Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawBitmap(@NonNull Bitmap bitmap, @NonNull Matrix matrix, @Nullable Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawCircle(float cx, float cy, float radius, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawLine(float startX, float startY, float stopX, float stopY, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawPoints(@NonNull float[] pts, int offset, int count, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawPoints(@NonNull float[] pts, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawRoundRect(@NonNull RectF rect, float rx, float ry, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawRect(@NonNull RectF rect, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawRect(@NonNull Rect rect, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawRect(float left, float top, float right, float bottom, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawOval(@NonNull RectF oval, @NonNull Paint paint) {
+		drawCalls++;
+	}
+
+	@Override
+	public void drawPath(@NonNull Path path, @NonNull Paint paint) {
+		drawCalls++;
+	}
+}
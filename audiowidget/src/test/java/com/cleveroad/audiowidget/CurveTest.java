@@ -0,0 +1,78 @@
+package com.cleveroad.audiowidget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CurveTest {
+
+	private static final float DELTA = 1e-4f;
+
+	@Test
+	public void valuesAtPoints() {
+		Curve curve = Curve.of(0, 0, 255, 0.33f, 255, 0.66f, 0, 1f);
+		assertEquals(0f, curve.value(0), DELTA);
+		assertEquals(255f, curve.value(0.33f), DELTA);
+		assertEquals(255f, curve.value(0.66f), DELTA);
+		assertEquals(0f, curve.value(1f), DELTA);
+	}
+
+	@Test
+	public void valuesBetweenPoints() {
+		Curve curve = Curve.of(0, 0, 0, 0.3f, 255, 0.5f, 225, 0.7f, 0, 1f);
+		assertEquals(0f, curve.value(0.15f), DELTA);
+		assertEquals(127.5f, curve.value(0.4f), DELTA);
+		assertEquals(240f, curve.value(0.6f), DELTA);
+		assertEquals(112.5f, curve.value(0.85f), DELTA);
+	}
+
+	@Test
+	public void valuesOutsideOfCurve() {
+		Curve curve = Curve.of(10, 0.2f, 20, 0.8f);
+		assertEquals(10f, curve.value(-1f), DELTA);
+		assertEquals(10f, curve.value(0.1f), DELTA);
+		assertEquals(20f, curve.value(0.9f), DELTA);
+		assertEquals(20f, curve.value(2f), DELTA);
+	}
+
+	@Test
+	public void stepAtEqualTimes() {
+		Curve curve = Curve.of(0, 0, 0, 0.5f, 100, 0.5f, 100, 1f);
+		assertEquals(0f, curve.value(0.49f), DELTA);
+		assertEquals(100f, curve.value(0.5f), DELTA);
+		assertEquals(100f, curve.value(0.51f), DELTA);
+	}
+
+	@Test
+	public void singlePoint() {
+		Curve curve = Curve.of(42, 0.5f);
+		assertEquals(42f, curve.value(0), DELTA);
+		assertEquals(42f, curve.value(1), DELTA);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void oddNumberOfValues() {
+		Curve.of(0, 0, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void noValues() {
+		Curve.of();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void descendingTimes() {
+		Curve.of(0, 1, 1, 0);
+	}
+	@Test
+	public void valueDoesNotAllocate() {
+		Curve curve = Curve.of(0, 0, 0, 0.3f, 255, 0.5f, 225, 0.7f, 0, 1f);
+		float[] sum = new float[1];
+		long allocated = AllocationCounter.allocatedBytes(() -> {
+			for (int i = 0; i <= 100; i++) {
+				sum[0] += curve.value(i / 100f);
+			}
+		});
+		assertEquals(0, allocated);
+	}
+}
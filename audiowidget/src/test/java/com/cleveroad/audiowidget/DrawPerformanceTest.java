@@ -0,0 +1,249 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Bitmap;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Draws widget views into counting canvas frame by frame while they animate and checks number of draw calls
+ * and allocations of each frame, which are the same as on device. Draw time on JVM is not the device draw time
+ * and depends on load of the machine, so it's only reported.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DrawPerformanceTest {
+
+	/**
+	 * Shadow, button, album cover, progress arc, play and pause icons and one batch per bubbles size bucket.
+	 */
+	private static final int COLLAPSED_MAX_DRAW_CALLS = 6 + ParticleSystem.SIZE_BUCKETS;
+
+	/**
+	 * Background, playlist, previous, play or pause, next and album icons and one batch per bubbles size bucket.
+	 */
+	private static final int EXPANDED_MAX_DRAW_CALLS = 6 + ParticleSystem.SIZE_BUCKETS;
+
+	/**
+	 * Circle and two lines of cross.
+	 */
+	private static final int REMOVE_MAX_DRAW_CALLS = 3;
+
+	private static final int MAX_FRAMES = 300;
+
+	@Rule
+	public final TestRule frames = WidgetHarness.pausedFrames();
+
+	private AudioWidget widget;
+	private AudioWidget.State state;
+
+	@After
+	public void tearDown() {
+		if (widget != null) {
+			widget.hide();
+		}
+	}
+
+	@Test
+	public void drawMetricsAreDisabledByDefault() {
+		show(WidgetHarness.builder());
+		PlayPauseButton button = widget.playPauseButton();
+		button.onDraw(canvas(button));
+
+		assertFalse(button.drawStats().isEnabled());
+		assertFalse(widget.expandCollapseWidget().drawStats().isEnabled());
+		assertFalse(widget.removeWidgetView().drawStats().isEnabled());
+		assertEquals(0, widget.metrics().collapsedWidget().framesCount());
+	}
+
+	@Test
+	public void drawMetricsAreEnabledByBuilder() {
+		show(WidgetHarness.builder().drawMetrics(true));
+		PlayPauseButton button = widget.playPauseButton();
+		CountingCanvas canvas = canvas(button);
+		button.onDraw(canvas);
+		button.onDraw(canvas);
+
+		assertTrue(widget.expandCollapseWidget().drawStats().isEnabled());
+		assertTrue(widget.removeWidgetView().drawStats().isEnabled());
+		assertEquals(2, widget.metrics().collapsedWidget().framesCount());
+	}
+
+	@Test
+	public void adaptiveQualityEnablesDrawMetrics() {
+		show(WidgetHarness.builder().adaptiveQuality(true));
+
+		assertTrue(widget.playPauseButton().drawStats().isEnabled());
+		assertTrue(widget.expandCollapseWidget().drawStats().isEnabled());
+	}
+
+	@Test
+	public void collapsedWidgetDrawsBubblesWithoutAllocations() {
+		show(WidgetHarness.builder().drawMetrics(true));
+		PlayPauseButton button = widget.playPauseButton();
+		// progress ticks are rescheduled on each draw and Robolectric's scheduler allocates on removal of callbacks
+		button.enableProgressChanges(false);
+		WidgetHarness.frames(30);
+		CountingCanvas canvas = canvas(button);
+		Runnable draw = () -> button.onDraw(canvas);
+		// first burst creates lazy objects
+		button.onClick();
+		for (int i = 0; i < MAX_FRAMES && button.isAnimationInProgress(); i++) {
+			WidgetHarness.frames(1);
+			draw.run();
+		}
+		button.drawStats().reset();
+
+		button.onClick();
+		int frames = 0;
+		while (button.isAnimationInProgress() && frames < MAX_FRAMES) {
+			WidgetHarness.frames(1);
+			checkFrame(draw, canvas, COLLAPSED_MAX_DRAW_CALLS);
+			frames++;
+		}
+
+		assertTrue("animation frames " + frames, frames > 10 && frames < MAX_FRAMES);
+		reportDrawTime("collapsed", button.drawStats(), frames);
+	}
+
+	/**
+	 * Software mode draws shadow with shadow layer of button paint, hardware mode draws pre-rendered shadow bitmap,
+	 * one more draw call. Counting canvas doesn't rasterize, so this compares only the cost of recording a frame;
+	 * cost of rasterization of shadow layer is seen on device only.
+	 */
+	@Test
+	public void renderModesDrawBubblesWithoutAllocations() {
+		int[] staticDrawCalls = new int[AudioWidget.RenderMode.values().length];
+		for (AudioWidget.RenderMode renderMode : AudioWidget.RenderMode.values()) {
+			show(WidgetHarness.builder().renderMode(renderMode).drawMetrics(true));
+			PlayPauseButton button = widget.playPauseButton();
+			button.enableProgressChanges(false);
+			WidgetHarness.frames(30);
+			int expectedLayerType = renderMode == AudioWidget.RenderMode.SOFTWARE ? View.LAYER_TYPE_SOFTWARE : View.LAYER_TYPE_NONE;
+			assertEquals(renderMode.name(), expectedLayerType, button.getLayerType());
+			CountingCanvas canvas = canvas(button);
+			button.onDraw(canvas);
+			staticDrawCalls[renderMode.ordinal()] = canvas.drawCalls();
+
+			Runnable draw = () -> button.onDraw(canvas);
+			button.onClick();
+			for (int i = 0; i < MAX_FRAMES && button.isAnimationInProgress(); i++) {
+				WidgetHarness.frames(1);
+				draw.run();
+			}
+			button.drawStats().reset();
+			button.onClick();
+			int frames = 0;
+			while (button.isAnimationInProgress() && frames < MAX_FRAMES) {
+				WidgetHarness.frames(1);
+				checkFrame(draw, canvas, COLLAPSED_MAX_DRAW_CALLS);
+				frames++;
+			}
+			reportDrawTime(renderMode.name(), button.drawStats(), frames);
+			widget.hide();
+		}
+		widget = null;
+
+		assertEquals(staticDrawCalls[AudioWidget.RenderMode.SOFTWARE.ordinal()] + 1,
+				staticDrawCalls[AudioWidget.RenderMode.HARDWARE.ordinal()]);
+	}
+
+	@Test
+	public void expandedWidgetDrawsWithoutAllocations() {
+		show(WidgetHarness.builder().drawMetrics(true));
+		ExpandCollapseWidget expandedWidget = widget.expandCollapseWidget();
+		// first expand creates lazy objects
+		widget.expand();
+		WidgetHarness.frames(MAX_FRAMES);
+		assertEquals(AudioWidget.State.EXPANDED, state);
+		CountingCanvas canvas = canvas(expandedWidget);
+		Runnable draw = () -> expandedWidget.onDraw(canvas);
+		draw.run();
+		widget.collapse();
+		for (int i = 0; i < MAX_FRAMES && expandedWidget.isAnimationInProgress(); i++) {
+			WidgetHarness.frames(1);
+			draw.run();
+		}
+		WidgetHarness.frames(30);
+		assertEquals(AudioWidget.State.COLLAPSED, state);
+		expandedWidget.drawStats().reset();
+
+		widget.expand();
+		int frames = 0;
+		for (int i = 0; i < MAX_FRAMES && (frames == 0 || expandedWidget.isAnimationInProgress()); i++) {
+			WidgetHarness.frames(1);
+			if (expandedWidget.isAnimationInProgress()) {
+				checkFrame(draw, canvas, EXPANDED_MAX_DRAW_CALLS);
+				frames++;
+			}
+		}
+
+		assertTrue("animation frames " + frames, frames > 10);
+		reportDrawTime("expanded", expandedWidget.drawStats(), frames);
+	}
+
+	@Test
+	public void removeWidgetDrawsWithoutAllocations() {
+		show(WidgetHarness.builder().drawMetrics(true));
+		RemoveWidgetView removeWidget = widget.removeWidgetView();
+		CountingCanvas canvas = canvas(removeWidget);
+		Runnable draw = () -> removeWidget.onDraw(canvas);
+		draw.run();
+		removeWidget.drawStats().reset();
+
+		for (int i = 0; i < 30; i++) {
+			checkFrame(draw, canvas, REMOVE_MAX_DRAW_CALLS);
+		}
+		reportDrawTime("remove", removeWidget.drawStats(), 30);
+	}
+
+	private void show(AudioWidget.Builder builder) {
+		widget = builder.build();
+		widget.controller().onWidgetStateChangedListener(new AudioWidget.OnWidgetStateChangedListener() {
+			@Override
+			public void onWidgetStateChanged(@NonNull AudioWidget.State state) {
+				DrawPerformanceTest.this.state = state;
+			}
+
+			@Override
+			public void onWidgetPositionChanged(int cx, int cy) {
+
+			}
+		});
+		widget.show(100, 100);
+		WidgetHarness.frames(30);
+	}
+
+	private static void checkFrame(Runnable draw, CountingCanvas canvas, int maxDrawCalls) {
+		canvas.reset();
+		long allocated = AllocationCounter.allocatedBytes(draw);
+		int drawCalls = canvas.drawCalls();
+		assertTrue("draw calls " + drawCalls, drawCalls > 0 && drawCalls <= maxDrawCalls);
+		if (AllocationCounter.isSupported()) {
+			assertEquals("allocated bytes", 0, allocated);
+		}
+	}
+
+	/**
+	 * Check that each frame was recorded and print draw times.
+	 */
+	private static void reportDrawTime(String name, FrameStats stats, int frames) {
+		assertEquals(name, frames, stats.framesCount());
+		System.out.println(name + ": " + frames + " frames, average draw time " + stats.averageNanos()
+				+ " ns, max " + stats.maxNanos() + " ns, budget " + stats.budgetNanos() + " ns");
+	}
+
+	private static CountingCanvas canvas(View view) {
+		return new CountingCanvas(Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888));
+	}
+}
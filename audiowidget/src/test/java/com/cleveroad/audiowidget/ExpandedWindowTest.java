@@ -0,0 +1,136 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts windows added to and removed from window manager by expand and collapse and surfaces of widget windows.
+ * Each added window is a synchronous window manager transaction and a new surface, this cost is seen on device only.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ExpandedWindowTest {
+
+	private static final int CYCLES = 5;
+	private static final int MAX_FRAMES = 300;
+
+	@Rule
+	public final TestRule frames = WidgetHarness.pausedFrames();
+
+	private AudioWidget widget;
+	private AudioWidget.State state;
+
+	@After
+	public void tearDown() {
+		if (widget != null) {
+			widget.hide();
+		}
+	}
+
+	@Test
+	public void expandedWindowIsAddedOnEachExpand() {
+		show(false);
+		AudioWidget.Metrics shown = widget.metrics();
+
+		cycles();
+
+		AudioWidget.Metrics metrics = widget.metrics();
+		assertEquals(CYCLES, metrics.windowsAdded() - shown.windowsAdded());
+		assertEquals(CYCLES, metrics.windowsRemoved() - shown.windowsRemoved());
+	}
+
+	@Test
+	public void keptExpandedWindowIsAddedOnce() {
+		show(true);
+		AudioWidget.Metrics shown = widget.metrics();
+
+		cycles();
+
+		AudioWidget.Metrics metrics = widget.metrics();
+		assertEquals(0, metrics.windowsAdded() - shown.windowsAdded());
+		assertEquals(0, metrics.windowsRemoved() - shown.windowsRemoved());
+		assertEquals(View.GONE, widget.expandCollapseWidget().getVisibility());
+	}
+
+	@Test
+	public void expandLatencyIsTakenAtFirstDrawOfExpandedWidget() {
+		for (boolean keepExpandedWindow : new boolean[] {false, true}) {
+			show(keepExpandedWindow);
+			ExpandCollapseWidget expandedWidget = widget.expandCollapseWidget();
+			long requestTime = SystemClock.uptimeMillis();
+			widget.expand();
+			for (int i = 0; i < MAX_FRAMES && !hasSurface(expandedWidget); i++) {
+				WidgetHarness.frames(1);
+			}
+			assertTrue(hasSurface(expandedWidget));
+			assertEquals(-1, widget.metrics().lastExpandLatency());
+
+			draw(expandedWidget);
+			long latency = widget.metrics().lastExpandLatency();
+			assertEquals(SystemClock.uptimeMillis() - requestTime, latency);
+			assertTrue("latency " + latency, latency >= PlayPauseButton.PROGRESS_CHANGES_DURATION);
+
+			WidgetHarness.frames(1);
+			draw(expandedWidget);
+			assertEquals(latency, widget.metrics().lastExpandLatency());
+			widget.hide();
+			widget = null;
+		}
+	}
+
+	private void show(boolean keepExpandedWindow) {
+		widget = WidgetHarness.builder().keepExpandedWindow(keepExpandedWindow).build();
+		widget.controller().onWidgetStateChangedListener(new AudioWidget.OnWidgetStateChangedListener() {
+			@Override
+			public void onWidgetStateChanged(@NonNull AudioWidget.State state) {
+				ExpandedWindowTest.this.state = state;
+			}
+
+			@Override
+			public void onWidgetPositionChanged(int cx, int cy) {
+
+			}
+		});
+		widget.show(100, 100);
+		WidgetHarness.frames(30);
+	}
+
+	/**
+	 * Expand and collapse widget. Collapsed widget has surfaces of button and remove view windows,
+	 * expanded one also has surface of expanded widget's window.
+	 */
+	private void cycles() {
+		assertEquals(2, widget.metrics().surfacesCount());
+		for (int i = 0; i < CYCLES; i++) {
+			widget.expand();
+			WidgetHarness.frames(MAX_FRAMES);
+			assertEquals(AudioWidget.State.EXPANDED, state);
+			assertEquals(3, widget.metrics().surfacesCount());
+			widget.collapse();
+			WidgetHarness.frames(MAX_FRAMES);
+			assertEquals(AudioWidget.State.COLLAPSED, state);
+			assertEquals(2, widget.metrics().surfacesCount());
+		}
+	}
+
+	private static void draw(ExpandCollapseWidget view) {
+		view.onDraw(new Canvas(Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888)));
+	}
+
+	private static boolean hasSurface(View view) {
+		return view.getParent() != null && view.getVisibility() == View.VISIBLE;
+	}
+}
@@ -0,0 +1,248 @@
+package com.cleveroad.audiowidget;
+
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares fling target error of release velocity estimated by {@link VelocityTracker} with the exponential
+ * smoothing {@link TouchManager} used before. Fling target is the point where released widget would stop,
+ * <code>velocity / friction</code> away from release point.
+ * <p>
+ * Robolectric's velocity tracker uses only the first and the last of recent events and ignores historical
+ * samples, so it tells nothing about device's one. Device's tracker is modeled here by its default strategy:
+ * least squares fit of quadratic polynomial over samples of the last 100 ms, historical ones included.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FlingVelocityTest {
+
+	/**
+	 * Same as friction of snap animation in {@link TouchManager}.
+	 */
+	private static final float FLING_FRICTION = 5f;
+
+	/**
+	 * Input is sampled every 4 ms and delivered once per 16 ms frame with 3 historical samples.
+	 */
+	private static final int SAMPLE_MILLIS = 4;
+	private static final int SAMPLES_PER_EVENT = 4;
+
+	private static final long HORIZON_MILLIS = 100;
+	private static final int HISTORY_SIZE = 20;
+
+	/**
+	 * Release velocity of fling trace: 25 px right and 5 px down every 8 ms.
+	 */
+	private static final float FLING_TRACE_VELOCITY_X = 3125;
+	private static final float FLING_TRACE_VELOCITY_Y = 625;
+
+	private interface Path {
+		float x(float t);
+	}
+
+	@Test
+	public void velocityTrackerReducesFlingTargetError() {
+		Path[] paths = {
+				// constant velocity
+				t -> 2000 * t,
+				// accelerating flick
+				t -> 0.5f * 25000 * t * t,
+				// slowing down before release
+				t -> 3000 * t - 0.5f * 10000 * t * t,
+				// slow drag, then flick
+				t -> t < 0.3f ? 200 * t : 60 + 2500 * (t - 0.3f),
+		};
+		float[] durations = {0.15f, 0.12f, 0.15f, 0.36f};
+		float oldErrors = 0;
+		float newErrors = 0;
+		for (int i = 0; i < paths.length; i++) {
+			Path path = paths[i];
+			float duration = durations[i];
+			float velocity = (path.x(duration) - path.x(duration - 1e-3f)) / 1e-3f;
+			MotionEvent[] events = gesture(path, duration);
+			float oldError = targetError(smoothedVelocity(events), velocity, 0);
+			float newError = targetError(trackedVelocity(events), velocity, 0);
+			assertTrue("path " + i + ": old error " + oldError + " px, new error " + newError + " px", newError < oldError);
+			oldErrors += oldError;
+			newErrors += newError;
+			for (MotionEvent event : events) {
+				event.recycle();
+			}
+		}
+		assertTrue("old error " + oldErrors + " px, new error " + newErrors + " px", newErrors < oldErrors / 2);
+	}
+
+	@Test
+	public void velocityTrackerReducesFlingTargetErrorOfRecordedFling() throws IOException {
+		MotionEvent[] events = trace("fling.trace");
+
+		float oldError = targetError(smoothedVelocity(events), FLING_TRACE_VELOCITY_X, FLING_TRACE_VELOCITY_Y);
+		float newError = targetError(trackedVelocity(events), FLING_TRACE_VELOCITY_X, FLING_TRACE_VELOCITY_Y);
+
+		assertTrue("old error " + oldError + " px, new error " + newError + " px", newError < oldError / 2);
+	}
+
+	/**
+	 * Distance between fling targets of estimated and actual velocity.
+	 */
+	private static float targetError(float[] estimated, float velocityX, float velocityY) {
+		float dx = Spring.decayDistance(estimated[0], FLING_FRICTION) - Spring.decayDistance(velocityX, FLING_FRICTION);
+		float dy = Spring.decayDistance(estimated[1], FLING_FRICTION) - Spring.decayDistance(velocityY, FLING_FRICTION);
+		return (float) Math.hypot(dx, dy);
+	}
+
+	/**
+	 * Create gesture along x axis, in screen coordinates.
+	 */
+	private static MotionEvent[] gesture(Path path, float duration) {
+		int moves = Math.round(duration * 1000 / SAMPLE_MILLIS) / SAMPLES_PER_EVENT;
+		MotionEvent[] events = new MotionEvent[moves + 2];
+		events[0] = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, path.x(0), 0, 0);
+		for (int i = 1; i <= moves; i++) {
+			MotionEvent event = null;
+			for (int s = SAMPLES_PER_EVENT - 1; s >= 0; s--) {
+				long time = (i * SAMPLES_PER_EVENT - s) * SAMPLE_MILLIS;
+				float x = path.x(time / 1000f);
+				if (event == null) {
+					event = MotionEvent.obtain(0, time, MotionEvent.ACTION_MOVE, x, 0, 0);
+				} else {
+					event.addBatch(time, x, 0, 1f, 1f, 0);
+				}
+			}
+			events[i] = event;
+		}
+		MotionEvent last = events[moves];
+		events[moves + 1] = MotionEvent.obtain(0, last.getEventTime(), MotionEvent.ACTION_UP, last.getX(), 0, 0);
+		return events;
+	}
+
+	/**
+	 * Read recorded gesture, in screen coordinates, as touch manager passes it to velocity tracker.
+	 */
+	private MotionEvent[] trace(String name) throws IOException {
+		List<MotionEvent> events = new ArrayList<>();
+		try (InputStream in = getClass().getResourceAsStream(name)) {
+			GestureReplayer.Trace trace = new GestureReplayer.Trace(in);
+			long time = 0;
+			while (trace.next()) {
+				time += trace.delay();
+				MotionEvent event = trace.obtainEvent(0, time);
+				event.offsetLocation(event.getRawX() - event.getX(), event.getRawY() - event.getY());
+				events.add(event);
+			}
+		}
+		return events.toArray(new MotionEvent[0]);
+	}
+
+	/**
+	 * Velocity estimated as {@link TouchManager} did before: exponential smoothing of velocities between
+	 * consecutive move events, historical samples ignored.
+	 */
+	private static float[] smoothedVelocity(MotionEvent[] events) {
+		float velX = 0, velY = 0;
+		float lastRawX = 0, lastRawY = 0;
+		long lastEventTime = 0;
+		boolean hasLastRaw = false;
+		for (MotionEvent e2 : events) {
+			if (e2.getActionMasked() != MotionEvent.ACTION_MOVE) {
+				continue;
+			}
+			if (hasLastRaw) {
+				long diff = e2.getEventTime() - lastEventTime;
+				float dt = diff == 0 ? 0 : 1000f / diff;
+				float newVelX = (e2.getRawX() - lastRawX) * dt;
+				float newVelY = (e2.getRawY() - lastRawY) * dt;
+				velX = DrawableUtils.smooth(velX, newVelX, 0.2f);
+				velY = DrawableUtils.smooth(velY, newVelY, 0.2f);
+			}
+			lastRawX = e2.getRawX();
+			lastRawY = e2.getRawY();
+			hasLastRaw = true;
+			lastEventTime = e2.getEventTime();
+		}
+		return new float[] {velX, velY};
+	}
+
+	/**
+	 * Velocity estimated as device's velocity tracker does by default. Positions of up events are ignored.
+	 */
+	private static float[] trackedVelocity(MotionEvent[] events) {
+		List<float[]> samples = new ArrayList<>();
+		for (MotionEvent event : events) {
+			int action = event.getActionMasked();
+			if (action != MotionEvent.ACTION_DOWN && action != MotionEvent.ACTION_MOVE) {
+				continue;
+			}
+			for (int i = 0; i < event.getHistorySize(); i++) {
+				samples.add(new float[] {event.getHistoricalEventTime(i), event.getHistoricalX(i), event.getHistoricalY(i)});
+			}
+			samples.add(new float[] {event.getEventTime(), event.getX(), event.getY()});
+		}
+		float newest = samples.get(samples.size() - 1)[0];
+		List<float[]> recent = new ArrayList<>();
+		for (int i = samples.size() - 1; i >= 0 && recent.size() < HISTORY_SIZE; i--) {
+			float[] sample = samples.get(i);
+			if (newest - sample[0] > HORIZON_MILLIS) {
+				break;
+			}
+			recent.add(sample);
+		}
+		return new float[] {quadraticFitSlope(recent, newest, 1), quadraticFitSlope(recent, newest, 2)};
+	}
+
+	/**
+	 * Fit <code>b0 + b1 * t + b2 * t^2</code> to samples by least squares, time relative to newest sample.
+	 * @return b1, velocity at newest sample, in px per second
+	 */
+	private static float quadraticFitSlope(List<float[]> samples, float newest, int coordinate) {
+		// normal equations: sums of t^k and of t^k * x
+		double[] st = new double[5];
+		double[] stx = new double[3];
+		for (float[] sample : samples) {
+			double t = (sample[0] - newest) / 1000.0;
+			double x = sample[coordinate];
+			double tk = 1;
+			for (int k = 0; k < 5; k++) {
+				st[k] += tk;
+				if (k < 3) {
+					stx[k] += tk * x;
+				}
+				tk *= t;
+			}
+		}
+		if (samples.size() < 3) {
+			// linear fit
+			double det = st[0] * st[2] - st[1] * st[1];
+			return det == 0 ? 0 : (float) ((st[0] * stx[1] - st[1] * stx[0]) / det);
+		}
+		double[][] a = {
+				{st[0], st[1], st[2]},
+				{st[1], st[2], st[3]},
+				{st[2], st[3], st[4]},
+		};
+		double det = determinant(a);
+		// Cramer's rule for b1
+		double[][] a1 = {
+				{st[0], stx[0], st[2]},
+				{st[1], stx[1], st[3]},
+				{st[2], stx[2], st[4]},
+		};
+		return det == 0 ? 0 : (float) (determinant(a1) / det);
+	}
+
+	private static double determinant(double[][] m) {
+		return m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+				- m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0])
+				+ m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+	}
+}
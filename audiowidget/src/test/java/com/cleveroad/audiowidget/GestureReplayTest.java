@@ -0,0 +1,133 @@
+package com.cleveroad.audiowidget;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays recorded gestures and checks where widget ends up. Traces were recorded on Robolectric's default
+ * screen with widget shown at {@link #SHOW_X}, {@link #SHOW_Y}, so the same position is used here; replay
+ * with controlled clock must end exactly where recorded session ended.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class GestureReplayTest {
+
+	private static final int SHOW_X = 100;
+	private static final int SHOW_Y = 300;
+
+	@Rule
+	public final TestRule frames = WidgetHarness.pausedFrames();
+
+	private AudioWidget widget;
+
+	@Before
+	public void setUp() {
+		show();
+	}
+
+	@After
+	public void tearDown() {
+		if (widget.isShown()) {
+			widget.hide();
+		}
+	}
+
+	@Test
+	public void dragSnapsToNearestEdge() throws IOException {
+		GestureReplayer.Result result = replay("drag.trace");
+
+		assertNull(result.toString(), result.state());
+		assertEquals(-1, result.callbackTime("onPlayPauseClicked"));
+		assertEquals(-40, result.positionX());
+		assertEquals(318, result.positionY());
+		assertPositionReportedAfterSnap(result);
+		assertFrames(result);
+	}
+
+	@Test
+	public void flingSnapsToEdgeInDirectionOfFling() throws IOException {
+		GestureReplayer.Result result = replay("fling.trace");
+
+		assertNull(result.toString(), result.state());
+		assertEquals(240, result.positionX());
+		assertEquals(290, result.positionY());
+		assertPositionReportedAfterSnap(result);
+		assertFrames(result);
+	}
+
+	@Test
+	public void dragToRemoveButtonRemovesWidget() throws IOException {
+		GestureReplayer.Result result = replay("remove.trace");
+
+		assertEquals(result.toString(), AudioWidget.State.REMOVED, result.state());
+		assertEquals(result.lastEventTime(), result.callbackTime("onWidgetStateChanged(REMOVED)"));
+		assertFalse(widget.isShown());
+		assertFrames(result);
+	}
+
+	@Test
+	public void tapOnSnappedWidgetStopsFrames() {
+		WidgetHarness.frames(200);
+		long downTime = SystemClock.uptimeMillis();
+		tap(downTime, MotionEvent.ACTION_DOWN);
+		WidgetHarness.frames(5);
+		tap(downTime, MotionEvent.ACTION_UP);
+		WidgetHarness.frames(200);
+
+		long framesCount = AnimationEngine.getInstance().framesCount();
+		WidgetHarness.frames(60);
+		assertEquals(framesCount, AnimationEngine.getInstance().framesCount());
+	}
+
+	private void show() {
+		widget = WidgetHarness.builder().build();
+		widget.show(SHOW_X, SHOW_Y);
+		WidgetHarness.frames(30);
+	}
+
+	private GestureReplayer.Result replay(String trace) throws IOException {
+		try (InputStream in = getClass().getResourceAsStream(trace)) {
+			return GestureReplayer.replay(widget, in);
+		}
+	}
+
+	private void tap(long downTime, int action) {
+		MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, 20, 20, 0);
+		widget.playPauseButtonManager().onTouch(widget.playPauseButton(), event);
+		event.recycle();
+	}
+
+	/**
+	 * Position is reported on release and once more when widget comes to rest at screen edge.
+	 */
+	private static void assertPositionReportedAfterSnap(GestureReplayer.Result result) {
+		int last = result.callbacks().lastIndexOf("onWidgetPositionChanged");
+		assertTrue(result.toString(), result.callbacks().indexOf("onWidgetPositionChanged") < last);
+		assertEquals(result.lastEventTime(), result.callbackTime("onWidgetPositionChanged"));
+	}
+
+	/**
+	 * Frames are done only while something moves, window updates requested during one frame are merged.
+	 */
+	private static void assertFrames(GestureReplayer.Result result) {
+		long maxFrames = (result.lastEventTime() + GestureReplayer.SETTLE_MILLIS) / WidgetHarness.FRAME_MILLIS;
+		assertTrue(result.toString(), result.framesCount() > 0 && result.framesCount() < maxFrames);
+		assertTrue(result.toString(), result.layoutUpdatesCommitted() > 0);
+		assertTrue(result.toString(), result.layoutUpdatesCommitted() < result.layoutUpdatesRequested());
+	}
+}
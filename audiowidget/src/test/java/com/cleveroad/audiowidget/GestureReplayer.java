@@ -0,0 +1,392 @@
+package com.cleveroad.audiowidget;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.WindowManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays traces written by {@link MotionEventRecorder} through touch managers of widget. Main looper must be
+ * paused by {@link WidgetHarness#pausedFrames()}: time between events is passed by idling the looper, so frames,
+ * delayed callbacks and animations run between events exactly when they would run between recorded events.
+ */
+final class GestureReplayer {
+
+	/**
+	 * Time given to widget after last event to finish its animations.
+	 */
+	static final long SETTLE_MILLIS = 3000;
+
+	private GestureReplayer() {
+
+	}
+
+	/**
+	 * Replay trace.
+	 * @param widget shown widget
+	 * @param trace trace to replay
+	 * @return result of replay
+	 * @throws IOException if trace can't be read or has unsupported version
+	 */
+	@NonNull
+	static Result replay(@NonNull AudioWidget widget, @NonNull InputStream trace) throws IOException {
+		Trace events = new Trace(trace);
+		long startTime = SystemClock.uptimeMillis();
+		Result result = new Result(startTime);
+		listen(widget, result);
+		AudioWidget.Metrics before = widget.metrics();
+		long framesBefore = AnimationEngine.getInstance().framesCount();
+		long downTime = startTime;
+		while (events.next()) {
+			if (events.delay() > 0) {
+				ShadowLooper.idleMainLooper(events.delay());
+			}
+			long eventTime = SystemClock.uptimeMillis();
+			if (events.actionMasked() == MotionEvent.ACTION_DOWN) {
+				downTime = eventTime;
+			}
+			MotionEvent event = events.obtainEvent(downTime, eventTime);
+			if (events.source() == MotionEventRecorder.SOURCE_COLLAPSED) {
+				widget.playPauseButtonManager().onTouch(widget.playPauseButton(), event);
+			} else {
+				widget.expandedWidgetManager().onTouch(widget.expandCollapseWidget(), event);
+			}
+			event.recycle();
+			result.eventsCount++;
+			result.lastEventTime = eventTime - startTime;
+		}
+		ShadowLooper.idleMainLooper(SETTLE_MILLIS);
+		AudioWidget.Metrics after = widget.metrics();
+		result.framesCount = AnimationEngine.getInstance().framesCount() - framesBefore;
+		result.layoutUpdatesRequested = after.layoutUpdatesRequested() - before.layoutUpdatesRequested();
+		result.layoutUpdatesCommitted = after.layoutUpdatesCommitted() - before.layoutUpdatesCommitted();
+		WindowManager.LayoutParams params = (WindowManager.LayoutParams) widget.playPauseButton().getLayoutParams();
+		result.positionX = params.x;
+		result.positionY = params.y;
+		return result;
+	}
+
+	private static void listen(AudioWidget widget, Result result) {
+		widget.controller().onWidgetStateChangedListener(new AudioWidget.OnWidgetStateChangedListener() {
+			@Override
+			public void onWidgetStateChanged(@NonNull AudioWidget.State state) {
+				result.state = state;
+				result.callback("onWidgetStateChanged(" + state + ")");
+			}
+
+			@Override
+			public void onWidgetPositionChanged(int cx, int cy) {
+				result.callback("onWidgetPositionChanged");
+			}
+		});
+		widget.controller().onControlsClickListener(new AudioWidget.OnControlsClickListener() {
+			@Override
+			public boolean onPlaylistClicked() {
+				result.callback("onPlaylistClicked");
+				return false;
+			}
+
+			@Override
+			public void onPlaylistLongClicked() {
+				result.callback("onPlaylistLongClicked");
+			}
+
+			@Override
+			public void onPreviousClicked() {
+				result.callback("onPreviousClicked");
+			}
+
+			@Override
+			public void onPreviousLongClicked() {
+				result.callback("onPreviousLongClicked");
+			}
+
+			@Override
+			public boolean onPlayPauseClicked() {
+				result.callback("onPlayPauseClicked");
+				return true;
+			}
+
+			@Override
+			public void onPlayPauseLongClicked() {
+				result.callback("onPlayPauseLongClicked");
+			}
+
+			@Override
+			public void onNextClicked() {
+				result.callback("onNextClicked");
+			}
+
+			@Override
+			public void onNextLongClicked() {
+				result.callback("onNextLongClicked");
+			}
+
+			@Override
+			public void onAlbumClicked() {
+				result.callback("onAlbumClicked");
+			}
+
+			@Override
+			public void onAlbumLongClicked() {
+				result.callback("onAlbumLongClicked");
+			}
+		});
+	}
+
+	/**
+	 * Reader of trace events.
+	 */
+	static final class Trace {
+
+		private final DataInputStream data;
+		private int source;
+		private int actionMasked;
+		private int actionIndex;
+		private int delay;
+		private float rawX;
+		private float rawY;
+		private MotionEvent.PointerProperties[] properties;
+		private MotionEvent.PointerCoords[] coords;
+		private int[] historicalDelays;
+		private MotionEvent.PointerCoords[][] historicalCoords;
+
+		/**
+		 * Create reader and read trace header.
+		 * @throws IOException if it's not a trace or version of trace is not supported
+		 */
+		Trace(@NonNull InputStream in) throws IOException {
+			data = new DataInputStream(in);
+			if (data.readInt() != MotionEventRecorder.MAGIC) {
+				throw new IOException("Not a touch trace");
+			}
+			int version = data.readByte();
+			if (version != MotionEventRecorder.VERSION) {
+				throw new IOException("Unsupported trace version " + version);
+			}
+		}
+
+		/**
+		 * Read next event.
+		 * @return false if there are no more events
+		 */
+		boolean next() throws IOException {
+			try {
+				source = data.readByte();
+			} catch (EOFException e) {
+				return false;
+			}
+			actionMasked = data.readByte();
+			actionIndex = data.readByte();
+			delay = data.readInt();
+			rawX = data.readFloat();
+			rawY = data.readFloat();
+			int pointerCount = data.readByte();
+			properties = new MotionEvent.PointerProperties[pointerCount];
+			coords = new MotionEvent.PointerCoords[pointerCount];
+			for (int p = 0; p < pointerCount; p++) {
+				properties[p] = new MotionEvent.PointerProperties();
+				properties[p].id = data.readByte();
+				properties[p].toolType = MotionEvent.TOOL_TYPE_FINGER;
+				coords[p] = readCoords();
+			}
+			int historySize = data.readShort();
+			historicalDelays = new int[historySize];
+			historicalCoords = new MotionEvent.PointerCoords[historySize][pointerCount];
+			for (int i = 0; i < historySize; i++) {
+				historicalDelays[i] = data.readInt();
+				for (int p = 0; p < pointerCount; p++) {
+					historicalCoords[i][p] = readCoords();
+				}
+			}
+			return true;
+		}
+
+		int source() {
+			return source;
+		}
+
+		int actionMasked() {
+			return actionMasked;
+		}
+
+		int actionIndex() {
+			return actionIndex;
+		}
+
+		/**
+		 * Get time since previous event, in milliseconds.
+		 */
+		int delay() {
+			return delay;
+		}
+
+		/**
+		 * Create current event with its historical samples. Raw coordinates are restored by offsetting event,
+		 * as all pointers of event have the same offset.
+		 */
+		@NonNull
+		MotionEvent obtainEvent(long downTime, long eventTime) {
+			int action = actionMasked | (actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+			float offsetX = rawX - coords[0].x;
+			float offsetY = rawY - coords[0].y;
+			MotionEvent event = null;
+			for (int i = 0; i < historicalDelays.length; i++) {
+				MotionEvent.PointerCoords[] sample = offset(historicalCoords[i], offsetX, offsetY);
+				long time = eventTime - historicalDelays[i];
+				if (event == null) {
+					event = MotionEvent.obtain(downTime, time, action, sample.length, properties, sample, 0, 0, 1f, 1f, 0, 0, 0, 0);
+				} else {
+					event.addBatch(time, sample, 0);
+				}
+			}
+			MotionEvent.PointerCoords[] sample = offset(coords, offsetX, offsetY);
+			if (event == null) {
+				event = MotionEvent.obtain(downTime, eventTime, action, sample.length, properties, sample, 0, 0, 1f, 1f, 0, 0, 0, 0);
+			} else {
+				event.addBatch(eventTime, sample, 0);
+			}
+			event.offsetLocation(-offsetX, -offsetY);
+			return event;
+		}
+
+		private MotionEvent.PointerCoords readCoords() throws IOException {
+			MotionEvent.PointerCoords pointerCoords = new MotionEvent.PointerCoords();
+			pointerCoords.x = data.readFloat();
+			pointerCoords.y = data.readFloat();
+			return pointerCoords;
+		}
+
+		private static MotionEvent.PointerCoords[] offset(MotionEvent.PointerCoords[] coords, float dx, float dy) {
+			MotionEvent.PointerCoords[] result = new MotionEvent.PointerCoords[coords.length];
+			for (int p = 0; p < coords.length; p++) {
+				result[p] = new MotionEvent.PointerCoords(coords[p]);
+				result[p].x += dx;
+				result[p].y += dy;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Result of replay. Times are in milliseconds since first event.
+	 */
+	static final class Result {
+
+		private final List<String> callbacks = new ArrayList<>();
+		private final List<Long> callbackTimes = new ArrayList<>();
+		private final long startTime;
+		private int eventsCount;
+		private long lastEventTime;
+		private long framesCount;
+		private long layoutUpdatesRequested;
+		private long layoutUpdatesCommitted;
+		private int positionX;
+		private int positionY;
+		@Nullable
+		private AudioWidget.State state;
+
+		private Result(long startTime) {
+			this.startTime = startTime;
+		}
+
+		private void callback(String name) {
+			callbacks.add(name);
+			callbackTimes.add(SystemClock.uptimeMillis() - startTime);
+		}
+
+		int eventsCount() {
+			return eventsCount;
+		}
+
+		/**
+		 * Get time of last event, usually the one that ends gesture.
+		 */
+		long lastEventTime() {
+			return lastEventTime;
+		}
+
+		/**
+		 * Get number of frames done by animation engine during replay and settling.
+		 */
+		long framesCount() {
+			return framesCount;
+		}
+
+		long layoutUpdatesRequested() {
+			return layoutUpdatesRequested;
+		}
+
+		long layoutUpdatesCommitted() {
+			return layoutUpdatesCommitted;
+		}
+
+		/**
+		 * Get final x of collapsed widget's window.
+		 */
+		int positionX() {
+			return positionX;
+		}
+
+		/**
+		 * Get final y of collapsed widget's window.
+		 */
+		int positionY() {
+			return positionY;
+		}
+
+		/**
+		 * Get last state reported by widget during replay.
+		 * @return state or null if state wasn't changed
+		 */
+		@Nullable
+		AudioWidget.State state() {
+			return state;
+		}
+
+		/**
+		 * Get names of invoked callbacks in order of invocation.
+		 */
+		@NonNull
+		List<String> callbacks() {
+			return callbacks;
+		}
+
+		/**
+		 * Get time of first invocation of callback.
+		 * @param name callback name
+		 * @return time or -1 if callback wasn't invoked
+		 */
+		long callbackTime(@NonNull String name) {
+			int index = callbacks.indexOf(name);
+			return index < 0 ? -1 : callbackTimes.get(index);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder()
+					.append("events: ").append(eventsCount)
+					.append(", last event at: ").append(lastEventTime)
+					.append(", frames: ").append(framesCount)
+					.append(", layout updates: ").append(layoutUpdatesCommitted).append('/').append(layoutUpdatesRequested)
+					.append(", position: ").append(positionX).append(", ").append(positionY)
+					.append(", state: ").append(state)
+					.append(", callbacks:");
+			for (int i = 0; i < callbacks.size(); i++) {
+				sb.append(' ').append(callbacks.get(i)).append('@').append(callbackTimes.get(i));
+			}
+			return sb.toString();
+		}
+	}
+}
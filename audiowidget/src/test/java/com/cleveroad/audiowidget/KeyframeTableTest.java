@@ -0,0 +1,168 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Color;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares baked expand timeline against direct evaluation of interpolators, as it was done on every frame
+ * before timelines were baked.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class KeyframeTableTest {
+
+	private static final float DURATION = 34 * Configuration.FRAME_SPEED;
+	private static final float SIZE_END = 12 * Configuration.FRAME_SPEED;
+	private static final float POSITION_START = 10 * Configuration.FRAME_SPEED;
+	private static final float POSITION_END = 18 * Configuration.FRAME_SPEED;
+	private static final float ELEMENTS_START = 20 * Configuration.FRAME_SPEED;
+	private static final float ELEMENTS_END = 27 * Configuration.FRAME_SPEED;
+	private static final float WIDTH = 300f;
+
+	private static final int CHANNEL_SIZE = 0;
+	private static final int CHANNEL_POSITION = 1;
+	private static final int CHANNEL_ELEMENTS = 2;
+	private static final int CHANNEL_COLOR = 3;
+	private static final int CHANNELS_COUNT = CHANNEL_COLOR + KeyframeTable.COLOR_CHANNELS;
+
+	private static final int FROM_COLOR = 0xFFFF4081;
+	private static final int TO_COLOR = 0xFF3F51B5;
+
+	private final Interpolator interpolator = new AccelerateDecelerateInterpolator();
+
+	@Test
+	public void bakedTimelineMatchesInterpolators() {
+		float[] steps = {1000f / 60, 1000f / 90, 1000f / 120, KeyframeTable.MAX_KEYFRAME_STEP};
+		Random random = new Random(42);
+		for (float step : steps) {
+			KeyframeTable table = expandTable(step);
+			for (int i = 0; i < 2000; i++) {
+				assertPosition(table, random.nextFloat() * DURATION);
+			}
+		}
+	}
+
+	@Test
+	public void playbackAtDifferentFrameRate() {
+		KeyframeTable table = expandTable(1000f / 60);
+		int[] frameRates = {30, 90, 120, 144};
+		for (int frameRate : frameRates) {
+			for (float position = 0; position <= DURATION; position += 1000f / frameRate) {
+				assertPosition(table, position);
+			}
+		}
+	}
+
+	@Test
+	public void positionIsClamped() {
+		KeyframeTable table = expandTable(1000f / 60);
+		table.seek(-100);
+		assertEquals(0, table.value(CHANNEL_SIZE), 0);
+		assertEquals(FROM_COLOR, table.color(CHANNEL_COLOR));
+		table.seek(DURATION + 100);
+		assertEquals(WIDTH, table.value(CHANNEL_SIZE), 1e-3f);
+		assertEquals(1, table.value(CHANNEL_ELEMENTS), 1e-6f);
+		assertEquals(TO_COLOR, table.color(CHANNEL_COLOR));
+	}
+
+	@Test
+	public void valuesAtKeyframesAreExact() {
+		float step = 10f;
+		KeyframeTable table = expandTable(step);
+		float[] expected = new float[CHANNELS_COUNT];
+		for (int i = 0; i * step < DURATION; i++) {
+			float position = i * step;
+			sample(position, expected, 0);
+			table.seek(position);
+			for (int channel = 0; channel < CHANNEL_COLOR; channel++) {
+				assertEquals("channel " + channel + " at " + position, expected[channel], table.value(channel), 1e-3f);
+			}
+		}
+	}
+
+	@Test
+	public void stepIsLimited() {
+		int[] samples = new int[1];
+		new KeyframeTable(1000, 1000, 1, (position, keyframe, offset) -> samples[0]++);
+		assertEquals((int) Math.ceil(1000 / KeyframeTable.MAX_KEYFRAME_STEP) + 1, samples[0]);
+	}
+
+	@Test
+	public void colorRoundTrip() {
+		float[] keyframe = new float[KeyframeTable.COLOR_CHANNELS];
+		KeyframeTable.putColor(keyframe, 0, 0x80FF4081);
+		KeyframeTable table = new KeyframeTable(100, 16, KeyframeTable.COLOR_CHANNELS,
+				(position, values, offset) -> System.arraycopy(keyframe, 0, values, offset, keyframe.length));
+		table.seek(50);
+		assertEquals(0x80FF4081, table.color(0));
+	}
+
+	@Test
+	public void playbackDoesNotAllocate() {
+		KeyframeTable table = expandTable(1000f / 60);
+		float[] sum = new float[1];
+		long allocated = AllocationCounter.allocatedBytes(() -> {
+			for (float position = 0; position <= DURATION; position += 1000f / 120) {
+				table.seek(position);
+				sum[0] += table.value(CHANNEL_SIZE) + table.value(CHANNEL_POSITION) + table.color(CHANNEL_COLOR);
+			}
+		});
+		assertEquals(0, allocated);
+	}
+
+	/**
+	 * Linear interpolation between keyframes deviates from interpolator by at most
+	 * <code>step^2 / 8 * max|f''|</code>, which is less than 0.2 px for the shortest, 560 ms, part of timeline.
+	 */
+	private void assertPosition(KeyframeTable table, float position) {
+		table.seek(position);
+		assertEquals("size at " + position, expectedSize(position), table.value(CHANNEL_SIZE), 0.2f);
+		assertEquals("position at " + position, expectedPosition(position), table.value(CHANNEL_POSITION), 0.2f);
+		assertEquals("elements at " + position, expectedElements(position), table.value(CHANNEL_ELEMENTS), 0.01f);
+		int expectedColor = expectedColor(position);
+		int color = table.color(CHANNEL_COLOR);
+		assertEquals("red at " + position, Color.red(expectedColor), Color.red(color), 1);
+		assertEquals("green at " + position, Color.green(expectedColor), Color.green(color), 1);
+		assertEquals("blue at " + position, Color.blue(expectedColor), Color.blue(color), 1);
+	}
+
+	private KeyframeTable expandTable(float step) {
+		return new KeyframeTable(DURATION, step, CHANNELS_COUNT, this::sample);
+	}
+
+	private void sample(float position, float[] keyframe, int offset) {
+		keyframe[offset + CHANNEL_SIZE] = expectedSize(position);
+		keyframe[offset + CHANNEL_POSITION] = expectedPosition(position);
+		keyframe[offset + CHANNEL_ELEMENTS] = expectedElements(position);
+		KeyframeTable.putColor(keyframe, offset + CHANNEL_COLOR, expectedColor(position));
+	}
+
+	private float expectedSize(float position) {
+		return WIDTH * interpolator.getInterpolation(DrawableUtils.normalize(position, 0, SIZE_END));
+	}
+
+	private float expectedPosition(float position) {
+		return WIDTH * interpolator.getInterpolation(DrawableUtils.normalize(position, POSITION_START, POSITION_END));
+	}
+
+	private float expectedElements(float position) {
+		return DrawableUtils.normalize(position, ELEMENTS_START, ELEMENTS_END);
+	}
+
+	private int expectedColor(float position) {
+		float t = DrawableUtils.normalize(position, 0, SIZE_END);
+		return Color.rgb(
+				Math.round(Color.red(FROM_COLOR) + (Color.red(TO_COLOR) - Color.red(FROM_COLOR)) * t),
+				Math.round(Color.green(FROM_COLOR) + (Color.green(TO_COLOR) - Color.green(FROM_COLOR)) * t),
+				Math.round(Color.blue(FROM_COLOR) + (Color.blue(TO_COLOR) - Color.blue(FROM_COLOR)) * t)
+		);
+	}
+}
@@ -0,0 +1,92 @@
+package com.cleveroad.audiowidget;
+
+import android.view.MotionEvent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class MotionEventRecorderTest {
+
+	private static final float OFFSET_X = 100;
+	private static final float OFFSET_Y = 200;
+
+	@Test
+	public void pointersAndHistoryAreRestored() throws IOException {
+		MotionEvent[] events = {
+				event(0, MotionEvent.ACTION_DOWN, new int[] {0}, 10, 20),
+				event(16, MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), new int[] {0, 3}, 12, 22, 50, 60),
+				event(40, MotionEvent.ACTION_MOVE, new int[] {0, 3}, 14, 24, 52, 62),
+		};
+		// sample at 40 ms becomes historical one
+		events[2].addBatch(48, coords(18, 28, 56, 66), 0);
+		for (MotionEvent event : events) {
+			event.offsetLocation(-OFFSET_X, -OFFSET_Y);
+		}
+		MotionEventRecorder recorder = new MotionEventRecorder();
+		recorder.start();
+		for (MotionEvent event : events) {
+			recorder.record(MotionEventRecorder.SOURCE_EXPANDED, event);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		recorder.stop(out);
+
+		GestureReplayer.Trace trace = new GestureReplayer.Trace(new ByteArrayInputStream(out.toByteArray()));
+		for (MotionEvent expected : events) {
+			assertTrue(trace.next());
+			assertEquals(MotionEventRecorder.SOURCE_EXPANDED, trace.source());
+			MotionEvent actual = trace.obtainEvent(0, expected.getEventTime());
+			assertEquals(expected.getAction(), actual.getAction());
+			assertEquals(expected.getRawX(), actual.getRawX(), 0);
+			assertEquals(expected.getRawY(), actual.getRawY(), 0);
+			assertEquals(expected.getPointerCount(), actual.getPointerCount());
+			assertEquals(expected.getHistorySize(), actual.getHistorySize());
+			for (int p = 0; p < expected.getPointerCount(); p++) {
+				assertEquals(expected.getPointerId(p), actual.getPointerId(p));
+				assertEquals(expected.getX(p), actual.getX(p), 0);
+				assertEquals(expected.getY(p), actual.getY(p), 0);
+				for (int i = 0; i < expected.getHistorySize(); i++) {
+					assertEquals(expected.getHistoricalEventTime(i), actual.getHistoricalEventTime(i));
+					assertEquals(expected.getHistoricalX(p, i), actual.getHistoricalX(p, i), 0);
+					assertEquals(expected.getHistoricalY(p, i), actual.getHistoricalY(p, i), 0);
+				}
+			}
+			actual.recycle();
+		}
+		assertEquals(32, trace.delay());
+		assertFalse(trace.next());
+	}
+
+	/**
+	 * Create event in screen coordinates.
+	 * @param xy x and y of each pointer
+	 */
+	private static MotionEvent event(long time, int action, int[] ids, float... xy) {
+		MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[ids.length];
+		for (int p = 0; p < ids.length; p++) {
+			properties[p] = new MotionEvent.PointerProperties();
+			properties[p].id = ids[p];
+			properties[p].toolType = MotionEvent.TOOL_TYPE_FINGER;
+		}
+		return MotionEvent.obtain(0, time, action, ids.length, properties, coords(xy), 0, 0, 1f, 1f, 0, 0, 0, 0);
+	}
+
+	private static MotionEvent.PointerCoords[] coords(float... xy) {
+		MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[xy.length / 2];
+		for (int p = 0; p < coords.length; p++) {
+			coords[p] = new MotionEvent.PointerCoords();
+			coords[p].x = xy[2 * p];
+			coords[p].y = xy[2 * p + 1];
+		}
+		return coords;
+	}
+}
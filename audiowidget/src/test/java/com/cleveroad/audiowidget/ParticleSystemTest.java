@@ -0,0 +1,104 @@
+package com.cleveroad.audiowidget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParticleSystemTest {
+
+	private static final int BURST = 30;
+
+	@Test
+	public void burstWithinBudgetIsEmittedCompletely() {
+		ParticleSystem particles = new ParticleSystem(1, 1, BURST);
+		particles.burst(BURST);
+		for (int i = 0; i < BURST; i++) {
+			assertTrue(particles.emit(0, 0, 1, 0, 1, 1));
+		}
+		assertEquals(BURST, particles.count());
+	}
+
+	@Test
+	public void budgetIsSpreadEvenlyOverBurst() {
+		int[] budgets = {1, 7, 10, 15, 29};
+		for (int budget : budgets) {
+			ParticleSystem particles = new ParticleSystem(1, 1, BURST);
+			particles.budget(budget);
+			particles.burst(BURST);
+			int lastAccepted = -1;
+			int maxGap = 0;
+			for (int i = 0; i < BURST; i++) {
+				if (particles.emit(0, 0, 1, 0, 1, 1)) {
+					maxGap = Math.max(maxGap, i - lastAccepted);
+					lastAccepted = i;
+				}
+			}
+			maxGap = Math.max(maxGap, BURST - lastAccepted);
+			assertEquals("count for budget " + budget, budget, particles.count());
+			assertTrue("gap " + maxGap + " for budget " + budget, maxGap <= (BURST + budget - 1) / budget + 1);
+		}
+	}
+
+	@Test
+	public void reducedBurstAroundCircleKeepsAllDirections() {
+		ParticleSystem particles = new ParticleSystem(1, 1, BURST);
+		particles.budget(BURST / 3);
+		particles.burst(BURST);
+		for (int i = 0; i < BURST; i++) {
+			double angle = 2 * Math.PI * i / BURST;
+			particles.emit(0, 0, (float) Math.cos(angle), (float) Math.sin(angle), 1, 1);
+		}
+		particles.update(1);
+		float[] points = particles.points();
+		int[] quadrants = new int[4];
+		for (int i = 0; i < particles.count(); i++) {
+			double angle = Math.atan2(points[2 * i + 1], points[2 * i]);
+			quadrants[(int) ((angle + 2 * Math.PI) % (2 * Math.PI) / (Math.PI / 2))]++;
+		}
+		for (int quadrant : quadrants) {
+			assertTrue(quadrant >= 2);
+		}
+	}
+
+	@Test
+	public void emitWithoutBurstFillsBudget() {
+		ParticleSystem particles = new ParticleSystem(1, 1, BURST);
+		particles.budget(5);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(particles.emit(0, 0, 1, 0, 1, 1));
+		}
+		assertFalse(particles.emit(0, 0, 1, 0, 1, 1));
+	}
+
+	@Test
+	public void positionsAreGroupedBySize() {
+		ParticleSystem particles = new ParticleSystem(1, 5, 4);
+		particles.burst(4);
+		particles.emit(0, 0, 1, 0, 10, 5);
+		particles.emit(0, 0, 1, 0, 20, 1);
+		particles.emit(0, 0, 1, 0, 30, 5);
+		particles.emit(0, 0, 1, 0, 40, 1);
+		particles.update(0.5f);
+		float[] points = particles.points();
+		assertEquals(10, points[0], 0);
+		assertEquals(20, points[2], 0);
+		assertEquals(5, points[4], 0);
+		assertEquals(15, points[6], 0);
+	}
+	@Test
+	public void updateDoesNotAllocate() {
+		ParticleSystem particles = new ParticleSystem(1, 4, BURST);
+		particles.burst(BURST);
+		for (int i = 0; i < BURST; i++) {
+			particles.emit(0, 0, 1, 0, 10, 1 + i % 4);
+		}
+		long allocated = AllocationCounter.allocatedBytes(() -> {
+			for (int i = 0; i <= 100; i++) {
+				particles.update(i / 100f);
+			}
+		});
+		assertEquals(0, allocated);
+	}
+}
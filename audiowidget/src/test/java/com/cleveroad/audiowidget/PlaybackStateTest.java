@@ -0,0 +1,263 @@
+package com.cleveroad.audiowidget;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class PlaybackStateTest {
+
+	private static final int WRITES = 20000;
+	private static final int DISPATCHES = 2000;
+
+	private PlaybackState playbackState;
+
+	@Before
+	public void setUp() {
+		playbackState = new PlaybackState();
+	}
+
+	@Test
+	public void concurrentWritesOfDifferentFieldsAreNotLost() throws Exception {
+		CyclicBarrier barrier = new CyclicBarrier(3);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread durationWriter = thread(error, () -> {
+			barrier.await();
+			for (int i = 1; i <= WRITES; i++) {
+				playbackState.duration(i);
+			}
+		});
+		Thread positionWriter = thread(error, () -> {
+			barrier.await();
+			for (int i = 1; i <= WRITES; i++) {
+				playbackState.position(i);
+			}
+		});
+		Thread speedWriter = thread(error, () -> {
+			barrier.await();
+			for (int i = 1; i <= WRITES; i++) {
+				playbackState.speed(i);
+			}
+		});
+		join(error, durationWriter, positionWriter, speedWriter);
+
+		assertEquals(WRITES, playbackState.duration());
+		assertEquals(WRITES, playbackState.position());
+		assertEquals(WRITES, playbackState.speed(), 0f);
+		assertEquals(WRITES, playbackState.progressEventsReceived());
+	}
+
+	@Test
+	public void readersSeeConsistentValues() throws Exception {
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread writer = thread(error, () -> {
+			for (int i = 1; i <= WRITES; i++) {
+				playbackState.duration(i * 2);
+				playbackState.position(i);
+				playbackState.speed(i % 2 == 0 ? 1f : 2f);
+			}
+			running.set(false);
+		});
+		Thread reader = thread(error, () -> {
+			while (running.get()) {
+				float progress = playbackState.progress();
+				assertTrue("progress " + progress, progress >= 0 && progress <= 1);
+				float speed = playbackState.speed();
+				assertTrue("speed " + speed, speed == 1f || speed == 2f);
+				assertTrue(playbackState.duration() % 2 == 0);
+			}
+		});
+		join(error, writer, reader);
+	}
+
+	@Test
+	public void progressEventsAreCoalesced() throws Exception {
+		List<Integer> positions = new ArrayList<>();
+		playbackState.addPlaybackStateListener(new ListenerAdapter() {
+			@Override
+			public void onProgressChanged(int position, int duration, float percentage) {
+				positions.add(position);
+			}
+		});
+		playbackState.duration(WRITES);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread writer = thread(error, () -> {
+			for (int i = 1; i <= WRITES; i++) {
+				playbackState.position(i);
+			}
+		});
+		join(error, writer);
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+		assertEquals(WRITES, playbackState.progressEventsReceived());
+		assertTrue(playbackState.progressEventsDispatched() >= 1);
+		assertTrue(playbackState.progressEventsDispatched() < WRITES);
+		assertEquals(playbackState.progressEventsDispatched(), positions.size());
+		assertEquals(WRITES, (int) positions.get(positions.size() - 1));
+	}
+
+	@Test
+	public void stateChangesFromBackgroundAreDeliveredOnMainThreadInOrder() throws Exception {
+		Thread mainThread = Thread.currentThread();
+		List<Integer> states = new ArrayList<>();
+		playbackState.addPlaybackStateListener(new ListenerAdapter() {
+			@Override
+			public void onStateChanged(int oldState, int newState, Object initiator) {
+				assertEquals(mainThread, Thread.currentThread());
+				states.add(newState);
+			}
+		});
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread writer = thread(error, () -> {
+			for (int i = 0; i < DISPATCHES; i++) {
+				playbackState.start(null);
+				playbackState.pause(null);
+			}
+		});
+		join(error, writer);
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+		assertEquals(DISPATCHES * 2, states.size());
+		for (int i = 0; i < states.size(); i++) {
+			assertEquals(i % 2 == 0 ? Configuration.STATE_PLAYING : Configuration.STATE_PAUSED, (int) states.get(i));
+		}
+	}
+
+	@Test
+	public void listenersChangedDuringDispatchTakeEffectOnNextDispatch() {
+		CountingListener second = new CountingListener();
+		CountingListener added = new CountingListener();
+		CountingListener first = new CountingListener() {
+			@Override
+			public void onStateChanged(int oldState, int newState, Object initiator) {
+				super.onStateChanged(oldState, newState, initiator);
+				playbackState.removePlaybackStateListener(this);
+				playbackState.removePlaybackStateListener(second);
+				playbackState.addPlaybackStateListener(added);
+			}
+		};
+		playbackState.addPlaybackStateListener(first);
+		playbackState.addPlaybackStateListener(second);
+
+		playbackState.start(null);
+		assertEquals(1, first.stateChanges);
+		assertEquals(1, second.stateChanges);
+		assertEquals(0, added.stateChanges);
+
+		playbackState.pause(null);
+		assertEquals(1, first.stateChanges);
+		assertEquals(1, second.stateChanges);
+		assertEquals(1, added.stateChanges);
+	}
+
+	@Test
+	public void listenersChangedFromBackgroundDuringDispatch() throws Exception {
+		CountingListener stable = new CountingListener();
+		playbackState.addPlaybackStateListener(stable);
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch started = new CountDownLatch(2);
+		Thread[] churners = new Thread[2];
+		for (int t = 0; t < churners.length; t++) {
+			churners[t] = thread(error, () -> {
+				CountingListener[] listeners = new CountingListener[8];
+				for (int i = 0; i < listeners.length; i++) {
+					listeners[i] = new CountingListener();
+				}
+				started.countDown();
+				while (running.get()) {
+					for (CountingListener listener : listeners) {
+						assertTrue(playbackState.addPlaybackStateListener(listener));
+					}
+					for (CountingListener listener : listeners) {
+						assertTrue(playbackState.removePlaybackStateListener(listener));
+					}
+				}
+			});
+		}
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < DISPATCHES; i++) {
+			if (i % 2 == 0) {
+				playbackState.start(null);
+			} else {
+				playbackState.pause(null);
+			}
+		}
+		running.set(false);
+		join(error, churners);
+
+		assertEquals(DISPATCHES, stable.stateChanges);
+		assertFalse(playbackState.removePlaybackStateListener(new CountingListener()));
+		assertTrue(playbackState.removePlaybackStateListener(stable));
+	}
+
+	@Test
+	public void duplicateListenerIsNotAdded() {
+		CountingListener listener = new CountingListener();
+		assertTrue(playbackState.addPlaybackStateListener(listener));
+		assertFalse(playbackState.addPlaybackStateListener(listener));
+		playbackState.start(null);
+		assertEquals(1, listener.stateChanges);
+	}
+
+	private static Thread thread(AtomicReference<Throwable> error, ThrowingRunnable runnable) {
+		Thread thread = new Thread(() -> {
+			try {
+				runnable.run();
+			} catch (Throwable e) {
+				error.compareAndSet(null, e);
+			}
+		});
+		thread.start();
+		return thread;
+	}
+
+	private static void join(AtomicReference<Throwable> error, Thread... threads) throws Exception {
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+			assertFalse("thread is stuck", thread.isAlive());
+		}
+		assertNull(error.get());
+	}
+
+	private interface ThrowingRunnable {
+		void run() throws Exception;
+	}
+
+	private static class ListenerAdapter implements PlaybackState.PlaybackStateListener {
+
+		@Override
+		public void onStateChanged(int oldState, int newState, Object initiator) {
+		}
+
+		@Override
+		public void onProgressChanged(int position, int duration, float percentage) {
+		}
+	}
+
+	private static class CountingListener extends ListenerAdapter {
+
+		volatile int stateChanges;
+
+		@Override
+		public void onStateChanged(int oldState, int newState, Object initiator) {
+			stateChanges++;
+		}
+	}
+}
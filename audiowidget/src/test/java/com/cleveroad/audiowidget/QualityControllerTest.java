@@ -0,0 +1,129 @@
+package com.cleveroad.audiowidget;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class QualityControllerTest {
+
+	private static final long BUDGET_NANOS = 16_000_000;
+	private static final int PLAY_PAUSE_BURST = 20;
+	private static final int EXPAND_BURST = 30;
+
+	@Rule
+	public final TestRule frames = WidgetHarness.pausedFrames();
+
+	@Test
+	public void reducedParticlesHalveEmittedBurst() {
+		int[] bursts = {PLAY_PAUSE_BURST, EXPAND_BURST};
+		for (int burst : bursts) {
+			for (AudioWidget.Quality quality : AudioWidget.Quality.values()) {
+				int budget = QualityController.particlesBudget(quality, burst, ParticleSystem.DEFAULT_BUDGET);
+				if (quality.compareTo(AudioWidget.Quality.REDUCED_PARTICLES) >= 0) {
+					assertEquals(quality + " of " + burst, burst / 2, budget);
+				} else {
+					assertEquals(quality + " of " + burst, burst, budget);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void budgetIsLimitedByCapacity() {
+		assertEquals(8, QualityController.particlesBudget(AudioWidget.Quality.FULL, EXPAND_BURST, 8));
+		assertEquals(8, QualityController.particlesBudget(AudioWidget.Quality.REDUCED_PARTICLES, EXPAND_BURST, 8));
+	}
+
+	@Test
+	public void reducedParticlesDrawFewerParticles() {
+		int[] bursts = {PLAY_PAUSE_BURST, EXPAND_BURST};
+		for (int burst : bursts) {
+			ParticleSystem particles = new ParticleSystem(1, 1, ParticleSystem.DEFAULT_BUDGET);
+			particles.budget(QualityController.particlesBudget(AudioWidget.Quality.REDUCED_PARTICLES, burst, particles.capacity()));
+			particles.burst(burst);
+			for (int i = 0; i < burst; i++) {
+				particles.emit(0, 0, 1, 0, 1, 1);
+			}
+			assertEquals(burst / 2, particles.count());
+		}
+	}
+
+	@Test
+	public void slowWindowStepsQualityDown() {
+		List<AudioWidget.Quality> changes = new ArrayList<>();
+		QualityController controller = new QualityController(true);
+		controller.addTarget(changes::add);
+		drawWindow(controller, BUDGET_NANOS * 2);
+		assertEquals(AudioWidget.Quality.values()[1], controller.quality());
+		assertEquals(AudioWidget.Quality.FULL, changes.get(0));
+		assertEquals(AudioWidget.Quality.values()[1], changes.get(1));
+	}
+
+	@Test
+	public void qualityIsAppliedAtFrameEnd() {
+		List<AudioWidget.Quality> changes = new ArrayList<>();
+		QualityController controller = new QualityController(true);
+		controller.addTarget(changes::add);
+		recordWindow(controller, BUDGET_NANOS * 2);
+		assertEquals(AudioWidget.Quality.FULL, controller.quality());
+		assertEquals(1, changes.size());
+		WidgetHarness.frames(1);
+		assertEquals(AudioWidget.Quality.values()[1], controller.quality());
+		assertEquals(2, changes.size());
+	}
+
+	@Test
+	public void headroomStepsQualityUp() {
+		QualityController controller = new QualityController(true);
+		drawWindow(controller, BUDGET_NANOS * 2);
+		drawWindow(controller, BUDGET_NANOS * 2);
+		assertEquals(AudioWidget.Quality.values()[2], controller.quality());
+		for (int i = 0; i < 3; i++) {
+			drawWindow(controller, BUDGET_NANOS / 4);
+		}
+		assertEquals(AudioWidget.Quality.values()[2], controller.quality());
+		drawWindow(controller, BUDGET_NANOS / 4);
+		assertEquals(AudioWidget.Quality.values()[1], controller.quality());
+	}
+
+	@Test
+	public void disabledControllerKeepsFullQuality() {
+		QualityController controller = new QualityController(false);
+		for (int i = 0; i < 10; i++) {
+			drawWindow(controller, BUDGET_NANOS * 2);
+		}
+		assertEquals(AudioWidget.Quality.FULL, controller.quality());
+	}
+
+	@Test
+	public void qualityDoesNotGoBelowLowest() {
+		QualityController controller = new QualityController(true);
+		AudioWidget.Quality[] levels = AudioWidget.Quality.values();
+		for (int i = 0; i < levels.length + 5; i++) {
+			drawWindow(controller, BUDGET_NANOS * 2);
+		}
+		assertEquals(levels[levels.length - 1], controller.quality());
+	}
+
+	/**
+	 * Record window of frames and let engine do next frame.
+	 */
+	private static void drawWindow(QualityController controller, long durationNanos) {
+		recordWindow(controller, durationNanos);
+		WidgetHarness.frames(1);
+	}
+
+	private static void recordWindow(QualityController controller, long durationNanos) {
+		for (int i = 0; i < QualityController.WINDOW_FRAMES; i++) {
+			controller.onFrameDrawn(durationNanos, BUDGET_NANOS);
+		}
+	}
+}
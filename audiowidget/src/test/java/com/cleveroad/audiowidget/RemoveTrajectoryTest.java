@@ -0,0 +1,86 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Point;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class RemoveTrajectoryTest {
+
+	private static final int SCREEN_WIDTH = 1080;
+	private static final int SCREEN_HEIGHT = 1794;
+	private static final float RADIUS = 80;
+
+	private final Point visible = new Point(370, 1634);
+	private final Point hidden = new Point(370, 2154);
+	private final Point actual = new Point();
+
+	@Test
+	public void matchesRotationByAngle() {
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			int animatedY = hidden.y + (int) ((visible.y - hidden.y) * random.nextFloat());
+			int buttonX = random.nextInt(SCREEN_WIDTH);
+			int buttonY = random.nextInt(SCREEN_HEIGHT);
+			RemoveTrajectory.position(SCREEN_WIDTH, SCREEN_HEIGHT, visible, hidden, animatedY, RADIUS, buttonX, buttonY, actual);
+			String message = "button at " + buttonX + ", " + buttonY + ", remove button at " + animatedY;
+			assertEquals(message, rotatedX(animatedY, buttonX, buttonY), actual.x, 1);
+			assertEquals(message, rotatedY(animatedY, buttonX, buttonY), actual.y, 1);
+		}
+	}
+
+	@Test
+	public void buttonOnLevelOfRemoveButton() {
+		RemoveTrajectory.position(SCREEN_WIDTH, SCREEN_HEIGHT, visible, hidden, visible.y, RADIUS, 100, visible.y, actual);
+		assertEquals(rotatedX(visible.y, 100, visible.y), actual.x, 1);
+		assertEquals(rotatedY(visible.y, 100, visible.y), actual.y, 1);
+	}
+
+	@Test
+	public void buttonAtCenterOfRemoveButton() {
+		// angle is undefined, remove button is not turned
+		RemoveTrajectory.position(SCREEN_WIDTH, SCREEN_HEIGHT, visible, hidden, visible.y, RADIUS, SCREEN_WIDTH / 2, visible.y, actual);
+		assertEquals(visible.x, actual.x);
+		assertEquals(visible.y, actual.y);
+	}
+
+	@Test
+	public void positionDoesNotAllocate() {
+		long allocated = AllocationCounter.allocatedBytes(() -> {
+			for (int i = 0; i <= 100; i++) {
+				int animatedY = hidden.y + (visible.y - hidden.y) * i / 100;
+				RemoveTrajectory.position(SCREEN_WIDTH, SCREEN_HEIGHT, visible, hidden, animatedY, RADIUS, i * 10, i * 17, actual);
+			}
+		});
+		assertEquals(0, allocated);
+	}
+
+	/**
+	 * Position computed as it was done before trajectory was extracted: rotation by angle in degrees.
+	 */
+	private int rotatedX(int animatedY, int buttonX, int buttonY) {
+		double tgAlpha = (SCREEN_WIDTH / 2. - buttonX) / (visible.y - buttonY);
+		double rotationDegrees = 360 - Math.toDegrees(Math.atan(tgAlpha));
+		return (int) DrawableUtils.rotateX(visible.x, animatedY - RADIUS * distance(animatedY, buttonY),
+				hidden.x, animatedY, (float) rotationDegrees);
+	}
+
+	private int rotatedY(int animatedY, int buttonX, int buttonY) {
+		double tgAlpha = (SCREEN_WIDTH / 2. - buttonX) / (visible.y - buttonY);
+		double rotationDegrees = 360 - Math.toDegrees(Math.atan(tgAlpha));
+		return (int) DrawableUtils.rotateY(visible.x, animatedY - RADIUS * distance(animatedY, buttonY),
+				hidden.x, animatedY, (float) rotationDegrees);
+	}
+
+	private float distance(int animatedY, int buttonY) {
+		float distance = (float) Math.sqrt(Math.pow(animatedY - buttonY, 2) + Math.pow(visible.x - hidden.x, 2));
+		float maxDistance = (float) Math.sqrt(Math.pow(SCREEN_WIDTH, 2) + Math.pow(SCREEN_HEIGHT, 2));
+		return distance / maxDistance;
+	}
+}
@@ -0,0 +1,101 @@
+package com.cleveroad.audiowidget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpringTest {
+
+	private static final float START = 100f;
+	private static final float DURATION = 2f;
+
+	@Test
+	public void criticallyDampedSpringDoesNotOvershoot() {
+		Spring spring = new Spring(Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_NO_BOUNCY).set(START, 0).target(0);
+		float min = START;
+		for (int i = 0; i < DURATION * 60; i++) {
+			spring.step(1 / 60f);
+			min = Math.min(min, spring.position());
+		}
+		assertTrue("overshoot: " + min, min >= 0f);
+		assertTrue(spring.isAtRest());
+	}
+
+	@Test
+	public void underdampedSpringOvershootsAndSettles() {
+		Spring spring = new Spring(Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_LOW_BOUNCY).set(START, 0).target(0);
+		float min = START;
+		for (int i = 0; i < DURATION * 60; i++) {
+			spring.step(1 / 60f);
+			min = Math.min(min, spring.position());
+		}
+		assertTrue("no overshoot: " + min, min < -1f);
+		assertTrue(spring.isAtRest());
+	}
+
+	@Test
+	public void motionDoesNotDependOnFrameRate() {
+		float[] dampingRatios = {Spring.DAMPING_RATIO_NO_BOUNCY, Spring.DAMPING_RATIO_LOW_BOUNCY};
+		int[] frameRates = {30, 60, 90, 120, 144};
+		for (float dampingRatio : dampingRatios) {
+			Spring reference = new Spring(Spring.STIFFNESS_MEDIUM, dampingRatio).set(START, -2000).target(0);
+			reference.step(0.25f);
+			for (int frameRate : frameRates) {
+				Spring spring = new Spring(Spring.STIFFNESS_MEDIUM, dampingRatio).set(START, -2000).target(0);
+				for (int i = 0; i < frameRate / 4; i++) {
+					spring.step(1f / frameRate);
+				}
+				// frame rates not divisible by 4 are stepped to slightly less than 0.25s
+				float remaining = 0.25f - (frameRate / 4) * (1f / frameRate);
+				spring.step(remaining);
+				assertEquals("position at " + frameRate + " fps", reference.position(), spring.position(), 0.05f);
+				assertEquals("velocity at " + frameRate + " fps", reference.velocity(), spring.velocity(), 1f);
+			}
+		}
+	}
+
+	@Test
+	public void retargetKeepsVelocity() {
+		Spring spring = new Spring(Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_LOW_BOUNCY).set(START, 0).target(0);
+		spring.step(0.05f);
+		float velocity = spring.velocity();
+		spring.target(START * 2);
+		assertEquals(velocity, spring.velocity(), 0f);
+		assertFalse(spring.isAtRest());
+	}
+
+	@Test
+	public void finishMovesToTarget() {
+		Spring spring = new Spring(Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_LOW_BOUNCY).set(START, 500).target(10);
+		spring.finish();
+		assertEquals(10f, spring.position(), 0f);
+		assertEquals(0f, spring.velocity(), 0f);
+		assertTrue(spring.isAtRest());
+	}
+
+	@Test
+	public void zeroStepDoesNothing() {
+		Spring spring = new Spring(Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_LOW_BOUNCY).set(START, 500).target(0);
+		spring.step(0);
+		assertEquals(START, spring.position(), 0f);
+		assertEquals(500f, spring.velocity(), 0f);
+	}
+
+	@Test
+	public void decayDistance() {
+		assertEquals(200f, Spring.decayDistance(1000, 5), 1e-3f);
+		assertEquals(-200f, Spring.decayDistance(-1000, 5), 1e-3f);
+	}
+	@Test
+	public void stepDoesNotAllocate() {
+		Spring spring = new Spring(Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_LOW_BOUNCY).set(START, 0).target(0);
+		long allocated = AllocationCounter.allocatedBytes(() -> {
+			for (int i = 0; i < DURATION * 60; i++) {
+				spring.step(1 / 60f);
+			}
+		});
+		assertEquals(0, allocated);
+	}
+}
@@ -0,0 +1,159 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.WindowManager;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that touch and album cover paths of widget don't allocate. Robolectric's shadows of
+ * {@link GestureDetector}, {@link VelocityTracker} and view invalidation allocate on their own, while
+ * on device they don't, so their allocations are measured separately and subtracted.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TouchAllocationTest {
+
+	private static final int MOVES = 60;
+	private static final int WARM_UP_MOVES = 30;
+	private static final int SWITCHES = 20;
+
+	@Rule
+	public final TestRule frames = WidgetHarness.pausedFrames();
+
+	private AudioWidget widget;
+
+	@Before
+	public void setUp() {
+		Assume.assumeTrue(AllocationCounter.isSupported());
+		widget = WidgetHarness.builder().build();
+		widget.show(100, 100);
+		WidgetHarness.frames(30);
+	}
+
+	@After
+	public void tearDown() {
+		if (widget != null) {
+			widget.hide();
+		}
+	}
+
+	@Test
+	public void dragMovesDoNotAllocate() {
+		PlayPauseButton button = widget.playPauseButton();
+		TouchManager touchManager = widget.playPauseButtonManager();
+		long downTime = SystemClock.uptimeMillis();
+		long requestedUpdates = widget.metrics().layoutUpdatesRequested();
+		long committedUpdates = widget.metrics().layoutUpdatesCommitted();
+		// warm up moves pass touch slop and schedule layout commit, those steps are done once per drag
+		for (int i = 0; i <= WARM_UP_MOVES; i++) {
+			touchManager.onTouch(button, move(button, downTime, i));
+		}
+		assertTrue("drag didn't start during warm up", widget.metrics().layoutUpdatesRequested() > requestedUpdates);
+
+		long allocated = 0;
+		MotionEvent[] events = new MotionEvent[MOVES + 1];
+		for (int i = WARM_UP_MOVES + 1; i <= MOVES; i++) {
+			MotionEvent event = move(button, downTime, i);
+			events[i] = event;
+			allocated += AllocationCounter.allocatedBytes(() -> touchManager.onTouch(button, event));
+		}
+
+		long framework = frameworkMovesAllocation(button, downTime, events);
+		assertTrue("bytes allocated by moves " + allocated + ", by framework " + framework, allocated <= framework);
+		// all moves between frames are merged into one window update
+		WidgetHarness.frames(1);
+		assertEquals(committedUpdates + 1, widget.metrics().layoutUpdatesCommitted());
+	}
+
+	@Test
+	public void sameAlbumCoverDoesNotAllocate() {
+		Drawable cover = WidgetHarness.icon();
+		AudioWidget.Controller controller = widget.controller();
+		controller.albumCover(cover);
+
+		long allocated = AllocationCounter.allocatedBytes(() -> {
+			for (int i = 0; i < SWITCHES; i++) {
+				controller.albumCover(cover);
+			}
+		});
+
+		assertEquals(0, allocated);
+	}
+
+	@Test
+	public void switchingAlbumCoversOnlyInvalidatesViews() {
+		Drawable first = WidgetHarness.icon();
+		Drawable second = WidgetHarness.icon();
+		AudioWidget.Controller controller = widget.controller();
+		// first use of each cover prepares its bitmap and copy
+		controller.albumCover(first);
+		controller.albumCover(second);
+		PlayPauseButton button = widget.playPauseButton();
+		ExpandCollapseWidget expandedWidget = widget.expandCollapseWidget();
+
+		for (int i = 0; i < SWITCHES; i++) {
+			// invalidation posts messages, cost of posting depends on size of paused queue, so it's drained each time
+			WidgetHarness.frames(1);
+			long invalidation = AllocationCounter.allocatedBytes(() -> {
+				button.postInvalidate();
+				expandedWidget.invalidate();
+			});
+			WidgetHarness.frames(1);
+			Drawable cover = i % 2 == 0 ? first : second;
+			long allocated = AllocationCounter.allocatedBytes(() -> controller.albumCover(cover));
+			assertTrue("bytes allocated by cover switch " + allocated + ", by invalidation " + invalidation, allocated <= invalidation);
+		}
+	}
+
+	/**
+	 * Get bytes allocated by framework objects used by touch manager for the same moves.
+	 */
+	private static long frameworkMovesAllocation(View view, long downTime, MotionEvent[] events) {
+		GestureDetector gestureDetector = new GestureDetector(view.getContext(), new GestureDetector.SimpleOnGestureListener());
+		VelocityTracker velocityTracker = VelocityTracker.obtain();
+		for (int i = 0; i <= WARM_UP_MOVES; i++) {
+			MotionEvent event = move(view, downTime, i);
+			gestureDetector.onTouchEvent(event);
+			velocityTracker.addMovement(event);
+		}
+		long allocated = 0;
+		for (int i = WARM_UP_MOVES + 1; i <= MOVES; i++) {
+			MotionEvent event = events[i];
+			allocated += AllocationCounter.allocatedBytes(() -> {
+				gestureDetector.onTouchEvent(event);
+				velocityTracker.addMovement(event);
+			});
+		}
+		velocityTracker.recycle();
+		return allocated;
+	}
+
+	/**
+	 * Create i-th event of drag, down event first, then moves 8 ms apart. Local coordinates are relative
+	 * to current position of view's window, as window follows finger.
+	 */
+	private static MotionEvent move(View view, long downTime, int i) {
+		int action = i == 0 ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_MOVE;
+		float rawX = 150 + i * 5;
+		float rawY = 150 + i * 3;
+		WindowManager.LayoutParams params = (WindowManager.LayoutParams) view.getLayoutParams();
+		MotionEvent event = MotionEvent.obtain(downTime, downTime + i * 8, action, rawX, rawY, 0);
+		event.offsetLocation(-params.x, -params.y);
+		return event;
+	}
+}
@@ -0,0 +1,141 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.rules.ExternalResource;
+import org.junit.rules.TestRule;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Runs widget under Robolectric with frames advanced by hand. Main looper is paused, frame callbacks
+ * are delayed by one frame interval and frame time advances by the same interval, so each frame step runs
+ * exactly one 16 ms frame.
+ */
+final class WidgetHarness {
+
+	static final int FRAME_MILLIS = 16;
+
+	private WidgetHarness() {
+
+	}
+
+	/**
+	 * Create rule that pauses frames before each test and restores frame callback delay after it.
+	 * Robolectric resets choreographer between tests, but not its callback delay, so tests without
+	 * paused looper would get their frame callbacks one frame late.
+	 */
+	@NonNull
+	static TestRule pausedFrames() {
+		return new ExternalResource() {
+			@Override
+			protected void before() {
+				pauseFrames();
+			}
+
+			@Override
+			protected void after() {
+				ShadowChoreographer.setPostFrameCallbackDelay(0);
+				AnimationEngine.resetInstance();
+			}
+		};
+	}
+
+	/**
+	 * Pause main looper and synchronize frame callbacks with it. Must be called before widget is built.
+	 */
+	private static void pauseFrames() {
+		AnimationEngine.resetInstance();
+		ShadowLooper.pauseMainLooper();
+		ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MILLIS);
+		ShadowChoreographer.setFrameInterval(FRAME_MILLIS * 1_000_000L);
+	}
+
+	/**
+	 * Create widget builder with plain rectangle icons. Framework drawables allocate in Robolectric's shadows
+	 * on draw and on alpha changes, which hides allocations of widget itself.
+	 */
+	static AudioWidget.Builder builder() {
+		return new AudioWidget.Builder(RuntimeEnvironment.application)
+				.playDrawable(icon())
+				.pauseDrawable(icon())
+				.prevTrackDrawale(icon())
+				.nextTrackDrawable(icon())
+				.playlistDrawable(icon())
+				.defaultAlbumDrawable(icon());
+	}
+
+	/**
+	 * Run frames.
+	 * @param count number of frames to run
+	 */
+	static void frames(int count) {
+		for (int i = 0; i < count; i++) {
+			ShadowLooper.idleMainLooper(FRAME_MILLIS);
+		}
+	}
+
+	/**
+	 * Create icon drawn as a single rectangle.
+	 */
+	static Drawable icon() {
+		return new RectIcon();
+	}
+
+	private static final class RectIcon extends Drawable {
+
+		private final Paint paint = new Paint();
+
+		@Override
+		public void draw(@NonNull Canvas canvas) {
+			canvas.drawRect(getBounds(), paint);
+		}
+
+		@Override
+		public void setAlpha(int alpha) {
+			paint.setAlpha(alpha);
+		}
+
+		@Override
+		public void setColorFilter(@Nullable ColorFilter colorFilter) {
+			paint.setColorFilter(colorFilter);
+		}
+
+		@Override
+		public void invalidateSelf() {
+			// Robolectric's shadow allocates on each invalidation, widget doesn't set drawable callbacks anyway
+		}
+
+		@Override
+		public int getOpacity() {
+			return PixelFormat.TRANSLUCENT;
+		}
+
+		@NonNull
+		@Override
+		public ConstantState getConstantState() {
+			return STATE;
+		}
+	}
+
+	private static final Drawable.ConstantState STATE = new Drawable.ConstantState() {
+		@NonNull
+		@Override
+		public Drawable newDrawable() {
+			return new RectIcon();
+		}
+
+		@Override
+		public int getChangingConfigurations() {
+			return 0;
+		}
+	};
+}
@@ -0,0 +1,83 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Rect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of hit testing expanded widget's buttons: {@link ButtonsLayout} division against
+ * computing bounds of every button and checking if it contains the point, as it was done before layout was cached.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ButtonsLayoutBenchmark {
+
+	private static final int SAMPLES_COUNT = 1024;
+	private static final int SAMPLES_MASK = SAMPLES_COUNT - 1;
+	private static final float WIDTH = 1080f;
+	private static final float RADIUS = 80f;
+
+	@Param({"5", "10"})
+	public int buttonsCount;
+
+	private final float[] xs = new float[SAMPLES_COUNT];
+	private final float[] ys = new float[SAMPLES_COUNT];
+	private final Rect tmpRect = new Rect();
+	private ButtonsLayout layout;
+	private float sizeStep;
+	private int index;
+
+	@Setup
+	public void setup() {
+		int[] paddings = new int[buttonsCount];
+		for (int i = 0; i < buttonsCount; i++) {
+			paddings[i] = 24;
+		}
+		layout = new ButtonsLayout(WIDTH, (int) RADIUS, (int) (RADIUS * 3), paddings);
+		sizeStep = WIDTH / buttonsCount;
+		Random random = new Random(42);
+		for (int i = 0; i < SAMPLES_COUNT; i++) {
+			xs[i] = random.nextFloat() * WIDTH;
+			ys[i] = random.nextFloat() * RADIUS * 4;
+		}
+	}
+
+	private int next() {
+		return index = (index + 1) & SAMPLES_MASK;
+	}
+
+	@Benchmark
+	public int hitTestByDivision() {
+		int i = next();
+		return layout.hitTest(xs[i], ys[i]);
+	}
+
+	@Benchmark
+	public int hitTestByBounds() {
+		int i = next();
+		int x = (int) xs[i];
+		int y = (int) ys[i];
+		for (int button = 0; button < buttonsCount; button++) {
+			int l = (int) (button * sizeStep);
+			int t = (int) RADIUS;
+			int r = (int) ((button + 1) * sizeStep);
+			int b = (int) (RADIUS * 3);
+			tmpRect.set(l, t, r, b);
+			if (tmpRect.contains(x, y)) {
+				return button;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,90 @@
+package com.cleveroad.audiowidget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of color ramps used by {@link ColorChanger}: building a ramp once and reading color from it on each frame.
+ * <p>
+ * Only OKLab ramps are built here, HSV conversion is native in framework and can't run on JVM. HSV ramp for lookup
+ * is built the same way as {@link ColorRamps#hsv(int, int, int)} does, with JDK's HSB conversion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColorRampsBenchmark {
+
+	private static final int SAMPLES_COUNT = 1024;
+	private static final int SAMPLES_MASK = SAMPLES_COUNT - 1;
+	private static final int RAMP_SIZE = 256;
+	private static final int FROM_COLOR = 0xFFFF4081;
+	private static final int TO_COLOR = 0xFF3F51B5;
+
+	private final float[] times = new float[SAMPLES_COUNT];
+	private int[] oklabRamp;
+	private int[] hsvRamp;
+	private int index;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		for (int i = 0; i < SAMPLES_COUNT; i++) {
+			times[i] = random.nextFloat();
+		}
+		oklabRamp = ColorRamps.oklab(FROM_COLOR, TO_COLOR, RAMP_SIZE);
+		hsvRamp = hsvRamp(FROM_COLOR, TO_COLOR, RAMP_SIZE);
+	}
+
+	private static int[] hsvRamp(int fromColor, int toColor, int size) {
+		float[] fromHsv = Color.RGBtoHSB((fromColor >> 16) & 0xFF, (fromColor >> 8) & 0xFF, fromColor & 0xFF, null);
+		float[] toHsv = Color.RGBtoHSB((toColor >> 16) & 0xFF, (toColor >> 8) & 0xFF, toColor & 0xFF, null);
+		int[] ramp = new int[size];
+		for (int i = 0; i < size; i++) {
+			float dt = 1f * i / (size - 1);
+			ramp[i] = Color.HSBtoRGB(
+					fromHsv[0] + (toHsv[0] - fromHsv[0]) * dt,
+					fromHsv[1] + (toHsv[1] - fromHsv[1]) * dt,
+					fromHsv[2] + (toHsv[2] - fromHsv[2]) * dt
+			);
+		}
+		return ramp;
+	}
+
+	private int next() {
+		return index = (index + 1) & SAMPLES_MASK;
+	}
+
+	/**
+	 * Cost of building a ramp, paid once for each pair of colors.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int[] buildOklabRamp() {
+		return ColorRamps.oklab(FROM_COLOR, TO_COLOR, RAMP_SIZE);
+	}
+
+	/**
+	 * Cost of reading color from OKLab ramp on each frame, as {@link ColorChanger#nextColor(float)} does.
+	 */
+	@Benchmark
+	public int oklabRampLookup() {
+		return ColorRamps.color(oklabRamp, times[next()]);
+	}
+
+	/**
+	 * Cost of reading color from HSV ramp, the default one, on each frame.
+	 */
+	@Benchmark
+	public int hsvRampLookup() {
+		return ColorRamps.color(hsvRamp, times[next()]);
+	}
+}
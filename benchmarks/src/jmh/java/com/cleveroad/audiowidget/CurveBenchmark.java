@@ -0,0 +1,72 @@
+package com.cleveroad.audiowidget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link Curve} evaluation against varargs {@link LegacyCurves#customFunction(float, float...)}
+ * it replaced. Curves are the ones used by bubbles animations, arguments of custom function are passed
+ * inline as they were at call sites.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CurveBenchmark {
+
+	private static final int SAMPLES_COUNT = 1024;
+	private static final int SAMPLES_MASK = SAMPLES_COUNT - 1;
+
+	private final float[] times = new float[SAMPLES_COUNT];
+	private Curve expandBubbles;
+	private Curve playPauseBubbles;
+	private int index;
+
+	@Setup
+	public void setup() {
+		expandBubbles = Curve.of(0, 0, 255, 0.33f, 255, 0.66f, 0, 1f);
+		playPauseBubbles = Curve.of(0, 0, 0, 0.3f, 255, 0.5f, 225, 0.7f, 0, 1f);
+		Random random = new Random(42);
+		for (int i = 0; i < SAMPLES_COUNT; i++) {
+			times[i] = random.nextFloat();
+		}
+		for (float t : times) {
+			// values may differ by float rounding only
+			if (Math.abs(expandBubbles.value(t) - LegacyCurves.customFunction(t, 0, 0, 255, 0.33f, 255, 0.66f, 0, 1f)) > 0.01f
+					|| Math.abs(playPauseBubbles.value(t) - LegacyCurves.customFunction(t, 0, 0, 0, 0.3f, 255, 0.5f, 225, 0.7f, 0, 1f)) > 0.01f) {
+				throw new IllegalStateException("Curve doesn't match custom function at " + t);
+			}
+		}
+	}
+
+	private int next() {
+		return index = (index + 1) & SAMPLES_MASK;
+	}
+
+	@Benchmark
+	public float expandBubblesAlpha() {
+		return expandBubbles.value(times[next()]);
+	}
+
+	@Benchmark
+	public float playPauseBubblesAlpha() {
+		return playPauseBubbles.value(times[next()]);
+	}
+
+	@Benchmark
+	public float expandBubblesAlphaCustomFunction() {
+		return LegacyCurves.customFunction(times[next()], 0, 0, 255, 0.33f, 255, 0.66f, 0, 1f);
+	}
+
+	@Benchmark
+	public float playPauseBubblesAlphaCustomFunction() {
+		return LegacyCurves.customFunction(times[next()], 0, 0, 0, 0.3f, 255, 0.5f, 225, 0.7f, 0, 1f);
+	}
+}
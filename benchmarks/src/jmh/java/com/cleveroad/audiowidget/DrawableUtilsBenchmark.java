@@ -0,0 +1,64 @@
+package com.cleveroad.audiowidget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link DrawableUtils} math used on every animation frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DrawableUtilsBenchmark {
+
+	private static final int SAMPLES_COUNT = 1024;
+	private static final int SAMPLES_MASK = SAMPLES_COUNT - 1;
+
+	private final float[] values = new float[SAMPLES_COUNT];
+	private final float[] angles = new float[SAMPLES_COUNT];
+	private int index;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		for (int i = 0; i < SAMPLES_COUNT; i++) {
+			values[i] = random.nextFloat() * 1.2f - 0.1f;
+			angles[i] = random.nextFloat() * 360;
+		}
+	}
+
+	private int next() {
+		return index = (index + 1) & SAMPLES_MASK;
+	}
+
+	@Benchmark
+	public float normalize() {
+		return DrawableUtils.normalize(values[next()], 0.2f, 0.8f);
+	}
+
+	@Benchmark
+	public float rotateX() {
+		int i = next();
+		return DrawableUtils.rotateX(540, 1800 - 120 * values[i], 540, 1800, angles[i]);
+	}
+
+	@Benchmark
+	public float rotateY() {
+		int i = next();
+		return DrawableUtils.rotateY(540, 1800 - 120 * values[i], 540, 1800, angles[i]);
+	}
+
+	@Benchmark
+	public float smooth() {
+		int i = next();
+		return DrawableUtils.smooth(values[i], values[(i + 1) & SAMPLES_MASK], 0.5f);
+	}
+}
@@ -0,0 +1,132 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Color;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of one frame of expand animation: values read from baked {@link KeyframeTable}
+ * against interpolators evaluated on every frame, as it was done before timelines were baked.
+ * <p>
+ * Direct evaluation interpolates colors in RGB. Widget used HSV conversion, which is native in framework
+ * and can't run on JVM, so real cost of direct evaluation is higher than measured here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeyframeTableBenchmark {
+
+	private static final int SAMPLES_COUNT = 1024;
+	private static final int SAMPLES_MASK = SAMPLES_COUNT - 1;
+
+	/**
+	 * Same as FRAME_SPEED of Configuration, which can't be loaded without the rest of widget.
+	 */
+	private static final float FRAME_SPEED = 70f;
+	private static final float DURATION = 34 * FRAME_SPEED;
+	private static final float COLOR_END = 9 * FRAME_SPEED;
+	private static final float SIZE_END = 12 * FRAME_SPEED;
+	private static final float POSITION_START = 10 * FRAME_SPEED;
+	private static final float POSITION_END = 18 * FRAME_SPEED;
+	private static final float BUBBLES_START = 18 * FRAME_SPEED;
+	private static final float BUBBLES_END = 32 * FRAME_SPEED;
+	private static final float ELEMENTS_START = 20 * FRAME_SPEED;
+	private static final float ELEMENTS_END = 27 * FRAME_SPEED;
+	private static final float WIDTH = 1080f;
+	private static final float HEIGHT = 160f;
+	private static final float PLAY_START = 864f;
+	private static final float PLAY_END = 432f;
+	private static final int FROM_COLOR = 0xFFFF4081;
+	private static final int TO_COLOR = 0xFF3F51B5;
+
+	private static final int CHANNEL_BACKGROUND_LEFT = 0;
+	private static final int CHANNEL_BACKGROUND_RIGHT = 1;
+	private static final int CHANNEL_PLAY_LEFT = 2;
+	private static final int CHANNEL_ELEMENTS = 3;
+	private static final int CHANNEL_BUBBLES_TIME = 4;
+	private static final int CHANNEL_BUBBLES_ALPHA = 5;
+	private static final int CHANNEL_COLOR = 6;
+	private static final int CHANNELS_COUNT = CHANNEL_COLOR + KeyframeTable.COLOR_CHANNELS;
+
+	private final float[] positions = new float[SAMPLES_COUNT];
+	private final Interpolator interpolator = new AccelerateDecelerateInterpolator();
+	private final Curve bubblesAlpha = Curve.of(0, 0, 255, 0.33f, 255, 0.66f, 0, 1f);
+	private KeyframeTable table;
+	private int index;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		for (int i = 0; i < SAMPLES_COUNT; i++) {
+			positions[i] = random.nextFloat() * DURATION;
+		}
+		float[] frame = new float[CHANNELS_COUNT];
+		table = new KeyframeTable(DURATION, 1000f / 60, CHANNELS_COUNT, (position, keyframe, offset) -> {
+			evaluate(position, frame);
+			System.arraycopy(frame, 0, keyframe, offset, CHANNEL_COLOR);
+			KeyframeTable.putColor(keyframe, offset + CHANNEL_COLOR, color(position));
+		});
+	}
+
+	private int next() {
+		return index = (index + 1) & SAMPLES_MASK;
+	}
+
+	@Benchmark
+	public void bakedTimeline(Blackhole blackhole) {
+		table.seek(positions[next()]);
+		for (int channel = 0; channel < CHANNEL_COLOR; channel++) {
+			blackhole.consume(table.value(channel));
+		}
+		blackhole.consume(table.color(CHANNEL_COLOR));
+	}
+
+	@Benchmark
+	public void directInterpolation(Blackhole blackhole) {
+		float position = positions[next()];
+		blackhole.consume(color(position));
+		float size = interpolator.getInterpolation(DrawableUtils.normalize(position, 0, SIZE_END));
+		blackhole.consume(WIDTH - HEIGHT - (WIDTH - HEIGHT) * size);
+		blackhole.consume(WIDTH);
+		float positionTime = interpolator.getInterpolation(DrawableUtils.normalize(position, POSITION_START, POSITION_END));
+		blackhole.consume(PLAY_START + (PLAY_END - PLAY_START) * positionTime);
+		blackhole.consume(DrawableUtils.normalize(position, ELEMENTS_START, ELEMENTS_END));
+		float bubblesTime = DrawableUtils.normalize(position, BUBBLES_START, BUBBLES_END);
+		blackhole.consume(bubblesTime);
+		blackhole.consume(bubblesAlpha.value(bubblesTime));
+	}
+
+	private void evaluate(float position, float[] frame) {
+		float size = interpolator.getInterpolation(DrawableUtils.normalize(position, 0, SIZE_END));
+		frame[CHANNEL_BACKGROUND_LEFT] = WIDTH - HEIGHT - (WIDTH - HEIGHT) * size;
+		frame[CHANNEL_BACKGROUND_RIGHT] = WIDTH;
+		float positionTime = interpolator.getInterpolation(DrawableUtils.normalize(position, POSITION_START, POSITION_END));
+		frame[CHANNEL_PLAY_LEFT] = PLAY_START + (PLAY_END - PLAY_START) * positionTime;
+		frame[CHANNEL_ELEMENTS] = DrawableUtils.normalize(position, ELEMENTS_START, ELEMENTS_END);
+		float bubblesTime = DrawableUtils.normalize(position, BUBBLES_START, BUBBLES_END);
+		frame[CHANNEL_BUBBLES_TIME] = bubblesTime;
+		frame[CHANNEL_BUBBLES_ALPHA] = bubblesAlpha.value(bubblesTime);
+	}
+
+	private static int color(float position) {
+		float t = DrawableUtils.normalize(position, 0, COLOR_END);
+		return Color.argb(
+				255,
+				Math.round(Color.red(FROM_COLOR) + (Color.red(TO_COLOR) - Color.red(FROM_COLOR)) * t),
+				Math.round(Color.green(FROM_COLOR) + (Color.green(TO_COLOR) - Color.green(FROM_COLOR)) * t),
+				Math.round(Color.blue(FROM_COLOR) + (Color.blue(TO_COLOR) - Color.blue(FROM_COLOR)) * t)
+		);
+	}
+}
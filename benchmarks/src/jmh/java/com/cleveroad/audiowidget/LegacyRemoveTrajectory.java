@@ -0,0 +1,30 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Point;
+
+/**
+ * Copy of remove button position math as it was in {@link AudioWidget} before {@link RemoveTrajectory}
+ * was extracted, kept as baseline for {@link RemoveTrajectoryBenchmark}.
+ */
+final class LegacyRemoveTrajectory {
+
+	private LegacyRemoveTrajectory() {}
+
+	static void position(int screenWidth, int screenHeight, Point visible, Point hidden,
+						 int animatedY, float radius, int buttonX, int buttonY, Point out) {
+		double tgAlpha = (screenWidth / 2. - buttonX) / (visible.y - buttonY);
+		double rotationDegrees = 360 - Math.toDegrees(Math.atan(tgAlpha));
+
+		float distance = (float) Math.sqrt(Math.pow(animatedY - buttonY, 2) +
+				Math.pow(visible.x - hidden.x, 2));
+		float maxDistance = (float) Math.sqrt(Math.pow(screenWidth, 2) + Math.pow(screenHeight, 2));
+		distance /= maxDistance;
+
+		out.x = (int) DrawableUtils.rotateX(
+				visible.x, animatedY - radius * distance,
+				hidden.x, animatedY, (float) rotationDegrees);
+		out.y = (int) DrawableUtils.rotateY(
+				visible.x, animatedY - radius * distance,
+				hidden.x, animatedY, (float) rotationDegrees);
+	}
+}
@@ -0,0 +1,77 @@
+package com.cleveroad.audiowidget;
+
+import androidx.annotation.NonNull;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link ListenerArray} used by {@link PlaybackState}: fan-out of one progress event to all listeners,
+ * done once per frame while track plays, and adding/removing a listener, done when widget is shown or hidden.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ListenerArrayBenchmark {
+
+	@Param({"1", "10", "100"})
+	public int listenersCount;
+
+	private final ProgressEvent event = new ProgressEvent();
+	private final Listener extraListener = new Listener();
+	private ListenerArray<Listener> listeners;
+	private int position;
+
+	@Setup
+	public void setup() {
+		listeners = new ListenerArray<>();
+		for (int i = 0; i < listenersCount; i++) {
+			listeners.add(new Listener());
+		}
+	}
+
+	/**
+	 * Deliver reused progress event to all listeners.
+	 */
+	@Benchmark
+	public void dispatch() {
+		event.position = ++position;
+		listeners.dispatch(event);
+	}
+
+	/**
+	 * Add one more listener and remove it, both copy the array.
+	 */
+	@Benchmark
+	public boolean addRemove() {
+		listeners.add(extraListener);
+		return listeners.remove(extraListener);
+	}
+
+	private static final class Listener {
+
+		int position;
+
+		void onProgressChanged(int position) {
+			this.position = position;
+		}
+	}
+
+	private static final class ProgressEvent implements ListenerArray.Event<Listener> {
+
+		int position;
+
+		@Override
+		public void dispatch(@NonNull Listener listener) {
+			listener.onProgressChanged(position);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.cleveroad.audiowidget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link ParticleSystem} work done on every frame: computing positions of particles grouped by size.
+ * Drawing itself is done by native canvas and can't run on JVM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParticleSystemBenchmark {
+
+	private static final int SAMPLES_COUNT = 1024;
+	private static final int SAMPLES_MASK = SAMPLES_COUNT - 1;
+
+	@Param({"20", "100", "500"})
+	public int particlesCount;
+
+	private final float[] progress = new float[SAMPLES_COUNT];
+	private ParticleSystem particles;
+	private Random random;
+	private int index;
+
+	@Setup
+	public void setup() {
+		random = new Random(42);
+		for (int i = 0; i < SAMPLES_COUNT; i++) {
+			progress[i] = random.nextFloat();
+		}
+		particles = new ParticleSystem(2, 8, particlesCount);
+		burst();
+	}
+
+	private int next() {
+		return index = (index + 1) & SAMPLES_MASK;
+	}
+
+	private void burst() {
+		particles.burst(particlesCount);
+		for (int i = 0; i < particlesCount; i++) {
+			double angle = 2 * Math.PI * i / particlesCount;
+			particles.emit(100, 100, (float) Math.cos(angle), (float) Math.sin(angle),
+					100 * (0.5f + 0.5f * random.nextFloat()), 2 + 6 * random.nextFloat());
+		}
+	}
+
+	@Benchmark
+	public float[] frame() {
+		particles.update(progress[next()]);
+		return particles.points();
+	}
+}
@@ -0,0 +1,66 @@
+package com.cleveroad.audiowidget;
+
+import android.graphics.Point;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of remove button position computed on each move of dragged play/pause button:
+ * {@link RemoveTrajectory} against rotation by angle in degrees it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RemoveTrajectoryBenchmark {
+
+	private static final int SAMPLES_COUNT = 1024;
+	private static final int SAMPLES_MASK = SAMPLES_COUNT - 1;
+	private static final int SCREEN_WIDTH = 1080;
+	private static final int SCREEN_HEIGHT = 1794;
+	private static final float RADIUS = 80;
+
+	private final int[] xs = new int[SAMPLES_COUNT];
+	private final int[] ys = new int[SAMPLES_COUNT];
+	private final int[] animatedYs = new int[SAMPLES_COUNT];
+	private final Point visible = new Point(370, 1634);
+	private final Point hidden = new Point(370, 2154);
+	private final Point out = new Point();
+	private int index;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		for (int i = 0; i < SAMPLES_COUNT; i++) {
+			xs[i] = random.nextInt(SCREEN_WIDTH);
+			ys[i] = random.nextInt(SCREEN_HEIGHT);
+			animatedYs[i] = hidden.y + (int) ((visible.y - hidden.y) * random.nextFloat());
+		}
+	}
+
+	private int next() {
+		return index = (index + 1) & SAMPLES_MASK;
+	}
+
+	@Benchmark
+	public Point trajectory() {
+		int i = next();
+		RemoveTrajectory.position(SCREEN_WIDTH, SCREEN_HEIGHT, visible, hidden, animatedYs[i], RADIUS, xs[i], ys[i], out);
+		return out;
+	}
+
+	@Benchmark
+	public Point rotationByAngle() {
+		int i = next();
+		LegacyRemoveTrajectory.position(SCREEN_WIDTH, SCREEN_HEIGHT, visible, hidden, animatedYs[i], RADIUS, xs[i], ys[i], out);
+		return out;
+	}
+}